@@ -3,32 +3,45 @@
  */
 package graph;
 
+import java.util.AbstractMap;
+import java.util.AbstractSet;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.function.BiConsumer;
+import java.util.stream.Stream;
 
 /**
  * An implementation of Graph.
  * 
  * <p>PS2 instructions: you MUST use the provided rep.
  */
-public class ConcreteEdgesGraph implements Graph<String> {
+public class ConcreteEdgesGraph implements Graph<String>, IncrementableGraph<String> {
     
     private final Set<String> vertices = new HashSet<>();
-    private final List<Edge> edges = new ArrayList<>();
+    private final Set<Edge> edges = new LinkedHashSet<>();
+    private final Map<String, EdgeWeights> outIndex = new HashMap<>();
+    private final Map<String, EdgeWeights> inIndex = new HashMap<>();
     
     // Abstraction function:
     //   AF(vertices, edges) = a graph where 'vertices' is the set of all vertices and 'edges' contains all edges between vertices with specific weights.
+    //   'outIndex' and 'inIndex' are lookup structures over 'edges' and add nothing to the abstract value.
     // Representation invariant:
     //   - For every edge in 'edges', both edge.getSource() and edge.getTarget() are in 'vertices'.
     //   - No two edges in 'edges' have the same source and target.
+    //   - outIndex.get(s).edge(t) == e and inIndex.get(t).edge(s) == e for every edge e from s to t in 'edges',
+    //     and the indexes contain no other edges and no empty inner maps.
     // Safety from rep exposure:
-    //   - 'vertices' and 'edges' are private and final.
-    //   - Methods return copies of collections to avoid exposing internal references.  
+    //   - 'vertices', 'edges' and both indexes are private and final.
+    //   - Methods return copies of collections to avoid exposing internal references,
+    //     except targetsView and sourcesView, which return EdgeWeights maps that are read-only.
+    //   - Edge is immutable, so sharing Edge objects between 'edges' and the indexes is safe.
     
     // TODO constructor
     /**
@@ -40,20 +53,62 @@ public class ConcreteEdgesGraph implements Graph<String> {
     
     // TODO checkRep
     /**
-     * Check the representation invariant.
+     * Check the whole representation invariant.
      * @throws AssertionError if the representation invariant is violated
      */
     private void checkRep() {
+        int indexedEdges = 0;
+        for (EdgeWeights targets : outIndex.values()) {
+            assert !targets.isEmpty() : "Empty out-index entry";
+            indexedEdges += targets.size();
+        }
+        // Every edge is reachable through both indexes, so a duplicate (source, target)
+        // pair would leave one of the two edges unindexed
         for (Edge edge : edges) {
             assert vertices.contains(edge.getSource()) : "Source vertex not in vertices";
             assert vertices.contains(edge.getTarget()) : "Target vertex not in vertices";
+            assert outIndex.get(edge.getSource()).edge(edge.getTarget()) == edge : "Duplicate or unindexed edge";
+            assert inIndex.get(edge.getTarget()).edge(edge.getSource()) == edge : "Duplicate or unindexed edge";
         }
-        // Ensure non duplication of edges
-        Set<String> edgeSet = new HashSet<>();
-        for (Edge edge : edges) {
-            String edgeString = edge.toString();
-            assert !edgeSet.contains(edgeString) : "Duplicate edge";
-            edgeSet.add(edgeString);
+        assert indexedEdges == edges.size() : "Out-index out of sync with edges";
+    }
+    
+    /**
+     * Check the representation invariant after the edge from source to target
+     * changed, as far as the RepCheck level asks for.
+     * @param source the source vertex of the edge
+     * @param target the target vertex of the edge
+     * @throws AssertionError if the representation invariant is violated
+     */
+    private void checkRepAfterChange(String source, String target) {
+        if (RepCheck.audit()) {
+            checkRep();
+        } else if (RepCheck.incremental()) {
+            assert vertices.contains(source) : "Source vertex not in vertices";
+            assert vertices.contains(target) : "Target vertex not in vertices";
+            EdgeWeights targets = outIndex.get(source);
+            EdgeWeights sources = inIndex.get(target);
+            assert targets == null || !targets.isEmpty() : "Empty out-index entry";
+            assert sources == null || !sources.isEmpty() : "Empty in-index entry";
+            Edge edge = targets == null ? null : targets.edge(target);
+            assert edge == (sources == null ? null : sources.edge(source)) : "Indexes out of sync";
+            assert edge == null || edges.contains(edge) : "Indexed edge not in edges";
+        }
+    }
+    
+    /**
+     * Check the representation invariant after a vertex was removed, as far
+     * as the RepCheck level asks for.
+     * @param vertex the removed vertex
+     * @throws AssertionError if the representation invariant is violated
+     */
+    private void checkRepAfterRemove(String vertex) {
+        if (RepCheck.audit()) {
+            checkRep();
+        } else if (RepCheck.incremental()) {
+            assert !vertices.contains(vertex) : "Removed vertex still in vertices";
+            assert !outIndex.containsKey(vertex) : "Removed vertex still has out edges";
+            assert !inIndex.containsKey(vertex) : "Removed vertex still has in edges";
         }
     }
     
@@ -62,69 +117,177 @@ public class ConcreteEdgesGraph implements Graph<String> {
     }
     
     @Override public int set(String source, String target, int weight) {
-        Edge newEdge = new Edge(source, target, weight);
-        // Add vertices
-        vertices.add(source);
-        vertices.add(target);
         int previousWeight = 0;
-        // Remove any previosly existing edges
-        Iterator<Edge> iterator = edges.iterator();
-        while (iterator.hasNext()) {
-            Edge edge = iterator.next();
-            if (edge.getSource().equals(source) && edge.getTarget().equals(target)) {
-                previousWeight = edge.getWeight();
-                iterator.remove();
-                break;
-            }
+        // Remove any previosly existing edge
+        Edge previous = unlink(source, target);
+        if (previous != null) {
+            previousWeight = previous.getWeight();
+        } else if (weight == 0) {
+            // No edge to remove, and the graph is not otherwise modified
+            return 0;
         }
         if (weight != 0) {
-            edges.add(newEdge);
+            // Add vertices
+            vertices.add(source);
+            vertices.add(target);
+            link(new Edge(source, target, weight));
         }
-        checkRep();
+        checkRepAfterChange(source, target);
         return previousWeight;
     }
     
+    /**
+     * Add to the weight of an edge with one lookup of the edge, instead of
+     * reading the weight through targets() and writing it with set(). If the
+     * new weight is nonzero, the edge is added or updated, adding vertices
+     * with the given labels if they do not already exist; if it is zero, the
+     * edge is removed if it exists (the graph is not otherwise modified).
+     *
+     * @param source label of the source vertex
+     * @param target label of the target vertex
+     * @param delta amount to add to the current weight, or to zero if there
+     *              is no such edge
+     * @return the new weight of the edge
+     * @throws IllegalArgumentException if the new weight would be negative
+     * @throws ArithmeticException if the new weight overflows an int
+     */
+    @Override public int increment(String source, String target, int delta) {
+        EdgeWeights targets = outIndex.get(source);
+        Edge previous = targets == null ? null : targets.edge(target);
+        int previousWeight = previous == null ? 0 : previous.getWeight();
+        int weight = Graphs.incrementedWeight(previousWeight, delta);
+        if (weight == previousWeight) {
+            return weight;
+        }
+        vertices.add(source);
+        vertices.add(target);
+        if (previous != null) {
+            unlink(source, target);
+        }
+        if (weight != 0) {
+            link(new Edge(source, target, weight));
+        }
+        checkRepAfterChange(source, target);
+        return weight;
+    }
+    
     @Override public boolean remove(String vertex) {
         boolean removed = vertices.remove(vertex);
         if (removed) {
-            // Remove all edges with the vertex
-            List<Edge> edgesToRemove = new ArrayList<>();
-            for (Edge edge : edges) {
-                if (edge.getSource().equals(vertex) || edge.getTarget().equals(vertex)) {
-                    edgesToRemove.add(edge);
+            // Remove all edges with the vertex, found through the indexes
+            EdgeWeights targets = outIndex.get(vertex);
+            if (targets != null) {
+                for (Edge edge : targets.edges()) {
+                    unlink(vertex, edge.getTarget());
+                }
+            }
+            EdgeWeights sources = inIndex.get(vertex);
+            if (sources != null) {
+                for (Edge edge : sources.edges()) {
+                    unlink(edge.getSource(), vertex);
                 }
             }
-            edges.removeAll(edgesToRemove);
         }
-        checkRep();
+        checkRepAfterRemove(vertex);
         return removed;
     }
     
+    /**
+     * Add an edge to the edge list and both indexes.
+     * There must be no existing edge with the same source and target.
+     * @param edge the edge to add
+     */
+    private void link(Edge edge) {
+        edges.add(edge);
+        outIndex.computeIfAbsent(edge.getSource(), k -> new EdgeWeights(true)).link(edge);
+        inIndex.computeIfAbsent(edge.getTarget(), k -> new EdgeWeights(false)).link(edge);
+    }
+    
+    /**
+     * Remove the edge from source to target from the edge list and both indexes.
+     * @param source the source vertex
+     * @param target the target vertex
+     * @return the removed edge, or null if there was no such edge
+     */
+    private Edge unlink(String source, String target) {
+        EdgeWeights targets = outIndex.get(source);
+        if (targets == null) {
+            return null;
+        }
+        Edge edge = targets.unlink(target);
+        if (edge == null) {
+            return null;
+        }
+        if (targets.isEmpty()) {
+            outIndex.remove(source);
+        }
+        EdgeWeights sources = inIndex.get(target);
+        sources.unlink(source);
+        if (sources.isEmpty()) {
+            inIndex.remove(target);
+        }
+        edges.remove(edge);
+        return edge;
+    }
+    
     @Override public Set<String> vertices() {
         // Return a copy of vertices set
         return new HashSet<>(vertices);
     }
     
     @Override public Map<String, Integer> sources(String target) {
-        // Check all edges with the target
-        Map<String, Integer> sources = new HashMap<>();
-        for (Edge edge : edges) {
-            if (edge.getTarget().equals(target)) {
-                sources.put(edge.getSource(), edge.getWeight());
-            }
-        }
-        return sources;
+        // Copy the view of the edges into target
+        return new HashMap<>(sourcesView(target));
     }
     
     @Override public Map<String, Integer> targets(String source) {
-        // Check all edges with the source
-        Map<String, Integer> targets = new HashMap<>();
-        for (Edge edge : edges) {
-            if (edge.getSource().equals(source)) {
-                targets.put(edge.getTarget(), edge.getWeight());
-            }
-        }
-        return targets;
+        // Copy the view of the edges out of source
+        return new HashMap<>(targetsView(source));
+    }
+    
+    /**
+     * Get a read-only view of the source vertices with directed edges to a
+     * target vertex and the weights of those edges, without copying them.
+     * 
+     * <p>The view has the same contents as {@link #sources(String)} at the
+     * time of the call. Its contents after this graph is next mutated are
+     * unspecified; use sources() to obtain a copy that outlives mutations.
+     * 
+     * @param target a label
+     * @return an unmodifiable map from sources of target to edge weights
+     */
+    public Map<String, Integer> sourcesView(String target) {
+        EdgeWeights sources = inIndex.get(target);
+        return sources == null ? Collections.emptyMap() : sources;
+    }
+    
+    /**
+     * Get a read-only view of the target vertices with directed edges from a
+     * source vertex and the weights of those edges, without copying them.
+     * 
+     * <p>The view has the same contents as {@link #targets(String)} at the
+     * time of the call. Its contents after this graph is next mutated are
+     * unspecified; use targets() to obtain a copy that outlives mutations.
+     * 
+     * @param source a label
+     * @return an unmodifiable map from targets of source to edge weights
+     */
+    public Map<String, Integer> targetsView(String source) {
+        EdgeWeights targets = outIndex.get(source);
+        return targets == null ? Collections.emptyMap() : targets;
+    }
+    
+    /**
+     * Get every edge of this graph as a stream, in the order the edges were
+     * added. The stream walks the graph's own edge set, allocating nothing
+     * per vertex. It can be made parallel, but a linked set has no random
+     * access, so it splits off batches of edges copied to arrays rather than
+     * halves. The graph must not be mutated while the stream is in use.
+     * 
+     * @return a sequential stream of the edges of this graph
+     */
+    public Stream<WeightedEdge<String>> edges() {
+        return edges.stream().map(edge -> new WeightedEdge<>(edge.getSource(), edge.getTarget(), edge.getWeight()));
     }
     
     // TODO toString()
@@ -194,6 +357,9 @@ class Edge {
      * @throws AssertionError if the representation invariant is violated
      */
     private void checkRep() {
+        if (!RepCheck.enabled()) {
+            return;
+        }
         assert source != null : "Source cannot be null";
         assert target != null : "Target cannot be null";
         assert weight >= 0 : "Weight must be non-negative";
@@ -230,3 +396,152 @@ class Edge {
         return source + " -> " + target + " : " + weight;
     }
 }
+
+/**
+ * The edges joining one vertex to its neighbours, keyed by neighbour.
+ * Viewed as a Map, it maps each neighbour to the weight of the edge joining
+ * it to the vertex, and is read-only: edges are changed only through link
+ * and unlink.
+ * Mutable.
+ * This class is internal to the rep of ConcreteEdgesGraph.
+ */
+class EdgeWeights extends AbstractMap<String, Integer> {
+    
+    // true if neighbours are the targets of the edges, false if they are the sources
+    private final boolean outgoing;
+    private final Map<String, Link> links = new HashMap<>();
+    private final Set<Map.Entry<String, Integer>> entrySet = new EntrySet();
+    
+    // Abstraction function:
+    //   AF(outgoing, links) = the edges of the links in links.values(); the vertex they
+    //   share is their source if outgoing, otherwise their target.
+    // Representation invariant:
+    //   - links.get(n) has key n, the weight of its edge as value, and an edge with
+    //     neighbour n, i.e. target n if outgoing, otherwise source n.
+    // Safety from rep exposure:
+    //   - links is private and final; Link and Edge are immutable, so the links can be
+    //     handed out as the entries of entrySet.
+    //   - The Map interface rejects every mutation, including through entrySet, keySet and values.
+    //   - edges() is package-private and only used by ConcreteEdgesGraph.
+    
+    /**
+     * An edge as an entry from its neighbour to its weight, made once when the
+     * edge is linked so that iterating over the entries allocates nothing.
+     */
+    private static final class Link extends AbstractMap.SimpleImmutableEntry<String, Integer> {
+        
+        private static final long serialVersionUID = 1L;
+        
+        private final transient Edge edge;
+        
+        Link(String neighbour, Edge edge) {
+            super(neighbour, edge.getWeight());
+            this.edge = edge;
+        }
+    }
+    
+    /**
+     * Create an empty set of edges.
+     * @param outgoing true to key edges by target, false to key them by source
+     */
+    EdgeWeights(boolean outgoing) {
+        this.outgoing = outgoing;
+    }
+    
+    private String neighbour(Edge edge) {
+        return outgoing ? edge.getTarget() : edge.getSource();
+    }
+    
+    /**
+     * Add an edge, replacing any edge with the same neighbour.
+     * @param edge the edge to add
+     */
+    void link(Edge edge) {
+        String neighbour = neighbour(edge);
+        links.put(neighbour, new Link(neighbour, edge));
+    }
+    
+    /**
+     * Remove the edge to or from a neighbour.
+     * @param neighbour the neighbour vertex
+     * @return the removed edge, or null if there was no such edge
+     */
+    Edge unlink(String neighbour) {
+        Link link = links.remove(neighbour);
+        return link == null ? null : link.edge;
+    }
+    
+    /**
+     * Get the edge to or from a neighbour.
+     * @param neighbour the neighbour vertex
+     * @return the edge, or null if there is no such edge
+     */
+    Edge edge(String neighbour) {
+        Link link = links.get(neighbour);
+        return link == null ? null : link.edge;
+    }
+    
+    /**
+     * Get a copy of the edges.
+     * @return the edges
+     */
+    List<Edge> edges() {
+        List<Edge> edges = new ArrayList<>(links.size());
+        for (Link link : links.values()) {
+            edges.add(link.edge);
+        }
+        return edges;
+    }
+    
+    @Override public int size() {
+        return links.size();
+    }
+    
+    @Override public boolean isEmpty() {
+        return links.isEmpty();
+    }
+    
+    @Override public boolean containsKey(Object neighbour) {
+        return links.containsKey(neighbour);
+    }
+    
+    @Override public Integer get(Object neighbour) {
+        Link link = links.get(neighbour);
+        return link == null ? null : link.getValue();
+    }
+    
+    @Override public Integer getOrDefault(Object neighbour, Integer defaultValue) {
+        Link link = links.get(neighbour);
+        return link == null ? defaultValue : link.getValue();
+    }
+    
+    @Override public void forEach(BiConsumer<? super String, ? super Integer> action) {
+        for (Link link : links.values()) {
+            action.accept(link.getKey(), link.getValue());
+        }
+    }
+    
+    @Override public Set<Map.Entry<String, Integer>> entrySet() {
+        return entrySet;
+    }
+    
+    private class EntrySet extends AbstractSet<Map.Entry<String, Integer>> {
+        
+        @Override public int size() {
+            return links.size();
+        }
+        
+        @Override public Iterator<Map.Entry<String, Integer>> iterator() {
+            Iterator<Link> iterator = links.values().iterator();
+            return new Iterator<Map.Entry<String, Integer>>() {
+                @Override public boolean hasNext() {
+                    return iterator.hasNext();
+                }
+                
+                @Override public Map.Entry<String, Integer> next() {
+                    return iterator.next();
+                }
+            };
+        }
+    }
+}
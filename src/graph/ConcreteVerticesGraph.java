@@ -3,29 +3,38 @@
  */
 package graph;
 
-import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
-import java.util.List;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.Map;
 import java.util.Set;
+import java.util.Spliterator;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 /**
  * An implementation of Graph.
  * 
  * <p>PS2 instructions: you MUST use the provided rep.
  */
-public class ConcreteVerticesGraph implements Graph<String> {
+public class ConcreteVerticesGraph implements Graph<String>, IncrementableGraph<String> {
     
-    private final List<Vertex> vertices = new ArrayList<>();
+    // Keyed by label, in the order the vertices were added
+    private final Map<String, Vertex> vertices = new LinkedHashMap<>();
     
     // Abstraction function:
     //   Represents a graph where each Vertex object in 'vertices' contains a vertex and its outgoing edges.
+    //   The incoming edges kept by each Vertex mirror the outgoing ones and add nothing to the abstract value.
     // Representation invariant:
-    //   - No two vertices in 'vertices' have the same source. i.e. vertices are not repeated.
+    //   - vertices.get(label).getSource().equals(label) for every key label, so no vertex is repeated.
+    //   - For all vertices u, v: u has an out edge to v of weight w iff v has an in edge from u of weight w.
     // Safety from rep exposure:
     //   - vertices is private and final.
-    //   - Only copies of vertex labels and edge mappings are exposed.
+    //   - Only copies of vertex labels and edge mappings are exposed, except through
+    //     targetsView and sourcesView, which expose unmodifiable views of a Vertex's maps.
     
     // TODO constructor
     /**
@@ -37,117 +46,215 @@ public class ConcreteVerticesGraph implements Graph<String> {
     
     // TODO checkRep
     /**
-     * Check the representation invariant.
+     * Check the whole representation invariant.
      * @throws AssertionError if the representation invariant is violated
      */
     private void checkRep() {
-        // Ensure non duplication of vertices
-        Set<String> vertexSet = new HashSet<>();
-        for (Vertex vertex : vertices) {
-            String vertexString = vertex.getSource();
-            assert !vertexSet.contains(vertexString) : "Duplicate vertex";
-            vertexSet.add(vertexString);
+        // Ensure non duplication of vertices; the map has one entry per label,
+        // so each vertex must sit under its own label
+        for (Map.Entry<String, Vertex> entry : vertices.entrySet()) {
+            Vertex vertex = entry.getValue();
+            assert vertex.getSource().equals(entry.getKey()) : "Vertex under the wrong label";
+            vertex.checkRep();
+            for (Map.Entry<String, Integer> edge : vertex.getOutEdgesView().entrySet()) {
+                Vertex target = vertices.get(edge.getKey());
+                assert target != null : "Edge target not in vertices";
+                assert target.getInWeight(vertex.getSource()) == edge.getValue() : "In edges out of sync";
+            }
+            for (Map.Entry<String, Integer> edge : vertex.getInEdgesView().entrySet()) {
+                Vertex source = vertices.get(edge.getKey());
+                assert source != null : "Edge source not in vertices";
+                assert source.getOutWeight(vertex.getSource()) == edge.getValue() : "Out edges out of sync";
+            }
+        }
+    }
+    
+    /**
+     * Check the representation invariant after a change to the given vertices
+     * and the edge between them, as far as the RepCheck level asks for.
+     * @param source a vertex label that was changed; it must be in the graph
+     * @param target a vertex label that was changed, the target of the changed
+     *               edge from source if any; it must be in the graph
+     * @throws AssertionError if the representation invariant is violated
+     */
+    private void checkRepAfterChange(String source, String target) {
+        if (RepCheck.audit()) {
+            checkRep();
+        } else if (RepCheck.incremental()) {
+            Vertex sourceVertex = vertices.get(source);
+            Vertex targetVertex = vertices.get(target);
+            assert sourceVertex != null && sourceVertex.getSource().equals(source) : "Vertex under the wrong label";
+            assert targetVertex != null && targetVertex.getSource().equals(target) : "Vertex under the wrong label";
+            assert sourceVertex.getOutWeight(target) == targetVertex.getInWeight(source) : "In edges out of sync";
+        }
+    }
+    
+    /**
+     * Check the representation invariant after a vertex was removed, as far
+     * as the RepCheck level asks for.
+     * @param vertex the removed vertex
+     * @param removed the removed vertex's record, whose edges name the
+     *                vertices that were its neighbours
+     * @throws AssertionError if the representation invariant is violated
+     */
+    private void checkRepAfterRemove(String vertex, Vertex removed) {
+        if (RepCheck.audit()) {
+            checkRep();
+        } else if (RepCheck.incremental()) {
+            assert !vertices.containsKey(vertex) : "Removed vertex still present";
+            for (String neighbour : removed.getInEdgesView().keySet()) {
+                checkNoEdgesWith(neighbour, vertex);
+            }
+            for (String neighbour : removed.getOutEdgesView().keySet()) {
+                checkNoEdgesWith(neighbour, vertex);
+            }
         }
     }
     
+    /**
+     * Check that a vertex, if it is in the graph, has no edges to or from a
+     * removed vertex.
+     * @throws AssertionError if the representation invariant is violated
+     */
+    private void checkNoEdgesWith(String neighbour, String removed) {
+        Vertex vertex = vertices.get(neighbour);
+        assert vertex == null || vertex.getOutWeight(removed) == 0 && vertex.getInWeight(removed) == 0
+                : "Neighbour still lists removed vertex";
+    }
+    
+    /**
+     * Find the vertex with the given label, creating it if it does not exist.
+     * @param label the vertex label
+     * @return the vertex with that label
+     */
+    private Vertex vertexFor(String label) {
+        return vertices.computeIfAbsent(label, Vertex::new);
+    }
+    
     @Override public boolean add(String vertex) {
         // Check if vertex already exists
-        for (Vertex v : vertices) {
-            if (v.getSource().equals(vertex)) {
-                return false;
-            }
+        if (vertices.containsKey(vertex)) {
+            return false;
         }
         // Else add it
-        vertices.add(new Vertex(vertex));
-        checkRep();
+        vertexFor(vertex);
+        checkRepAfterChange(vertex, vertex);
         return true;
     }
     
     @Override public int set(String source, String target, int weight) {
-        // Check if source and target vertices exist
-        Vertex sourceVertex = null;
-        Vertex targetVertex = null;
-        for (Vertex v : vertices) {
-            if (v.getSource().equals(source)) {
-                sourceVertex = v;
-            }
-            if (v.getSource().equals(target)) {
-                targetVertex = v;
-            }
-        }
-        // If they don't exist, create them
-        if (sourceVertex == null) {
-            sourceVertex = new Vertex(source);
-            vertices.add(sourceVertex);
-        }
-        if (targetVertex == null) {
-            targetVertex = new Vertex(target);
-            vertices.add(targetVertex);
-        }
         // Check if the outEdge already exists
-        int previousWeight = 0;
-        Map<String, Integer> outEdges = sourceVertex.getOutEdges();
-        if (outEdges.containsKey(target)) {
-            previousWeight = outEdges.get(target);
+        Vertex sourceVertex = vertices.get(source);
+        int previousWeight = sourceVertex == null ? 0 : sourceVertex.getOutWeight(target);
+        if (weight == 0 && previousWeight == 0) {
+            // No edge to remove, and the graph is not otherwise modified
+            return 0;
         }
+        // Find the source and target vertices, creating them if they don't exist
+        sourceVertex = vertexFor(source);
+        Vertex targetVertex = vertexFor(target);
         if (weight == 0) {
             sourceVertex.removeOutEdge(target);
+            targetVertex.removeInEdge(source);
         } else {
             sourceVertex.addOutEdge(target, weight);
+            targetVertex.addInEdge(source, weight);
         }
-        checkRep();
+        checkRepAfterChange(source, target);
         return previousWeight;
     }
     
-    @Override public boolean remove(String vertex) {
-        // Check if vertex exists
-        Vertex vertexToRemove = null;
-        for (Vertex v : vertices) {
-            if (v.getSource().equals(vertex)) {
-                vertexToRemove = v;
-            }
+    /**
+     * Add to the weight of an edge with one lookup of the edge, instead of
+     * reading the weight through targets() and writing it with set(). If the
+     * new weight is nonzero, the edge is added or updated, adding vertices
+     * with the given labels if they do not already exist; if it is zero, the
+     * edge is removed if it exists (the graph is not otherwise modified).
+     *
+     * @param source label of the source vertex
+     * @param target label of the target vertex
+     * @param delta amount to add to the current weight, or to zero if there
+     *              is no such edge
+     * @return the new weight of the edge
+     * @throws IllegalArgumentException if the new weight would be negative
+     * @throws ArithmeticException if the new weight overflows an int
+     */
+    @Override public int increment(String source, String target, int delta) {
+        Vertex sourceVertex = vertices.get(source);
+        int previousWeight = sourceVertex == null ? 0 : sourceVertex.getOutWeight(target);
+        int weight = Graphs.incrementedWeight(previousWeight, delta);
+        if (weight == previousWeight) {
+            return weight;
         }
+        sourceVertex = vertexFor(source);
+        Vertex targetVertex = vertexFor(target);
+        if (weight == 0) {
+            sourceVertex.removeOutEdge(target);
+            targetVertex.removeInEdge(source);
+        } else {
+            sourceVertex.addOutEdge(target, weight);
+            targetVertex.addInEdge(source, weight);
+        }
+        checkRepAfterChange(source, target);
+        return weight;
+    }
+    
+    @Override public boolean remove(String vertex) {
+        // Remove the vertex, if it exists
+        Vertex vertexToRemove = vertices.remove(vertex);
         if (vertexToRemove == null) {
             return false;
         }
-        // Remove the vertex
-        vertices.remove(vertexToRemove);
-        // Remove all edges with the vertex
-        for (Vertex v : vertices) {
-            v.removeOutEdge(vertex);
+        // Remove all edges with the vertex, visiting only its neighbours
+        for (String source : vertexToRemove.getInEdgesView().keySet()) {
+            Vertex predecessor = vertices.get(source);
+            if (predecessor != null) {
+                predecessor.removeOutEdge(vertex);
+            }
         }
-        checkRep();
+        for (String target : vertexToRemove.getOutEdgesView().keySet()) {
+            Vertex successor = vertices.get(target);
+            if (successor != null) {
+                successor.removeInEdge(vertex);
+            }
+        }
+        checkRepAfterRemove(vertex, vertexToRemove);
         return true;
     }
     
     @Override public Set<String> vertices() {
-        Set<String> vertexSet = new HashSet<>();
-        for (Vertex v : vertices) {
-            vertexSet.add(v.getSource());
-        }
-        return vertexSet;
+        return new HashSet<>(vertices.keySet());
     }
     
     @Override public Map<String, Integer> sources(String target) {
-        Map<String, Integer> sources = new HashMap<>();
-        // Check all vertices for edges with the target
-        for (Vertex v : vertices) {
-            Map<String, Integer> outEdges = v.getOutEdges();
-            if (outEdges.containsKey(target)) {
-                sources.put(v.getSource(), outEdges.get(target));
-            }
+        // Check if target vertex exists
+        Vertex targetVertex = vertices.get(target);
+        // Return empty hash map if target does not exist
+        if (targetVertex == null) {
+            return new HashMap<>();
         }
-        return sources;
+        return targetVertex.getInEdges();
+    }
+    
+    /**
+     * Get a read-only view of the source vertices with directed edges to a
+     * target vertex and the weights of those edges, without copying them.
+     * 
+     * <p>The view has the same contents as {@link #sources(String)} at the
+     * time of the call. Its contents after this graph is next mutated are
+     * unspecified; use sources() to obtain a copy that outlives mutations.
+     * 
+     * @param target a label
+     * @return an unmodifiable map from sources of target to edge weights
+     */
+    public Map<String, Integer> sourcesView(String target) {
+        Vertex targetVertex = vertices.get(target);
+        return targetVertex == null ? Collections.emptyMap() : targetVertex.getInEdgesView();
     }
     
     @Override public Map<String, Integer> targets(String source) {  
         // Check if source vertex exists
-        Vertex sourceVertex = null;
-        for (Vertex v : vertices) {
-            if (v.getSource().equals(source)) {
-                sourceVertex = v;
-            }
-        }
+        Vertex sourceVertex = vertices.get(source);
         // Return empty hash map if source does not exist
         if (sourceVertex == null) {
             return new HashMap<>();
@@ -155,11 +262,98 @@ public class ConcreteVerticesGraph implements Graph<String> {
         return sourceVertex.getOutEdges();
     }
     
+    /**
+     * Get a read-only view of the target vertices with directed edges from a
+     * source vertex and the weights of those edges, without copying them.
+     * 
+     * <p>The view has the same contents as {@link #targets(String)} at the
+     * time of the call. Its contents after this graph is next mutated are
+     * unspecified; use targets() to obtain a copy that outlives mutations.
+     * 
+     * @param source a label
+     * @return an unmodifiable map from targets of source to edge weights
+     */
+    public Map<String, Integer> targetsView(String source) {
+        Vertex sourceVertex = vertices.get(source);
+        return sourceVertex == null ? Collections.emptyMap() : sourceVertex.getOutEdgesView();
+    }
+    
+    /**
+     * Get every edge of this graph as a stream, grouped by source vertex in
+     * the order the vertices were added. The stream walks the graph's own
+     * vertex map, allocating an iterator per vertex and an edge per edge. A
+     * parallel stream splits off vertices not yet started on, as the vertex
+     * map splits them, in batches copied to arrays. The graph must not be
+     * mutated while the stream is in use.
+     * 
+     * @return a sequential stream of the edges of this graph
+     */
+    public Stream<WeightedEdge<String>> edges() {
+        return StreamSupport.stream(new OutEdges(vertices.values().spliterator()), false);
+    }
+    
+    /**
+     * A spliterator over the out edges of a run of vertices, in order of
+     * vertex and then of each vertex's out-edge map.
+     */
+    private static final class OutEdges implements Spliterator<WeightedEdge<String>> {
+        
+        private final Spliterator<Vertex> vertices;
+        private final Consumer<Vertex> start = this::start;
+        private Vertex source;
+        private Iterator<Map.Entry<String, Integer>> edges;
+        
+        // Abstraction function:
+        //   AF(vertices, source, edges) = the out edges of source that edges has yet to
+        //     return, followed by the out edges of each vertex vertices has yet to return
+        // Representation invariant:
+        //   - edges == null iff source == null; otherwise edges iterates over source's out edges.
+        // Safety from rep exposure:
+        //   - All fields are private; edges are returned as new immutable WeightedEdges.
+        
+        OutEdges(Spliterator<Vertex> vertices) {
+            this.vertices = vertices;
+        }
+        
+        private void start(Vertex vertex) {
+            source = vertex;
+            edges = vertex.getOutEdgesView().entrySet().iterator();
+        }
+        
+        @Override public boolean tryAdvance(Consumer<? super WeightedEdge<String>> action) {
+            while (edges == null || !edges.hasNext()) {
+                if (!vertices.tryAdvance(start)) {
+                    return false;
+                }
+            }
+            Map.Entry<String, Integer> edge = edges.next();
+            action.accept(new WeightedEdge<>(source.getSource(), edge.getKey(), edge.getValue()));
+            return true;
+        }
+        
+        @Override public Spliterator<WeightedEdge<String>> trySplit() {
+            // Only whole vertices can be split off, and the prefix must not follow source
+            if (edges != null && edges.hasNext()) {
+                return null;
+            }
+            Spliterator<Vertex> prefix = vertices.trySplit();
+            return prefix == null ? null : new OutEdges(prefix);
+        }
+        
+        @Override public long estimateSize() {
+            return vertices.estimateSize();
+        }
+        
+        @Override public int characteristics() {
+            return ORDERED | NONNULL;
+        }
+    }
+    
     // TODO toString()
     @Override
     public String toString() {
         StringBuilder sb = new StringBuilder();
-        for (Vertex v : vertices) {
+        for (Vertex v : vertices.values()) {
             sb.append(v.toString());
         }
         return sb.toString();
@@ -170,7 +364,7 @@ public class ConcreteVerticesGraph implements Graph<String> {
  * TODO specification
  * Mutable.
  * Source should not be null.
- * Out edges should not contain null keys or values.
+ * Out edges and in edges should not contain null keys or values.
  * Weights should be > 0.
  * This class is internal to the rep of ConcreteVerticesGraph.
  * 
@@ -183,32 +377,69 @@ class Vertex {
     private final String source;
     // Create a map containing pairs, the first element is the target and the second element is the weight
     private final Map<String, Integer> outEdges;
+    // Same shape as outEdges, keyed by the source of each incoming edge
+    private final Map<String, Integer> inEdges;
+    // Unmodifiable wrappers, created once so that handing out a view allocates nothing
+    private final Map<String, Integer> outEdgesView;
+    private final Map<String, Integer> inEdgesView;
     
     // Abstraction function:
     //   Represents a vertex in a graph, where 'source' is the vertex label, and 'outEdges'
     //   is a map of edges with target vertices and their corresponding weights.
+    //   'inEdges' is a map of the edges into this vertex from source vertices and their weights.
     // Representation invariant:
     //   - source is non-null.
-    //   - outEdges does not contain null keys or values, and all weights are > 0.
+    //   - outEdges and inEdges do not contain null keys or values, and all weights are > 0.
     // Safety from rep exposure:
     //   - Fields are private and final where applicable.
-    //   - outEdges is exposed only as a copy to prevent external modification.
+    //   - outEdges and inEdges are exposed only as copies or unmodifiable views to prevent
+    //     external modification.
     
     // TODO constructor
     Vertex(String source) {
         this.source = source;
         this.outEdges = new HashMap<>();
+        this.inEdges = new HashMap<>();
+        this.outEdgesView = Collections.unmodifiableMap(outEdges);
+        this.inEdgesView = Collections.unmodifiableMap(inEdges);
         checkRep();
     }
     
     // TODO checkRep
-    private void checkRep() {
+    /**
+     * Check the whole representation invariant. The graph calls this on each
+     * of its vertices when it audits its own rep.
+     * @throws AssertionError if the representation invariant is violated
+     */
+    void checkRep() {
         assert source != null;
         assert outEdges != null;
+        assert inEdges != null;
         for (String target : outEdges.keySet()) {
             assert target != null;
             assert outEdges.get(target) > 0;
         }
+        for (String source : inEdges.keySet()) {
+            assert source != null;
+            assert inEdges.get(source) > 0;
+        }
+    }
+    
+    /**
+     * Check the representation invariant after a change to the edges to or
+     * from a neighbour, if the RepCheck level is INCREMENTAL. Full audits are
+     * left to the graph, which decides on one once per mutation.
+     * @param neighbour the vertex at the other end of the changed edges
+     * @throws AssertionError if the representation invariant is violated
+     */
+    private void checkRepAfterChange(String neighbour) {
+        if (RepCheck.incremental()) {
+            assert neighbour != null;
+            Integer outWeight = outEdges.get(neighbour);
+            Integer inWeight = inEdges.get(neighbour);
+            assert outWeight == null || outWeight > 0;
+            assert inWeight == null || inWeight > 0;
+        }
     }
     
     // TODO methods
@@ -228,6 +459,23 @@ class Vertex {
         return new HashMap<>(outEdges);
     }
 
+    /**
+     * Get an unmodifiable view of the out edges, which reflects later changes.
+     * @return an unmodifiable view of the out edges
+     */
+    public Map<String, Integer> getOutEdgesView() {
+        return outEdgesView;
+    }
+
+    /**
+     * Get the weight of the out edge to a target.
+     * @param target the target vertex
+     * @return the weight of the edge to target, or 0 if there is no such edge
+     */
+    public int getOutWeight(String target) {
+        return outEdges.getOrDefault(target, 0);
+    }
+
     /**
      * Add an out edge to the vertex.
      * @param target the target vertex
@@ -235,7 +483,7 @@ class Vertex {
      */
     public void addOutEdge(String target, int weight) {
         outEdges.put(target, weight);
-        checkRep();
+        checkRepAfterChange(target);
     }
 
     /**
@@ -244,7 +492,51 @@ class Vertex {
      */
     public void removeOutEdge(String target) {
         outEdges.remove(target);
-        checkRep();
+        checkRepAfterChange(target);
+    }
+    
+    /**
+     * Get a copy of the in edges.
+     * @return a copy of the in edges, keyed by source vertex
+     */
+    public Map<String, Integer> getInEdges() {
+        return new HashMap<>(inEdges);
+    }
+
+    /**
+     * Get an unmodifiable view of the in edges, which reflects later changes.
+     * @return an unmodifiable view of the in edges, keyed by source vertex
+     */
+    public Map<String, Integer> getInEdgesView() {
+        return inEdgesView;
+    }
+
+    /**
+     * Get the weight of the in edge from a source.
+     * @param source the source vertex
+     * @return the weight of the edge from source, or 0 if there is no such edge
+     */
+    public int getInWeight(String source) {
+        return inEdges.getOrDefault(source, 0);
+    }
+
+    /**
+     * Add an in edge to the vertex.
+     * @param source the source vertex
+     * @param weight the weight of the edge
+     */
+    public void addInEdge(String source, int weight) {
+        inEdges.put(source, weight);
+        checkRepAfterChange(source);
+    }
+
+    /**
+     * Remove an in edge from the vertex.
+     * @param source the source vertex
+     */
+    public void removeInEdge(String source) {
+        inEdges.remove(source);
+        checkRepAfterChange(source);
     }
     
     // TODO toString()
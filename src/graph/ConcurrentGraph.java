@@ -0,0 +1,338 @@
+/* Copyright (c) 2015-2016 MIT 6.005 course staff, all rights reserved.
+ * Redistribution of original or derived work requires permission of course staff.
+ */
+package graph;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * A thread-safe implementation of Graph with lock striping.
+ *
+ * <p>Each vertex hashes to one of a fixed set of stripes, each with a
+ * read-write lock guarding the edges of the vertices in it. set and
+ * increment lock the stripes of their two endpoints, and sources and
+ * targets read-lock the stripe of their one vertex, so operations on
+ * vertices in different stripes never contend and reads of one stripe run in
+ * parallel. remove and vertices, which concern the whole graph, lock every
+ * stripe. Every operation is linearizable.
+ *
+ * @param <L> type of vertex labels in this graph, must be immutable
+ */
+public class ConcurrentGraph<L> implements Graph<L>, IncrementableGraph<L> {
+
+    private final ConcurrentHashMap<L, Node<L>> nodes;
+    private final ReentrantReadWriteLock[] stripes;
+
+    // Abstraction function:
+    //   AF(nodes) = a graph whose vertices are the keys of nodes, with an edge from v to t
+    //     of weight w for every v and every entry t -> w of nodes.get(v).out
+    //   The in maps mirror the out maps and add nothing to the abstract value.
+    // Representation invariant:
+    //   - stripes.length is a power of two.
+    //   - For all s, t, w: nodes.get(s).out.get(t) == w iff nodes.get(t).in.get(s) == w;
+    //     in particular the keys of every out and in map are vertices.
+    //   - All weights are > 0.
+    // Safety from rep exposure:
+    //   - All fields are private and final; Node is private and never returned.
+    //   - vertices, sources and targets return new collections, and labels are immutable.
+    // Thread safety argument:
+    //   - nodes is a ConcurrentHashMap, so lookups are safe from any thread.
+    //   - The out and in maps of a vertex v, and the presence of v in nodes, are only
+    //     accessed while holding the lock of stripeOf(v): the read lock to read them, the
+    //     write lock to change them.
+    //   - Threads acquire several stripe locks only in increasing stripe index, so they
+    //     cannot deadlock.
+    //   - A mutation holds the write locks of every stripe it changes for its whole
+    //     duration, and an observer holds the read locks of every stripe it reads, so each
+    //     operation takes effect atomically while its locks are held.
+
+    /**
+     * A vertex's edges, guarded by the lock of the vertex's stripe.
+     */
+    private static final class Node<L> {
+        final Map<L, Integer> out = new HashMap<>();
+        final Map<L, Integer> in = new HashMap<>();
+    }
+
+    /**
+     * Create a new empty graph.
+     */
+    public ConcurrentGraph() {
+        this(16);
+    }
+
+    /**
+     * Create a new empty graph with room for some vertices before it grows.
+     *
+     * @param expectedVertices number of vertices to size the graph for, >= 0
+     */
+    public ConcurrentGraph(int expectedVertices) {
+        nodes = new ConcurrentHashMap<>(Math.max(16, expectedVertices));
+        int stripeCount = 16;
+        while (stripeCount < Runtime.getRuntime().availableProcessors() * 4) {
+            stripeCount <<= 1;
+        }
+        stripes = new ReentrantReadWriteLock[stripeCount];
+        for (int i = 0; i < stripeCount; i++) {
+            stripes[i] = new ReentrantReadWriteLock();
+        }
+        checkRep();
+    }
+
+    /**
+     * Check the whole representation invariant. Must be called by a thread
+     * holding every stripe lock, or before the graph is shared.
+     * @throws AssertionError if the representation invariant is violated
+     */
+    private void checkRep() {
+        assert Integer.bitCount(stripes.length) == 1 : "Stripe count not a power of two";
+        for (Map.Entry<L, Node<L>> entry : nodes.entrySet()) {
+            for (Map.Entry<L, Integer> edge : entry.getValue().out.entrySet()) {
+                checkEdge(entry.getKey(), edge.getKey());
+            }
+            for (L source : entry.getValue().in.keySet()) {
+                checkEdge(source, entry.getKey());
+            }
+        }
+    }
+
+    /**
+     * Check the representation invariant for the edge between two vertices.
+     * Must be called by a thread holding the locks of both their stripes.
+     */
+    private void checkEdge(L source, L target) {
+        Node<L> s = nodes.get(source);
+        Node<L> t = nodes.get(target);
+        Integer out = s == null ? null : s.out.get(target);
+        Integer in = t == null ? null : t.in.get(source);
+        assert out == null ? in == null : out.equals(in) : "In edges out of sync";
+        assert out == null || out > 0 : "Weight must be positive";
+    }
+
+    /**
+     * Check the representation invariant after the edge between two vertices
+     * changed, as far as the RepCheck level asks for. Must be called by a
+     * thread holding the write locks of both their stripes; a full audit
+     * would need every stripe lock, so only the changed edge is checked.
+     */
+    private void checkRepAfterChange(L source, L target) {
+        if (RepCheck.audit() || RepCheck.incremental()) {
+            checkEdge(source, target);
+        }
+    }
+
+    /**
+     * Check the representation invariant after a vertex was removed, as far
+     * as the RepCheck level asks for. Must be called by a thread holding
+     * every stripe lock.
+     */
+    private void checkRepAfterRemove(L vertex) {
+        if (RepCheck.audit()) {
+            checkRep();
+        } else if (RepCheck.incremental()) {
+            assert !nodes.containsKey(vertex) : "Removed vertex still present";
+        }
+    }
+
+    private int stripeOf(L label) {
+        int hash = label.hashCode();
+        return (hash ^ (hash >>> 16)) & (stripes.length - 1);
+    }
+
+    /**
+     * Write-lock the stripes of two vertices, in increasing stripe index.
+     */
+    private void lockPair(int first, int second) {
+        stripes[Math.min(first, second)].writeLock().lock();
+        if (first != second) {
+            stripes[Math.max(first, second)].writeLock().lock();
+        }
+    }
+
+    private void unlockPair(int first, int second) {
+        if (first != second) {
+            stripes[Math.max(first, second)].writeLock().unlock();
+        }
+        stripes[Math.min(first, second)].writeLock().unlock();
+    }
+
+    private void lockAll(boolean write) {
+        for (ReentrantReadWriteLock stripe : stripes) {
+            (write ? stripe.writeLock() : stripe.readLock()).lock();
+        }
+    }
+
+    private void unlockAll(boolean write) {
+        for (int i = stripes.length - 1; i >= 0; i--) {
+            (write ? stripes[i].writeLock() : stripes[i].readLock()).unlock();
+        }
+    }
+
+    @Override public boolean add(L vertex) {
+        int stripe = stripeOf(vertex);
+        stripes[stripe].writeLock().lock();
+        try {
+            return nodes.putIfAbsent(vertex, new Node<>()) == null;
+        } finally {
+            stripes[stripe].writeLock().unlock();
+        }
+    }
+
+    @Override public int set(L source, L target, int weight) {
+        if (weight < 0) {
+            throw new IllegalArgumentException("weight must be nonnegative: " + weight);
+        }
+        int s = stripeOf(source);
+        int t = stripeOf(target);
+        lockPair(s, t);
+        try {
+            int previousWeight = update(source, target, weight);
+            checkRepAfterChange(source, target);
+            return previousWeight;
+        } finally {
+            unlockPair(s, t);
+        }
+    }
+
+    @Override public int increment(L source, L target, int delta) {
+        int s = stripeOf(source);
+        int t = stripeOf(target);
+        lockPair(s, t);
+        try {
+            Node<L> sourceNode = nodes.get(source);
+            int previousWeight = sourceNode == null ? 0 : sourceNode.out.getOrDefault(target, 0);
+            int weight = Graphs.incrementedWeight(previousWeight, delta);
+            if (weight != previousWeight) {
+                update(source, target, weight);
+                checkRepAfterChange(source, target);
+            }
+            return weight;
+        } finally {
+            unlockPair(s, t);
+        }
+    }
+
+    /**
+     * Set the weight of an edge as Graph.set does. Must be called by a
+     * thread holding the write locks of the stripes of source and target.
+     * @return the previous weight of the edge
+     */
+    private int update(L source, L target, int weight) {
+        if (weight == 0) {
+            Node<L> sourceNode = nodes.get(source);
+            Node<L> targetNode = nodes.get(target);
+            if (sourceNode == null || targetNode == null) {
+                return 0;
+            }
+            targetNode.in.remove(source);
+            Integer previous = sourceNode.out.remove(target);
+            return previous == null ? 0 : previous;
+        }
+        Node<L> sourceNode = nodes.computeIfAbsent(source, label -> new Node<>());
+        Node<L> targetNode = nodes.computeIfAbsent(target, label -> new Node<>());
+        targetNode.in.put(source, weight);
+        Integer previous = sourceNode.out.put(target, weight);
+        return previous == null ? 0 : previous;
+    }
+
+    @Override public boolean remove(L vertex) {
+        lockAll(true);
+        try {
+            Node<L> node = nodes.remove(vertex);
+            if (node == null) {
+                return false;
+            }
+            for (L target : node.out.keySet()) {
+                Node<L> successor = nodes.get(target);
+                if (successor != null) {
+                    successor.in.remove(vertex);
+                }
+            }
+            for (L source : node.in.keySet()) {
+                Node<L> predecessor = nodes.get(source);
+                if (predecessor != null) {
+                    predecessor.out.remove(vertex);
+                }
+            }
+            checkRepAfterRemove(vertex);
+            return true;
+        } finally {
+            unlockAll(true);
+        }
+    }
+
+    @Override public Set<L> vertices() {
+        lockAll(false);
+        try {
+            return new HashSet<>(nodes.keySet());
+        } finally {
+            unlockAll(false);
+        }
+    }
+
+    @Override public Map<L, Integer> sources(L target) {
+        int t = stripeOf(target);
+        stripes[t].readLock().lock();
+        try {
+            Node<L> node = nodes.get(target);
+            return node == null ? new HashMap<>() : new HashMap<>(node.in);
+        } finally {
+            stripes[t].readLock().unlock();
+        }
+    }
+
+    @Override public Map<L, Integer> targets(L source) {
+        int s = stripeOf(source);
+        stripes[s].readLock().lock();
+        try {
+            Node<L> node = nodes.get(source);
+            return node == null ? new HashMap<>() : new HashMap<>(node.out);
+        } finally {
+            stripes[s].readLock().unlock();
+        }
+    }
+
+    /**
+     * Get the weight of an edge without building a map of neighbours.
+     *
+     * @param source label of the source vertex
+     * @param target label of the target vertex
+     * @return the weight of the edge from source to target, or zero if there
+     *         is no such edge
+     */
+    public int weight(L source, L target) {
+        int s = stripeOf(source);
+        stripes[s].readLock().lock();
+        try {
+            Node<L> node = nodes.get(source);
+            return node == null ? 0 : node.out.getOrDefault(target, 0);
+        } finally {
+            stripes[s].readLock().unlock();
+        }
+    }
+
+    @Override
+    public String toString() {
+        lockAll(false);
+        try {
+            StringBuilder sb = new StringBuilder();
+            for (Map.Entry<L, Node<L>> entry : nodes.entrySet()) {
+                if (entry.getValue().out.isEmpty()) {
+                    sb.append(entry.getKey()).append(" -> \n");
+                }
+                for (Map.Entry<L, Integer> edge : entry.getValue().out.entrySet()) {
+                    sb.append(entry.getKey()).append(" -> ").append(edge.getKey())
+                            .append(" : ").append(edge.getValue()).append("\n");
+                }
+            }
+            return sb.toString();
+        } finally {
+            unlockAll(false);
+        }
+    }
+}
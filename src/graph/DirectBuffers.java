@@ -0,0 +1,73 @@
+/* Copyright (c) 2015-2016 MIT 6.005 course staff, all rights reserved.
+ * Redistribution of original or derived work requires permission of course staff.
+ */
+package graph;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+/**
+ * Allocation and explicit release of direct (off-heap) byte buffers.
+ *
+ * <p>The memory behind a direct or mapped buffer is normally released only
+ * when the garbage collector finds the buffer unreachable. {@link #free}
+ * releases it immediately through the JDK's buffer cleaner where the runtime
+ * allows it, and otherwise leaves the buffer to the garbage collector.
+ */
+final class DirectBuffers {
+
+    // sun.misc.Unsafe.invokeCleaner(ByteBuffer) and its receiver, or null if unavailable
+    private static final Method INVOKE_CLEANER;
+    private static final Object UNSAFE;
+
+    static {
+        Method invokeCleaner = null;
+        Object unsafe = null;
+        try {
+            Class<?> unsafeClass = Class.forName("sun.misc.Unsafe");
+            Field theUnsafe = unsafeClass.getDeclaredField("theUnsafe");
+            theUnsafe.setAccessible(true);
+            unsafe = theUnsafe.get(null);
+            invokeCleaner = unsafeClass.getMethod("invokeCleaner", ByteBuffer.class);
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            invokeCleaner = null;
+            unsafe = null;
+        }
+        INVOKE_CLEANER = invokeCleaner;
+        UNSAFE = unsafe;
+    }
+
+    private DirectBuffers() {
+        throw new AssertionError("uninstantiable");
+    }
+
+    /**
+     * Allocate a zero-filled direct buffer in native byte order.
+     *
+     * @param bytes size of the buffer, >= 0
+     * @return a new direct buffer
+     */
+    static ByteBuffer allocate(int bytes) {
+        return ByteBuffer.allocateDirect(bytes).order(ByteOrder.nativeOrder());
+    }
+
+    /**
+     * Release the memory behind a direct or mapped buffer. The buffer, and
+     * every view of it, must not be used afterwards.
+     *
+     * @param buffer a buffer returned by allocate or FileChannel.map, not a
+     *               slice or duplicate; null and heap buffers are ignored
+     */
+    static void free(ByteBuffer buffer) {
+        if (buffer == null || !buffer.isDirect() || INVOKE_CLEANER == null) {
+            return;
+        }
+        try {
+            INVOKE_CLEANER.invoke(UNSAFE, buffer);
+        } catch (ReflectiveOperationException | IllegalArgumentException e) {
+            // Not releasable here; the garbage collector will release it
+        }
+    }
+}
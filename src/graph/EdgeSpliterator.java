@@ -0,0 +1,127 @@
+/* Copyright (c) 2015-2016 MIT 6.005 course staff, all rights reserved.
+ * Redistribution of original or derived work requires permission of course staff.
+ */
+package graph;
+
+import java.util.Spliterator;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * A spliterator over the out edges of an immutable graph stored in
+ * compressed sparse rows, in order of source id and then of position.
+ *
+ * <p>It covers a range of edge positions and splits the range in half, so
+ * the parts are balanced whatever the degrees of the vertices, and their
+ * sizes are exact. Only a split searches for the source of its first edge;
+ * traversal walks the rows.
+ *
+ * @param <L> type of vertex labels, must be immutable
+ */
+final class EdgeSpliterator<L> implements Spliterator<WeightedEdge<L>> {
+
+    /**
+     * Read access to the rows of a graph: the out edges of vertex id are at
+     * positions [outStart(id), outEnd(id)), sorted by target id, and the
+     * rows of ids 0 .. vertexCount() - 1 cover positions [0, edgeCount()) in
+     * order. Likewise the in edges of vertex id are at positions
+     * [inStart(id), inEnd(id)) of the in rows, sorted by source id. The graph
+     * must not change.
+     */
+    interface Rows<L> {
+        int vertexCount();
+        int edgeCount();
+        L label(int id);
+        int outStart(int id);
+        int outEnd(int id);
+        int outTarget(int position);
+        int outWeight(int position);
+        int inStart(int id);
+        int inEnd(int id);
+        int inSource(int position);
+        int inWeight(int position);
+    }
+
+    private final Rows<L> rows;
+    private int position;
+    private final int end;
+    private int source;
+
+    // Abstraction function:
+    //   AF(rows, position, end) = the out edges of rows at positions [position, end), in order
+    // Representation invariant:
+    //   - 0 <= position <= end <= rows.edgeCount()
+    //   - source is a vertex id with rows.outStart(source) <= position; if position < end,
+    //     no row between source and the row of position is skipped
+    // Safety from rep exposure:
+    //   - All fields are private; edges are returned as new immutable WeightedEdges.
+
+    private EdgeSpliterator(Rows<L> rows, int position, int end, int source) {
+        this.rows = rows;
+        this.position = position;
+        this.end = end;
+        this.source = source;
+    }
+
+    /**
+     * @param <L> type of vertex labels, must be immutable
+     * @param rows an immutable graph in compressed sparse rows
+     * @return a sequential stream of every out edge of rows, which can be
+     *         made parallel
+     */
+    static <L> Stream<WeightedEdge<L>> stream(Rows<L> rows) {
+        return StreamSupport.stream(new EdgeSpliterator<>(rows, 0, rows.edgeCount(), 0), false);
+    }
+
+    @Override public boolean tryAdvance(Consumer<? super WeightedEdge<L>> action) {
+        if (position >= end) {
+            return false;
+        }
+        action.accept(edgeAt(position++));
+        return true;
+    }
+
+    @Override public void forEachRemaining(Consumer<? super WeightedEdge<L>> action) {
+        while (position < end) {
+            action.accept(edgeAt(position++));
+        }
+    }
+
+    private WeightedEdge<L> edgeAt(int p) {
+        while (rows.outEnd(source) <= p) {
+            source++;
+        }
+        return new WeightedEdge<>(rows.label(source), rows.label(rows.outTarget(p)), rows.outWeight(p));
+    }
+
+    @Override public Spliterator<WeightedEdge<L>> trySplit() {
+        int mid = (position + end) >>> 1;
+        if (mid <= position) {
+            return null;
+        }
+        Spliterator<WeightedEdge<L>> prefix = new EdgeSpliterator<>(rows, position, mid, source);
+        // the row of mid is the first row from source that ends after it
+        int lo = source;
+        int hi = rows.vertexCount() - 1;
+        while (lo < hi) {
+            int row = (lo + hi) >>> 1;
+            if (rows.outEnd(row) <= mid) {
+                lo = row + 1;
+            } else {
+                hi = row;
+            }
+        }
+        position = mid;
+        source = lo;
+        return prefix;
+    }
+
+    @Override public long estimateSize() {
+        return end - position;
+    }
+
+    @Override public int characteristics() {
+        return ORDERED | DISTINCT | NONNULL | IMMUTABLE | SIZED | SUBSIZED;
+    }
+}
@@ -0,0 +1,555 @@
+/* Copyright (c) 2015-2016 MIT 6.005 course staff, all rights reserved.
+ * Redistribution of original or derived work requires permission of course staff.
+ */
+package graph;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Set;
+import java.util.stream.Stream;
+
+/**
+ * An immutable snapshot of a graph in compressed sparse row (CSR) form.
+ *
+ * <p>Vertices have dense int ids in [0, vertexCount()). The out edges of
+ * vertex v occupy positions [outStart(v), outEnd(v)) of a packed targets
+ * array and a parallel weights array, sorted by target id; the in edges are
+ * stored the same way, sorted by source id. Reading needs no locks and walks
+ * contiguous memory, so a FrozenGraph can be shared freely between threads.
+ *
+ * <p>The mutators of Graph, add, set and remove, throw
+ * UnsupportedOperationException. Use {@link #freeze(Graph)} to take a
+ * snapshot of any graph.
+ *
+ * @param <L> type of vertex labels in this graph, must be immutable
+ */
+public final class FrozenGraph<L> implements Graph<L>, EdgeSpliterator.Rows<L> {
+
+    /**
+     * Returned by {@link #bestTwoHop(int, int)} when there is no two-edge
+     * path between the vertices.
+     */
+    public static final long NO_TWO_HOP = -1;
+
+    private final LabelIndex<L> ids;
+    private final int[] outOffsets;
+    private final int[] outTargets;
+    private final int[] outWeights;
+    private final int[] inOffsets;
+    private final int[] inSources;
+    private final int[] inWeights;
+
+    // Abstraction function:
+    //   AF(ids, out*) = a graph whose vertices are the labels in 'ids', with an edge from
+    //     ids.label(v) to ids.label(outTargets[i]) of weight outWeights[i] for every id v
+    //     and outOffsets[v] <= i < outOffsets[v + 1].
+    //   The in* arrays mirror the out* arrays and add nothing to the abstract value.
+    // Representation invariant:
+    //   - ids holds exactly the ids [0, n), where n = ids.size().
+    //   - outOffsets and inOffsets have length n + 1, start at 0, are nondecreasing and
+    //     end at E = outTargets.length = outWeights.length = inSources.length = inWeights.length.
+    //   - Within each row, target (or source) ids are in [0, n) and strictly increasing.
+    //   - All weights are > 0.
+    //   - For all s, t, w: (s, t, w) is in the out row of s iff (t, s, w) is in the in row of t.
+    // Safety from rep exposure:
+    //   - All fields are private and final; arrays are never returned and 'ids' is never
+    //     mutated after construction.
+    //   - Labels are immutable, and vertices, sources and targets return new collections.
+    // Thread safety argument:
+    //   - The rep is never mutated after the constructor and is reachable only through
+    //     final fields, so every thread sees it fully constructed.
+
+    /**
+     * Create a snapshot from out edges given in CSR form.
+     *
+     * @param ids labels with ids exactly [0, ids.size()), not mutated afterwards
+     * @param outOffsets row offsets, length ids.size() + 1
+     * @param outTargets target ids, sorted within each row, not mutated afterwards
+     * @param outWeights edge weights, all > 0, not mutated afterwards
+     */
+    FrozenGraph(LabelIndex<L> ids, int[] outOffsets, int[] outTargets, int[] outWeights) {
+        int n = ids.size();
+        this.ids = ids;
+        this.outOffsets = outOffsets;
+        this.outTargets = outTargets;
+        this.outWeights = outWeights;
+        // Counting sort of the out edges by target gives the in rows, already sorted
+        // by source because sources are visited in increasing order
+        this.inOffsets = new int[n + 1];
+        this.inSources = new int[outTargets.length];
+        this.inWeights = new int[outTargets.length];
+        for (int target : outTargets) {
+            inOffsets[target + 1]++;
+        }
+        for (int v = 0; v < n; v++) {
+            inOffsets[v + 1] += inOffsets[v];
+        }
+        int[] cursor = Arrays.copyOf(inOffsets, n);
+        for (int s = 0; s < n; s++) {
+            for (int i = outOffsets[s]; i < outOffsets[s + 1]; i++) {
+                int position = cursor[outTargets[i]]++;
+                inSources[position] = s;
+                inWeights[position] = outWeights[i];
+            }
+        }
+        checkRep();
+    }
+
+    /**
+     * Check the representation invariant.
+     * @throws AssertionError if the representation invariant is violated
+     */
+    private void checkRep() {
+        if (!RepCheck.enabled()) {
+            return;
+        }
+        int n = ids.size();
+        assert ids.idLimit() == n : "Ids not dense";
+        checkRows(n, outOffsets, outTargets, outWeights);
+        checkRows(n, inOffsets, inSources, inWeights);
+        for (int s = 0; s < n; s++) {
+            for (int i = outOffsets[s]; i < outOffsets[s + 1]; i++) {
+                assert weight(inOffsets, inSources, inWeights, outTargets[i], s) == outWeights[i]
+                        : "In rows out of sync";
+            }
+        }
+    }
+
+    private static void checkRows(int n, int[] offsets, int[] neighbours, int[] weights) {
+        assert offsets.length == n + 1 : "Wrong number of rows";
+        assert offsets[0] == 0 && offsets[n] == neighbours.length : "Rows do not cover edges";
+        assert neighbours.length == weights.length : "Weights out of sync";
+        for (int v = 0; v < n; v++) {
+            assert offsets[v] <= offsets[v + 1] : "Offsets decrease";
+            for (int i = offsets[v]; i < offsets[v + 1]; i++) {
+                assert 0 <= neighbours[i] && neighbours[i] < n : "Neighbour id out of range";
+                assert i == offsets[v] || neighbours[i - 1] < neighbours[i] : "Row not sorted";
+                assert weights[i] > 0 : "Weight must be positive";
+            }
+        }
+    }
+
+    /**
+     * Take an immutable snapshot of a graph. Later changes to the graph do
+     * not affect the snapshot.
+     *
+     * @param <L> type of vertex labels in the graph, must be immutable
+     * @param graph the graph to snapshot
+     * @return a snapshot with the same vertices and edges as graph; graph
+     *         itself if it is already a FrozenGraph
+     */
+    public static <L> FrozenGraph<L> freeze(Graph<L> graph) {
+        if (graph instanceof FrozenGraph) {
+            return (FrozenGraph<L>) graph;
+        }
+        if (graph instanceof IndexedGraph) {
+            return freeze((IndexedGraph<L>) graph);
+        }
+        if (graph instanceof EdgeSpliterator.Rows) {
+            @SuppressWarnings("unchecked")
+            EdgeSpliterator.Rows<L> rows = (EdgeSpliterator.Rows<L>) graph;
+            return freeze(rows);
+        }
+        Set<L> vertices = graph.vertices();
+        LabelIndex<L> ids = new LabelIndex<>(vertices.size());
+        for (L vertex : vertices) {
+            ids.intern(vertex);
+        }
+        int n = ids.size();
+        int[] offsets = new int[n + 1];
+        long[] edges = new long[Math.max(16, n)];
+        int edgeCount = 0;
+        for (int s = 0; s < n; s++) {
+            Map<L, Integer> targets = graph.targets(ids.label(s));
+            if (edgeCount + targets.size() > edges.length) {
+                edges = Arrays.copyOf(edges, Math.max(edges.length * 2, edgeCount + targets.size()));
+            }
+            for (Entry<L, Integer> edge : targets.entrySet()) {
+                edges[edgeCount++] = pack(ids.idOf(edge.getKey()), edge.getValue());
+            }
+            offsets[s + 1] = edgeCount;
+        }
+        return fromPacked(ids, offsets, edges);
+    }
+
+    /**
+     * Take a snapshot of an IndexedGraph by reading its adjacency arrays
+     * directly, renumbering its ids to be dense.
+     */
+    private static <L> FrozenGraph<L> freeze(IndexedGraph<L> graph) {
+        int[] newId = new int[graph.idLimit()];
+        LabelIndex<L> ids = new LabelIndex<>(graph.idLimit());
+        for (int v = 0; v < graph.idLimit(); v++) {
+            L label = graph.label(v);
+            newId[v] = label == null ? -1 : ids.intern(label);
+        }
+        int n = ids.size();
+        int[] offsets = new int[n + 1];
+        int edgeCount = 0;
+        for (int v = 0; v < graph.idLimit(); v++) {
+            if (newId[v] >= 0) {
+                offsets[newId[v] + 1] = graph.outDegree(v);
+                edgeCount += graph.outDegree(v);
+            }
+        }
+        for (int v = 0; v < n; v++) {
+            offsets[v + 1] += offsets[v];
+        }
+        long[] edges = new long[edgeCount];
+        for (int v = 0; v < graph.idLimit(); v++) {
+            if (newId[v] >= 0) {
+                int position = offsets[newId[v]];
+                for (int i = 0; i < graph.outDegree(v); i++) {
+                    edges[position++] = pack(newId[graph.outTarget(v, i)], graph.outWeight(v, i));
+                }
+            }
+        }
+        return fromPacked(ids, offsets, edges);
+    }
+
+    /**
+     * Take a snapshot of a graph already in CSR form, such as a MappedGraph,
+     * by copying its rows; its ids are already dense and its rows sorted.
+     */
+    private static <L> FrozenGraph<L> freeze(EdgeSpliterator.Rows<L> rows) {
+        int n = rows.vertexCount();
+        int edgeCount = rows.edgeCount();
+        LabelIndex<L> ids = new LabelIndex<>(n);
+        int[] offsets = new int[n + 1];
+        for (int v = 0; v < n; v++) {
+            ids.intern(rows.label(v));
+            offsets[v + 1] = rows.outEnd(v);
+        }
+        int[] targets = new int[edgeCount];
+        int[] weights = new int[edgeCount];
+        for (int i = 0; i < edgeCount; i++) {
+            targets[i] = rows.outTarget(i);
+            weights[i] = rows.outWeight(i);
+        }
+        return new FrozenGraph<>(ids, offsets, targets, weights);
+    }
+
+    /**
+     * Create a snapshot directly from labels and out edges in CSR form,
+     * without hashing any edge. The arrays are copied.
+     *
+     * @param <L> type of vertex labels, must be immutable
+     * @param labels distinct non-null labels; the label at index v gets id v
+     * @param offsets row offsets, length labels.size() + 1, starting at 0,
+     *                nondecreasing, ending at targets.length
+     * @param targets target ids in [0, labels.size()), strictly increasing
+     *                within each row
+     * @param weights edge weights, all > 0, same length as targets
+     * @return a snapshot with an edge from labels.get(v) to
+     *         labels.get(targets[i]) of weight weights[i] for every v and
+     *         offsets[v] <= i < offsets[v + 1]
+     * @throws IllegalArgumentException if the arguments violate these requirements
+     */
+    public static <L> FrozenGraph<L> fromRows(List<L> labels, int[] offsets, int[] targets, int[] weights) {
+        int n = labels.size();
+        LabelIndex<L> ids = new LabelIndex<>(n);
+        for (L label : labels) {
+            int id = ids.size();
+            if (label == null || ids.intern(label) != id) {
+                throw new IllegalArgumentException("labels must be distinct and non-null");
+            }
+        }
+        if (offsets.length != n + 1 || offsets[0] != 0 || offsets[n] != targets.length
+                || targets.length != weights.length) {
+            throw new IllegalArgumentException("rows do not cover the edges");
+        }
+        for (int v = 0; v < n; v++) {
+            if (offsets[v] > offsets[v + 1]) {
+                throw new IllegalArgumentException("offsets decrease at vertex " + v);
+            }
+            for (int i = offsets[v]; i < offsets[v + 1]; i++) {
+                if (targets[i] < 0 || targets[i] >= n || (i > offsets[v] && targets[i - 1] >= targets[i])
+                        || weights[i] <= 0) {
+                    throw new IllegalArgumentException("bad edge at position " + i);
+                }
+            }
+        }
+        return new FrozenGraph<>(ids, offsets.clone(), targets.clone(), weights.clone());
+    }
+
+    /**
+     * Pack an edge's target id and weight into a long that sorts by target id.
+     */
+    static long pack(int target, int weight) {
+        return ((long) target << 32) | (weight & 0xffffffffL);
+    }
+
+    /**
+     * Create a snapshot from rows of packed edges, sorting each row.
+     *
+     * @param ids labels with ids exactly [0, ids.size())
+     * @param offsets row offsets into edges, length ids.size() + 1
+     * @param edges packed (target, weight) pairs; rows may be unsorted and the
+     *              array may be longer than offsets[ids.size()]
+     */
+    static <L> FrozenGraph<L> fromPacked(LabelIndex<L> ids, int[] offsets, long[] edges) {
+        int n = ids.size();
+        int edgeCount = offsets[n];
+        int[] targets = new int[edgeCount];
+        int[] weights = new int[edgeCount];
+        for (int v = 0; v < n; v++) {
+            Arrays.sort(edges, offsets[v], offsets[v + 1]);
+        }
+        for (int i = 0; i < edgeCount; i++) {
+            targets[i] = (int) (edges[i] >>> 32);
+            weights[i] = (int) edges[i];
+        }
+        return new FrozenGraph<>(ids, offsets, targets, weights);
+    }
+
+    /**
+     * @throws UnsupportedOperationException always; a FrozenGraph is immutable
+     */
+    @Override public boolean add(L vertex) {
+        throw new UnsupportedOperationException("FrozenGraph is immutable");
+    }
+
+    /**
+     * @throws UnsupportedOperationException always; a FrozenGraph is immutable
+     */
+    @Override public int set(L source, L target, int weight) {
+        throw new UnsupportedOperationException("FrozenGraph is immutable");
+    }
+
+    /**
+     * @throws UnsupportedOperationException always; a FrozenGraph is immutable
+     */
+    @Override public boolean remove(L vertex) {
+        throw new UnsupportedOperationException("FrozenGraph is immutable");
+    }
+
+    @Override public Set<L> vertices() {
+        Set<L> vertices = new HashSet<>();
+        for (int v = 0; v < vertexCount(); v++) {
+            vertices.add(ids.label(v));
+        }
+        return vertices;
+    }
+
+    @Override public Map<L, Integer> sources(L target) {
+        Map<L, Integer> sources = new HashMap<>();
+        int t = ids.idOf(target);
+        if (t >= 0) {
+            for (int i = inOffsets[t]; i < inOffsets[t + 1]; i++) {
+                sources.put(ids.label(inSources[i]), inWeights[i]);
+            }
+        }
+        return sources;
+    }
+
+    @Override public Map<L, Integer> targets(L source) {
+        Map<L, Integer> targets = new HashMap<>();
+        int s = ids.idOf(source);
+        if (s >= 0) {
+            for (int i = outOffsets[s]; i < outOffsets[s + 1]; i++) {
+                targets.put(ids.label(outTargets[i]), outWeights[i]);
+            }
+        }
+        return targets;
+    }
+
+    /**
+     * Get every edge of this graph as a stream, in order of source id and
+     * then of target id. The stream's spliterator splits the edges into
+     * halves of exactly known size, so a parallel stream spreads them evenly
+     * across threads.
+     *
+     * @return a sequential stream of the edges of this graph
+     */
+    public Stream<WeightedEdge<L>> edges() {
+        return EdgeSpliterator.stream(this);
+    }
+
+    /**
+     * @return the number of vertices in this graph
+     */
+    public int vertexCount() {
+        return ids.size();
+    }
+
+    /**
+     * @return the number of edges in this graph
+     */
+    public int edgeCount() {
+        return outTargets.length;
+    }
+
+    /**
+     * @param label a label
+     * @return the id of the vertex with that label, or -1 if there is none
+     */
+    public int idOf(L label) {
+        return ids.idOf(label);
+    }
+
+    /**
+     * @param id a vertex id in [0, vertexCount())
+     * @return the label of the vertex with that id
+     */
+    public L label(int id) {
+        return ids.label(id);
+    }
+
+    /**
+     * @param id a vertex id in [0, vertexCount())
+     * @return the position of the first out edge of that vertex
+     */
+    public int outStart(int id) {
+        return outOffsets[id];
+    }
+
+    /**
+     * @param id a vertex id in [0, vertexCount())
+     * @return one past the position of the last out edge of that vertex
+     */
+    public int outEnd(int id) {
+        return outOffsets[id + 1];
+    }
+
+    /**
+     * @param position an out edge position in [0, edgeCount())
+     * @return the id of the target of the out edge at that position
+     */
+    public int outTarget(int position) {
+        return outTargets[position];
+    }
+
+    /**
+     * @param position an out edge position in [0, edgeCount())
+     * @return the weight of the out edge at that position
+     */
+    public int outWeight(int position) {
+        return outWeights[position];
+    }
+
+    /**
+     * @param id a vertex id in [0, vertexCount())
+     * @return the position of the first in edge of that vertex
+     */
+    public int inStart(int id) {
+        return inOffsets[id];
+    }
+
+    /**
+     * @param id a vertex id in [0, vertexCount())
+     * @return one past the position of the last in edge of that vertex
+     */
+    public int inEnd(int id) {
+        return inOffsets[id + 1];
+    }
+
+    /**
+     * @param position an in edge position in [0, edgeCount())
+     * @return the id of the source of the in edge at that position
+     */
+    public int inSource(int position) {
+        return inSources[position];
+    }
+
+    /**
+     * @param position an in edge position in [0, edgeCount())
+     * @return the weight of the in edge at that position
+     */
+    public int inWeight(int position) {
+        return inWeights[position];
+    }
+
+    /**
+     * Get the weight of an edge by binary search of its source's out edges.
+     *
+     * @param source a vertex id in [0, vertexCount())
+     * @param target a vertex id in [0, vertexCount())
+     * @return the weight of the edge from source to target, or zero if there
+     *         is no such edge
+     */
+    public int weight(int source, int target) {
+        return weight(outOffsets, outTargets, outWeights, source, target);
+    }
+
+    /**
+     * Get the weight of an edge without building a map of neighbours.
+     *
+     * @param source label of the source vertex
+     * @param target label of the target vertex
+     * @return the weight of the edge from source to target, or zero if there
+     *         is no such edge
+     */
+    public int weight(L source, L target) {
+        int s = ids.idOf(source);
+        int t = ids.idOf(target);
+        return s < 0 || t < 0 ? 0 : weight(s, t);
+    }
+
+    /**
+     * Find a best two-edge path between two vertices: the intermediate
+     * vertex b maximizing weight(source, b) + weight(b, target) over all b
+     * with both edges present. Ties go to the smallest id of b.
+     *
+     * <p>The out row of source and the in row of target are both sorted by
+     * id, so the query walks the shorter row and binary searches the longer
+     * one, narrowing the search as it goes; it allocates nothing. The result
+     * is packed into a long: decode it with {@link #twoHopBridge(long)} and
+     * {@link #twoHopWeight(long)}.
+     *
+     * @param source a vertex id in [0, vertexCount())
+     * @param target a vertex id in [0, vertexCount())
+     * @return the best path from source to target through one intermediate
+     *         vertex, or {@link #NO_TWO_HOP} if there is none
+     */
+    public long bestTwoHop(int source, int target) {
+        return TwoHop.best(this, source, target);
+    }
+
+    /**
+     * Pack a two-edge path: the intermediate id in the high 32 bits and the
+     * combined weight, which is less than 2^32, in the low 32 bits.
+     */
+    static long twoHop(int bridge, long weight) {
+        return (long) bridge << Integer.SIZE | weight;
+    }
+
+    /**
+     * @param twoHop a path returned by bestTwoHop, other than NO_TWO_HOP
+     * @return the id of the intermediate vertex of the path
+     */
+    public static int twoHopBridge(long twoHop) {
+        return (int) (twoHop >>> Integer.SIZE);
+    }
+
+    /**
+     * @param twoHop a path returned by bestTwoHop, other than NO_TWO_HOP
+     * @return the sum of the weights of the two edges of the path
+     */
+    public static long twoHopWeight(long twoHop) {
+        return twoHop & 0xFFFFFFFFL;
+    }
+
+    private static int weight(int[] offsets, int[] neighbours, int[] weights, int v, int neighbour) {
+        int i = Arrays.binarySearch(neighbours, offsets[v], offsets[v + 1], neighbour);
+        return i < 0 ? 0 : weights[i];
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder();
+        for (int v = 0; v < vertexCount(); v++) {
+            if (outOffsets[v] == outOffsets[v + 1]) {
+                sb.append(ids.label(v)).append(" -> \n");
+            }
+            for (int i = outOffsets[v]; i < outOffsets[v + 1]; i++) {
+                sb.append(ids.label(v)).append(" -> ").append(ids.label(outTargets[i]))
+                        .append(" : ").append(outWeights[i]).append("\n");
+            }
+        }
+        return sb.toString();
+    }
+}
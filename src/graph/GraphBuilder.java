@@ -0,0 +1,348 @@
+/* Copyright (c) 2015-2016 MIT 6.005 course staff, all rights reserved.
+ * Redistribution of original or derived work requires permission of course staff.
+ */
+package graph;
+
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.stream.Stream;
+
+/**
+ * Collects vertices and weighted edges in bulk and turns them into a graph in
+ * one pass.
+ *
+ * <p>Edges added more than once are combined by summing their weights, so a
+ * builder can count occurrences, e.g. of word bigrams, without a lookup in a
+ * graph per occurrence. Each added edge costs one hash probe on int ids;
+ * building costs time linear in the number of distinct vertices and edges.
+ *
+ * <p>A builder is not safe for use by several threads at once.
+ *
+ * @param <L> type of vertex labels, must be immutable
+ */
+public final class GraphBuilder<L> {
+
+    private static final long EMPTY = -1L;
+
+    private LabelIndex<L> ids;
+    // Open-addressed table from packed (source id, target id) keys to summed weights
+    private long[] keys;
+    private int[] weights;
+    private int edgeCount;
+
+    // Abstraction function:
+    //   AF(ids, keys, weights) = the vertices ids.label(0), ..., ids.label(ids.size() - 1)
+    //     and, for every slot i with keys[i] != EMPTY, the edge from
+    //     ids.label(keys[i] >>> 32) to ids.label((int) keys[i]) with weight weights[i]
+    // Representation invariant:
+    //   - ids holds exactly the ids [0, ids.size()); labels are never removed.
+    //   - keys.length == weights.length is a power of two greater than 2 * edgeCount.
+    //   - edgeCount slots are not EMPTY; their keys are distinct, both packed ids are in
+    //     [0, ids.size()), their weights are > 0, and each is reachable by linear probing
+    //     from hash(key) without crossing an EMPTY slot.
+    // Safety from rep exposure:
+    //   - All fields are private; ids is handed to a FrozenGraph only by freeze, which
+    //     replaces it with a new index, and labels are immutable.
+
+    /**
+     * Create an empty builder.
+     */
+    public GraphBuilder() {
+        this(16, 16);
+    }
+
+    /**
+     * Create an empty builder with room for some vertices and distinct edges
+     * before it grows.
+     *
+     * @param expectedVertices number of vertices to size the builder for, >= 0
+     * @param expectedEdges number of distinct edges to size the builder for, >= 0
+     * @throws IllegalArgumentException if either size is negative, or too
+     *                                  large for the builder to hold
+     */
+    public GraphBuilder(int expectedVertices, int expectedEdges) {
+        int capacity = LabelIndex.tableCapacity(expectedEdges);
+        ids = new LabelIndex<>(expectedVertices);
+        keys = new long[capacity];
+        Arrays.fill(keys, EMPTY);
+        weights = new int[capacity];
+        checkRep();
+    }
+
+    /**
+     * Check the whole representation invariant, as far as the RepCheck level
+     * asks for.
+     * @throws AssertionError if the representation invariant is violated
+     */
+    private void checkRep() {
+        if (!RepCheck.audit()) {
+            return;
+        }
+        ids.checkRep();
+        int n = ids.size();
+        assert ids.idLimit() == n : "Ids not dense";
+        assert keys.length == weights.length && Integer.bitCount(keys.length) == 1 : "Bad table size";
+        assert edgeCount * 2 < keys.length : "Table overfull";
+        int live = 0;
+        for (int i = 0; i < keys.length; i++) {
+            if (keys[i] != EMPTY) {
+                live++;
+                int source = (int) (keys[i] >>> 32);
+                int target = (int) keys[i];
+                assert 0 <= source && source < n && 0 <= target && target < n : "Id out of range";
+                assert weights[i] > 0 : "Weight must be positive";
+                assert slotOf(keys[i]) == i : "Key not reachable from its home slot";
+            }
+        }
+        assert live == edgeCount : "Edge count out of sync";
+    }
+
+    private static int hash(long key) {
+        long h = key * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32));
+    }
+
+    /**
+     * @return the slot holding key, or the empty slot where it would go
+     */
+    private int slotOf(long key) {
+        int mask = keys.length - 1;
+        int i = hash(key) & mask;
+        while (keys[i] != EMPTY && keys[i] != key) {
+            i = (i + 1) & mask;
+        }
+        return i;
+    }
+
+    private void rehash(int capacity) {
+        long[] oldKeys = keys;
+        int[] oldWeights = weights;
+        keys = new long[capacity];
+        Arrays.fill(keys, EMPTY);
+        weights = new int[capacity];
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldKeys[i] != EMPTY) {
+                int slot = slotOf(oldKeys[i]);
+                keys[slot] = oldKeys[i];
+                weights[slot] = oldWeights[i];
+            }
+        }
+    }
+
+    /**
+     * @return the number of distinct vertices added so far
+     */
+    public int vertexCount() {
+        return ids.size();
+    }
+
+    /**
+     * @return the number of distinct edges added so far
+     */
+    public int edgeCount() {
+        return edgeCount;
+    }
+
+    /**
+     * Add a vertex. Adding a vertex more than once has no further effect.
+     *
+     * @param vertex label of the vertex, not null
+     * @return this builder
+     */
+    public GraphBuilder<L> addVertex(L vertex) {
+        if (vertex == null) {
+            throw new NullPointerException("vertex must not be null");
+        }
+        ids.intern(vertex);
+        return this;
+    }
+
+    /**
+     * Add vertices.
+     *
+     * @param vertices labels of the vertices, not null
+     * @return this builder
+     */
+    public GraphBuilder<L> addVertices(Iterable<? extends L> vertices) {
+        for (L vertex : vertices) {
+            addVertex(vertex);
+        }
+        return this;
+    }
+
+    /**
+     * Add a weighted edge, adding its vertices if they are new. If an edge
+     * from source to target was already added, weight is added to its weight.
+     *
+     * @param source label of the source vertex, not null
+     * @param target label of the target vertex, not null
+     * @param weight weight to add, > 0
+     * @return this builder
+     * @throws IllegalArgumentException if weight <= 0
+     * @throws ArithmeticException if the summed weight overflows an int
+     * @throws IllegalStateException if the edge is new and the builder already
+     *                               holds as many distinct edges, or the vertex
+     *                               is new and it holds as many vertices, as it can
+     */
+    public GraphBuilder<L> addEdge(L source, L target, int weight) {
+        if (source == null || target == null) {
+            throw new NullPointerException("edge labels must not be null");
+        }
+        if (weight <= 0) {
+            throw new IllegalArgumentException("weight must be positive: " + weight);
+        }
+        addEdgeById(ids.intern(source), ids.intern(target), weight);
+        return this;
+    }
+
+    private void addEdgeById(int source, int target, int weight) {
+        long key = ((long) source << 32) | target;
+        int slot = slotOf(key);
+        if (keys[slot] == key) {
+            weights[slot] = Math.addExact(weights[slot], weight);
+            return;
+        }
+        if ((edgeCount + 1) * 2L >= keys.length) {
+            // Grow before adding, so that a full table is left unchanged
+            rehash(LabelIndex.grownCapacity(keys.length));
+            slot = slotOf(key);
+        }
+        keys[slot] = key;
+        weights[slot] = weight;
+        edgeCount++;
+    }
+
+    /**
+     * Add weighted edges, as if by addEdge for each in turn.
+     *
+     * @param edges the edges to add
+     * @return this builder
+     * @throws ArithmeticException if a summed weight overflows an int
+     */
+    public GraphBuilder<L> addEdges(Iterable<? extends WeightedEdge<? extends L>> edges) {
+        for (WeightedEdge<? extends L> edge : edges) {
+            addEdgeById(ids.intern(edge.source()), ids.intern(edge.target()), edge.weight());
+        }
+        return this;
+    }
+
+    /**
+     * Add weighted edges, as if by addEdge for each in turn. The stream is
+     * consumed sequentially.
+     *
+     * @param edges the edges to add
+     * @return this builder
+     * @throws ArithmeticException if a summed weight overflows an int
+     */
+    public GraphBuilder<L> addEdges(Stream<? extends WeightedEdge<? extends L>> edges) {
+        Iterator<? extends WeightedEdge<? extends L>> iterator = edges.iterator();
+        while (iterator.hasNext()) {
+            WeightedEdge<? extends L> edge = iterator.next();
+            addEdgeById(ids.intern(edge.source()), ids.intern(edge.target()), edge.weight());
+        }
+        return this;
+    }
+
+    /**
+     * Add every vertex of a sequence, and an edge of weight 1 from each
+     * vertex to the next, as if by addEdge. For a sequence of words this
+     * counts its bigrams.
+     *
+     * @param sequence labels of the vertices, in order, none null
+     * @return this builder
+     * @throws ArithmeticException if a summed weight overflows an int
+     */
+    public GraphBuilder<L> addSequence(Iterable<? extends L> sequence) {
+        int previous = -1;
+        for (L label : sequence) {
+            if (label == null) {
+                throw new NullPointerException("sequence must not contain null");
+            }
+            int current = ids.intern(label);
+            if (previous >= 0) {
+                addEdgeById(previous, current, 1);
+            }
+            previous = current;
+        }
+        return this;
+    }
+
+    /**
+     * Build an immutable snapshot of the vertices and edges added so far, and
+     * reset this builder to empty.
+     *
+     * @return a graph with exactly the added vertices and summed edges
+     */
+    public FrozenGraph<L> freeze() {
+        int n = ids.size();
+        int[] offsets = new int[n + 1];
+        for (long key : keys) {
+            if (key != EMPTY) {
+                offsets[(int) (key >>> 32) + 1]++;
+            }
+        }
+        for (int v = 0; v < n; v++) {
+            offsets[v + 1] += offsets[v];
+        }
+        long[] edges = new long[edgeCount];
+        int[] cursor = Arrays.copyOf(offsets, n);
+        for (int i = 0; i < keys.length; i++) {
+            if (keys[i] != EMPTY) {
+                edges[cursor[(int) (keys[i] >>> 32)]++] = FrozenGraph.pack((int) keys[i], weights[i]);
+            }
+        }
+        FrozenGraph<L> frozen = FrozenGraph.fromPacked(ids, offsets, edges);
+        ids = new LabelIndex<>(16);
+        keys = new long[16];
+        Arrays.fill(keys, EMPTY);
+        weights = new int[16];
+        edgeCount = 0;
+        checkRep();
+        return frozen;
+    }
+
+    /**
+     * Add the vertices and edges collected so far to a graph. The weight of
+     * each collected edge is added to the weight of the graph's edge with
+     * the same endpoints, or zero if it has none. This builder is unchanged.
+     *
+     * @param graph the graph to modify
+     * @return graph
+     * @throws ArithmeticException if a summed weight overflows an int
+     */
+    public Graph<L> applyTo(Graph<L> graph) {
+        FrozenGraph<L> snapshot = copy().freeze();
+        for (int v = 0; v < snapshot.vertexCount(); v++) {
+            graph.add(snapshot.label(v));
+        }
+        for (int s = 0; s < snapshot.vertexCount(); s++) {
+            if (snapshot.outStart(s) == snapshot.outEnd(s)) {
+                continue;
+            }
+            L source = snapshot.label(s);
+            Map<L, Integer> existing = graph.targets(source);
+            for (int i = snapshot.outStart(s); i < snapshot.outEnd(s); i++) {
+                L target = snapshot.label(snapshot.outTarget(i));
+                int weight = Math.addExact(existing.getOrDefault(target, 0), snapshot.outWeight(i));
+                graph.set(source, target, weight);
+            }
+        }
+        return graph;
+    }
+
+    /**
+     * @return a builder with the same vertices and edges as this one, sharing
+     *         no mutable state with it
+     */
+    private GraphBuilder<L> copy() {
+        GraphBuilder<L> copy = new GraphBuilder<>(ids.size(), 0);
+        for (int v = 0; v < ids.size(); v++) {
+            copy.ids.intern(ids.label(v));
+        }
+        copy.keys = keys.clone();
+        copy.weights = weights.clone();
+        copy.edgeCount = edgeCount;
+        return copy;
+    }
+}
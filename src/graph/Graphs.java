@@ -0,0 +1,449 @@
+/* Copyright (c) 2015-2016 MIT 6.005 course staff, all rights reserved.
+ * Redistribution of original or derived work requires permission of course staff.
+ */
+package graph;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.locks.StampedLock;
+import java.util.function.Supplier;
+
+/**
+ * Static factories for graphs.
+ *
+ * <p>{@link #empty(Hints)} picks and pre-sizes a Graph implementation from
+ * hints about how the graph will be used; {@link Graph#empty()} is the same
+ * with {@link Hints#defaults()}.
+ */
+public final class Graphs {
+
+    private Graphs() {
+        throw new AssertionError("uninstantiable");
+    }
+
+    /**
+     * The expected mix of operations on a graph.
+     */
+    public enum Workload {
+        /** Observers and mutators in similar proportion. */
+        BALANCED,
+        /** Mostly vertices, sources and targets; few add, set and remove calls. */
+        READ_HEAVY,
+        /** Mostly add, set and remove calls. */
+        WRITE_HEAVY
+    }
+
+    /**
+     * Immutable hints describing how a graph will be used. Hints only affect
+     * performance, and an implementation uses the hints that matter to it;
+     * every graph from {@link Graphs#empty(Hints)} satisfies the Graph spec
+     * whatever the hints say.
+     */
+    public static final class Hints {
+
+        private static final Hints DEFAULTS = new Hints(0, 0, Workload.BALANCED, false);
+
+        /** The largest expected number of vertices; larger graphs cannot be sized for. */
+        public static final int MAX_EXPECTED_VERTICES = LabelIndex.MAX_TABLE_CAPACITY / 2 - 1;
+
+        private final int expectedVertices;
+        private final int expectedEdges;
+        private final Workload workload;
+        private final boolean concurrent;
+
+        // Abstraction function:
+        //   AF(expectedVertices, expectedEdges, workload, concurrent) = hints for a graph
+        //     expected to hold that many vertices and edges under that workload, used by one
+        //     thread at a time unless concurrent
+        // Representation invariant:
+        //   0 <= expectedVertices <= MAX_EXPECTED_VERTICES, expectedEdges >= 0, workload != null
+        // Safety from rep exposure:
+        //   All fields are private, final and immutable.
+
+        private Hints(int expectedVertices, int expectedEdges, Workload workload, boolean concurrent) {
+            this.expectedVertices = expectedVertices;
+            this.expectedEdges = expectedEdges;
+            this.workload = workload;
+            this.concurrent = concurrent;
+            checkRep();
+        }
+
+        private void checkRep() {
+            assert 0 <= expectedVertices && expectedVertices <= MAX_EXPECTED_VERTICES : "Bad vertex hint";
+            assert expectedEdges >= 0 : "Negative edge hint";
+            assert workload != null : "Missing workload";
+        }
+
+        /**
+         * @return hints for a small graph with a balanced workload, used by one
+         *         thread at a time
+         */
+        public static Hints defaults() {
+            return DEFAULTS;
+        }
+
+        /**
+         * @param vertices expected number of vertices, in [0, MAX_EXPECTED_VERTICES]
+         * @return these hints with the expected number of vertices replaced
+         * @throws IllegalArgumentException if vertices < 0 or
+         *                                  vertices > MAX_EXPECTED_VERTICES
+         */
+        public Hints expectedVertices(int vertices) {
+            if (vertices < 0 || vertices > MAX_EXPECTED_VERTICES) {
+                throw new IllegalArgumentException("expected vertices must be in [0, "
+                        + MAX_EXPECTED_VERTICES + "]: " + vertices);
+            }
+            return new Hints(vertices, expectedEdges, workload, concurrent);
+        }
+
+        /**
+         * @param edges expected number of edges, >= 0
+         * @return these hints with the expected number of edges replaced
+         * @throws IllegalArgumentException if edges < 0
+         */
+        public Hints expectedEdges(int edges) {
+            if (edges < 0) {
+                throw new IllegalArgumentException("expected edges must be nonnegative: " + edges);
+            }
+            return new Hints(expectedVertices, edges, workload, concurrent);
+        }
+
+        /**
+         * @param workload expected mix of operations
+         * @return these hints with the workload replaced
+         */
+        public Hints workload(Workload workload) {
+            if (workload == null) {
+                throw new NullPointerException("workload");
+            }
+            return new Hints(expectedVertices, expectedEdges, workload, concurrent);
+        }
+
+        /**
+         * @param concurrent whether several threads will use the graph at once
+         * @return these hints with concurrency replaced
+         */
+        public Hints concurrent(boolean concurrent) {
+            return new Hints(expectedVertices, expectedEdges, workload, concurrent);
+        }
+
+        /**
+         * @return the expected number of vertices
+         */
+        public int expectedVertices() {
+            return expectedVertices;
+        }
+
+        /**
+         * @return the expected number of edges
+         */
+        public int expectedEdges() {
+            return expectedEdges;
+        }
+
+        /**
+         * @return the expected mix of operations
+         */
+        public Workload workload() {
+            return workload;
+        }
+
+        /**
+         * @return whether several threads will use the graph at once
+         */
+        public boolean concurrent() {
+            return concurrent;
+        }
+
+        @Override public boolean equals(Object that) {
+            return that instanceof Hints && sameValue((Hints) that);
+        }
+
+        private boolean sameValue(Hints that) {
+            return expectedVertices == that.expectedVertices && expectedEdges == that.expectedEdges
+                    && workload == that.workload && concurrent == that.concurrent;
+        }
+
+        @Override public int hashCode() {
+            return ((expectedVertices * 31 + expectedEdges) * 31 + workload.hashCode()) * 2 + (concurrent ? 1 : 0);
+        }
+
+        @Override public String toString() {
+            return "Hints(vertices=" + expectedVertices + ", edges=" + expectedEdges
+                    + ", workload=" + workload + ", concurrent=" + concurrent + ")";
+        }
+    }
+
+    /**
+     * Create an empty graph suited to the given hints.
+     *
+     * <p>A graph used by one thread at a time is an {@link IndexedGraph},
+     * sized for the expected vertices and for their average degree. Under a
+     * write-heavy workload its adjacency arrays start at twice the average
+     * degree, so vertices that outgrow the average copy them less often.
+     *
+     * <p>A concurrent graph under a read-heavy workload is such an
+     * IndexedGraph wrapped by {@link #readMostlyGraph(Graph)}; under other
+     * workloads it is a {@link ConcurrentGraph}, so writers to different
+     * vertices do not contend.
+     *
+     * @param <L> type of vertex labels in the graph, must be immutable
+     * @param hints how the graph will be used
+     * @return a new empty weighted directed graph; safe for use by several
+     *         threads at once if hints.concurrent()
+     */
+    public static <L> Graph<L> empty(Hints hints) {
+        if (hints.concurrent() && hints.workload() != Workload.READ_HEAVY) {
+            return new ConcurrentGraph<>(hints.expectedVertices());
+        }
+        long edges = hints.expectedEdges();
+        if (hints.workload() == Workload.WRITE_HEAVY) {
+            edges *= 2;
+        }
+        Graph<L> graph = new IndexedGraph<>(hints.expectedVertices(), (int) Math.min(edges, Integer.MAX_VALUE));
+        return hints.concurrent() ? readMostlyGraph(graph) : graph;
+    }
+
+    /**
+     * Add to the weight of an edge. If the new weight is nonzero, the edge is
+     * added or updated, adding vertices with the given labels if they do not
+     * already exist; if it is zero, the edge is removed if it exists (the
+     * graph is not otherwise modified).
+     *
+     * <p>The graphs in this package update the edge with one lookup, and the
+     * update is atomic if the graph is safe for use by several threads at
+     * once. For other graphs this reads the weight with targets() and writes
+     * it with set(), so it is no more atomic than those two calls.
+     *
+     * @param <L> type of vertex labels in the graph, must be immutable
+     * @param graph the graph to modify
+     * @param source label of the source vertex
+     * @param target label of the target vertex
+     * @param delta amount to add to the current weight, or to zero if there
+     *              is no such edge
+     * @return the new weight of the edge
+     * @throws IllegalArgumentException if the new weight would be negative
+     * @throws ArithmeticException if the new weight overflows an int
+     */
+    public static <L> int increment(Graph<L> graph, L source, L target, int delta) {
+        if (graph instanceof IncrementableGraph) {
+            return ((IncrementableGraph<L>) graph).increment(source, target, delta);
+        }
+        int previousWeight = graph.targets(source).getOrDefault(target, 0);
+        int weight = incrementedWeight(previousWeight, delta);
+        if (weight != previousWeight) {
+            graph.set(source, target, weight);
+        }
+        return weight;
+    }
+
+    /**
+     * @return previousWeight + delta
+     * @throws IllegalArgumentException if the sum is negative
+     * @throws ArithmeticException if the sum overflows an int
+     */
+    static int incrementedWeight(int previousWeight, int delta) {
+        int weight = Math.addExact(previousWeight, delta);
+        if (weight < 0) {
+            throw new IllegalArgumentException("weight would become negative: " + weight);
+        }
+        return weight;
+    }
+
+    /**
+     * Wrap a graph so that several threads can use it at once. All access to
+     * the graph must go through the returned wrapper.
+     *
+     * @param <L> type of vertex labels in the graph, must be immutable
+     * @param graph the graph to wrap, not used directly afterwards
+     * @return a thread-safe graph with the abstract value of graph; the sets
+     *         and maps it returns are snapshots
+     */
+    public static <L> Graph<L> synchronizedGraph(Graph<L> graph) {
+        return new SynchronizedGraph<>(graph);
+    }
+
+    /**
+     * Wrap a graph so that several threads can use it at once, favouring
+     * observers. All access to the graph must go through the returned
+     * wrapper.
+     *
+     * <p>Mutators run one at a time and exclude all other operations, as in
+     * {@link #synchronizedGraph(Graph)}. Observers share a read lock, so
+     * readers do not block each other. When the wrapped graph can safely be
+     * read during a mutation, because it is a {@link FrozenGraph}, a
+     * {@link PersistentGraph}, an {@link MvccGraph} or a
+     * {@link ConcurrentGraph}, observers first run without taking a lock and
+     * keep the result if no mutator ran meanwhile, so they do not contend
+     * with each other on the lock either; if a mutator did run, the observer
+     * is repeated under the read lock.
+     *
+     * @param <L> type of vertex labels in the graph, must be immutable
+     * @param graph the graph to wrap, not used directly afterwards
+     * @return a thread-safe graph with the abstract value of graph; the sets
+     *         and maps it returns are snapshots
+     */
+    public static <L> Graph<L> readMostlyGraph(Graph<L> graph) {
+        return new ReadMostlyGraph<>(graph);
+    }
+
+    /**
+     * A graph that serializes every operation on a wrapped graph.
+     */
+    private static final class SynchronizedGraph<L> implements Graph<L>, IncrementableGraph<L> {
+
+        private final Graph<L> graph;
+
+        // Abstraction function:
+        //   AF(graph) = AF of the wrapped graph
+        // Representation invariant:
+        //   graph != null
+        // Safety from rep exposure:
+        //   graph is private and never returned; observers copy what the wrapped graph returns
+        // Thread safety argument:
+        //   graph is only reached while holding this object's lock
+
+        SynchronizedGraph(Graph<L> graph) {
+            if (graph == null) {
+                throw new NullPointerException("graph");
+            }
+            this.graph = graph;
+        }
+
+        @Override public synchronized boolean add(L vertex) {
+            return graph.add(vertex);
+        }
+
+        @Override public synchronized int set(L source, L target, int weight) {
+            return graph.set(source, target, weight);
+        }
+
+        @Override public synchronized int increment(L source, L target, int delta) {
+            return Graphs.increment(graph, source, target, delta);
+        }
+
+        @Override public synchronized boolean remove(L vertex) {
+            return graph.remove(vertex);
+        }
+
+        @Override public synchronized Set<L> vertices() {
+            return new HashSet<>(graph.vertices());
+        }
+
+        @Override public synchronized Map<L, Integer> sources(L target) {
+            return new HashMap<>(graph.sources(target));
+        }
+
+        @Override public synchronized Map<L, Integer> targets(L source) {
+            return new HashMap<>(graph.targets(source));
+        }
+
+        @Override public synchronized String toString() {
+            return graph.toString();
+        }
+    }
+
+    /**
+     * A graph that excludes mutators from every other operation on a wrapped
+     * graph, and runs observers of a graph that is safe to read during a
+     * mutation optimistically.
+     */
+    private static final class ReadMostlyGraph<L> implements Graph<L>, IncrementableGraph<L> {
+
+        private final Graph<L> graph;
+        private final StampedLock lock = new StampedLock();
+        private final boolean optimistic;
+
+        // Abstraction function:
+        //   AF(graph) = AF of the wrapped graph
+        // Representation invariant:
+        //   graph != null
+        // Safety from rep exposure:
+        //   graph is private and never returned; observers copy what the wrapped graph returns
+        // Thread safety argument:
+        //   - Mutators of graph only run holding the write lock.
+        //   - Observers of graph run holding the read lock, unless optimistic. Only graphs
+        //     that are immutable or thread-safe are optimistic, so their observers may run
+        //     during a mutation; their result is only used if the stamp still validates
+        //     afterwards, i.e. no write lock was taken in between, and validate orders the
+        //     observer's reads after the last unlock of the write lock.
+        //   - Results are copied before validation, so nothing returned refers to graph.
+
+        ReadMostlyGraph(Graph<L> graph) {
+            if (graph == null) {
+                throw new NullPointerException("graph");
+            }
+            this.graph = graph;
+            // ConcurrentGraph is not final, and a subclass could read unsafely
+            this.optimistic = graph instanceof FrozenGraph || graph instanceof PersistentGraph
+                    || graph instanceof MvccGraph || graph.getClass() == ConcurrentGraph.class;
+        }
+
+        /**
+         * @return the result of observer, computed while no mutator ran
+         */
+        private <R> R read(Supplier<R> observer) {
+            if (optimistic) {
+                long stamp = lock.tryOptimisticRead();
+                if (stamp != 0) {
+                    R result = observer.get();
+                    if (lock.validate(stamp)) {
+                        return result;
+                    }
+                }
+            }
+            long stamp = lock.readLock();
+            try {
+                return observer.get();
+            } finally {
+                lock.unlockRead(stamp);
+            }
+        }
+
+        /**
+         * @return the result of mutator, run while no other operation ran
+         */
+        private <R> R write(Supplier<R> mutator) {
+            long stamp = lock.writeLock();
+            try {
+                return mutator.get();
+            } finally {
+                lock.unlockWrite(stamp);
+            }
+        }
+
+        @Override public boolean add(L vertex) {
+            return write(() -> graph.add(vertex));
+        }
+
+        @Override public int set(L source, L target, int weight) {
+            return write(() -> graph.set(source, target, weight));
+        }
+
+        @Override public int increment(L source, L target, int delta) {
+            return write(() -> Graphs.increment(graph, source, target, delta));
+        }
+
+        @Override public boolean remove(L vertex) {
+            return write(() -> graph.remove(vertex));
+        }
+
+        @Override public Set<L> vertices() {
+            return read(() -> new HashSet<>(graph.vertices()));
+        }
+
+        @Override public Map<L, Integer> sources(L target) {
+            return read(() -> new HashMap<>(graph.sources(target)));
+        }
+
+        @Override public Map<L, Integer> targets(L source) {
+            return read(() -> new HashMap<>(graph.targets(source)));
+        }
+
+        @Override public String toString() {
+            return read(graph::toString);
+        }
+    }
+}
@@ -0,0 +1,308 @@
+/* Copyright (c) 2015-2016 MIT 6.005 course staff, all rights reserved.
+ * Redistribution of original or derived work requires permission of course staff.
+ */
+package graph;
+
+import java.util.Arrays;
+import java.util.function.BiConsumer;
+
+/**
+ * An immutable hash map with structural sharing: a hash array mapped trie.
+ * put and remove return a new map that shares every node off the path to the
+ * changed key with this one, so each costs O(log32 n) time and space. Keys
+ * are compared with equals and must be immutable; keys and values are
+ * non-null.
+ *
+ * @param <K> type of keys, must be immutable
+ * @param <V> type of values
+ */
+final class HashTrie<K, V> {
+
+    private static final int BITS = 5;
+    private static final int MASK = (1 << BITS) - 1;
+    private static final Node EMPTY_NODE = new Node(0, new Object[0]);
+    private static final HashTrie<?, ?> EMPTY = new HashTrie<>(EMPTY_NODE, 0);
+
+    private final Node root;
+    private final int size;
+
+    // Abstraction function:
+    //   AF(root, size) = the map holding every key-value pair stored in the trie under root
+    // Representation invariant:
+    //   - A node at depth d (shift = BITS * d) below 32 bits is a bitmap node: its array
+    //     holds bitCount(bitmap) pairs in order of hash fragment (hash >>> shift) & MASK,
+    //     each either (key, value) or (null, child node at shift + BITS), and every key
+    //     below it has the fragments leading to it.
+    //   - A node at shift >= 32 is a collision node: bitmap is 0 and its array holds pairs
+    //     (key, value) whose keys all have the same hash.
+    //   - No node but root is empty; no key occurs twice; size is the number of keys.
+    // Safety from rep exposure:
+    //   - All fields are private and final; nodes are never mutated after construction and
+    //     never returned, and keys are immutable.
+
+    /**
+     * A trie node; see the representation invariant of HashTrie.
+     */
+    private static final class Node {
+        final int bitmap;
+        final Object[] array;
+
+        Node(int bitmap, Object[] array) {
+            this.bitmap = bitmap;
+            this.array = array;
+        }
+    }
+
+    private HashTrie(Node root, int size) {
+        this.root = root;
+        this.size = size;
+    }
+
+    /**
+     * @param <K> type of keys, must be immutable
+     * @param <V> type of values
+     * @return the empty map
+     */
+    @SuppressWarnings("unchecked")
+    static <K, V> HashTrie<K, V> empty() {
+        return (HashTrie<K, V>) EMPTY;
+    }
+
+    /**
+     * Check the whole representation invariant.
+     * @throws AssertionError if the representation invariant is violated
+     */
+    void checkRep() {
+        assert checkNode(root, 0, 0, true) == size : "Size out of sync";
+    }
+
+    /**
+     * @return the number of keys under node
+     */
+    private int checkNode(Node node, int shift, int prefix, boolean isRoot) {
+        assert isRoot || node.array.length > 0 : "Empty node below root";
+        int count = 0;
+        if (shift >= 32) {
+            assert node.bitmap == 0 : "Collision node with bitmap";
+            int hash = hash(node.array[0]);
+            assert hash == prefix : "Collision under the wrong fragments";
+            for (int i = 0; i < node.array.length; i += 2) {
+                assert node.array[i] != null && hash(node.array[i]) == hash : "Collision without collision";
+                count++;
+            }
+            return count;
+        }
+        assert node.array.length == 2 * Integer.bitCount(node.bitmap) : "Bitmap out of sync";
+        int index = 0;
+        for (int fragment = 0; fragment <= MASK; fragment++) {
+            if ((node.bitmap & (1 << fragment)) == 0) {
+                continue;
+            }
+            int childPrefix = prefix | (fragment << shift);
+            Object key = node.array[index];
+            Object value = node.array[index + 1];
+            assert value != null : "Null value";
+            if (key == null) {
+                count += checkNode((Node) value, shift + BITS, childPrefix, false);
+            } else {
+                int bits = shift + BITS >= 32 ? -1 : (1 << (shift + BITS)) - 1;
+                assert (hash(key) & bits) == childPrefix : "Key under the wrong fragment";
+                count++;
+            }
+            index += 2;
+        }
+        return count;
+    }
+
+    private static int hash(Object key) {
+        int h = key.hashCode();
+        return h ^ (h >>> 16);
+    }
+
+    /**
+     * @return the number of keys in this map
+     */
+    int size() {
+        return size;
+    }
+
+    /**
+     * @param key key to look up
+     * @return the value of key, or null if there is none
+     */
+    @SuppressWarnings("unchecked")
+    V get(Object key) {
+        int hash = hash(key);
+        Node node = root;
+        for (int shift = 0; shift < 32; shift += BITS) {
+            int bit = 1 << ((hash >>> shift) & MASK);
+            if ((node.bitmap & bit) == 0) {
+                return null;
+            }
+            int index = 2 * Integer.bitCount(node.bitmap & (bit - 1));
+            Object k = node.array[index];
+            if (k != null) {
+                return k.equals(key) ? (V) node.array[index + 1] : null;
+            }
+            node = (Node) node.array[index + 1];
+        }
+        for (int i = 0; i < node.array.length; i += 2) {
+            if (node.array[i].equals(key)) {
+                return (V) node.array[i + 1];
+            }
+        }
+        return null;
+    }
+
+    /**
+     * @param key key to add or replace, not null
+     * @param value its value, not null
+     * @return a map with this map's pairs and key mapped to value; this map
+     *         if key already maps to an equal value
+     */
+    HashTrie<K, V> put(K key, V value) {
+        boolean[] added = new boolean[1];
+        Node newRoot = put(root, 0, hash(key), key, value, added);
+        return newRoot == root ? this : new HashTrie<>(newRoot, added[0] ? size + 1 : size);
+    }
+
+    private static Node put(Node node, int shift, int hash, Object key, Object value, boolean[] added) {
+        if (shift >= 32) {
+            for (int i = 0; i < node.array.length; i += 2) {
+                if (node.array[i].equals(key)) {
+                    return node.array[i + 1].equals(value) ? node : replaced(node, i + 1, value);
+                }
+            }
+            added[0] = true;
+            Object[] array = Arrays.copyOf(node.array, node.array.length + 2);
+            array[node.array.length] = key;
+            array[node.array.length + 1] = value;
+            return new Node(0, array);
+        }
+        int bit = 1 << ((hash >>> shift) & MASK);
+        int index = 2 * Integer.bitCount(node.bitmap & (bit - 1));
+        if ((node.bitmap & bit) == 0) {
+            added[0] = true;
+            Object[] array = new Object[node.array.length + 2];
+            System.arraycopy(node.array, 0, array, 0, index);
+            array[index] = key;
+            array[index + 1] = value;
+            System.arraycopy(node.array, index, array, index + 2, node.array.length - index);
+            return new Node(node.bitmap | bit, array);
+        }
+        Object k = node.array[index];
+        Object v = node.array[index + 1];
+        if (k == null) {
+            Node child = put((Node) v, shift + BITS, hash, key, value, added);
+            return child == v ? node : replaced(node, index + 1, child);
+        }
+        if (k.equals(key)) {
+            return v.equals(value) ? node : replaced(node, index + 1, value);
+        }
+        added[0] = true;
+        Node child = pair(shift + BITS, k, hash(k), v, key, hash, value);
+        Object[] array = node.array.clone();
+        array[index] = null;
+        array[index + 1] = child;
+        return new Node(node.bitmap, array);
+    }
+
+    /**
+     * @return a node at shift holding exactly two pairs with distinct keys
+     */
+    private static Node pair(int shift, Object key1, int hash1, Object value1,
+            Object key2, int hash2, Object value2) {
+        if (shift >= 32) {
+            return new Node(0, new Object[] { key1, value1, key2, value2 });
+        }
+        int fragment1 = (hash1 >>> shift) & MASK;
+        int fragment2 = (hash2 >>> shift) & MASK;
+        if (fragment1 == fragment2) {
+            Node child = pair(shift + BITS, key1, hash1, value1, key2, hash2, value2);
+            return new Node(1 << fragment1, new Object[] { null, child });
+        }
+        Object[] array = fragment1 < fragment2
+                ? new Object[] { key1, value1, key2, value2 }
+                : new Object[] { key2, value2, key1, value1 };
+        return new Node((1 << fragment1) | (1 << fragment2), array);
+    }
+
+    private static Node replaced(Node node, int index, Object element) {
+        Object[] array = node.array.clone();
+        array[index] = element;
+        return new Node(node.bitmap, array);
+    }
+
+    /**
+     * @param key key to remove
+     * @return a map with this map's pairs except any for key; this map if
+     *         there is none
+     */
+    HashTrie<K, V> remove(Object key) {
+        Node newRoot = remove(root, 0, hash(key), key);
+        if (newRoot == root) {
+            return this;
+        }
+        return size == 1 ? empty() : new HashTrie<>(newRoot == null ? EMPTY_NODE : newRoot, size - 1);
+    }
+
+    /**
+     * @return node without key; node if key is absent; null if that leaves it empty
+     */
+    private static Node remove(Node node, int shift, int hash, Object key) {
+        if (shift >= 32) {
+            for (int i = 0; i < node.array.length; i += 2) {
+                if (node.array[i].equals(key)) {
+                    return node.array.length == 2 ? null : new Node(0, without(node.array, i));
+                }
+            }
+            return node;
+        }
+        int bit = 1 << ((hash >>> shift) & MASK);
+        if ((node.bitmap & bit) == 0) {
+            return node;
+        }
+        int index = 2 * Integer.bitCount(node.bitmap & (bit - 1));
+        Object k = node.array[index];
+        if (k == null) {
+            Node child = (Node) node.array[index + 1];
+            Node newChild = remove(child, shift + BITS, hash, key);
+            if (newChild == child) {
+                return node;
+            }
+            if (newChild != null) {
+                return replaced(node, index + 1, newChild);
+            }
+        } else if (!k.equals(key)) {
+            return node;
+        }
+        return node.bitmap == bit ? null : new Node(node.bitmap & ~bit, without(node.array, index));
+    }
+
+    private static Object[] without(Object[] array, int index) {
+        Object[] result = new Object[array.length - 2];
+        System.arraycopy(array, 0, result, 0, index);
+        System.arraycopy(array, index + 2, result, index, array.length - index - 2);
+        return result;
+    }
+
+    /**
+     * Call action on every key and value in this map, in an unspecified order.
+     *
+     * @param action the action to call
+     */
+    void forEach(BiConsumer<? super K, ? super V> action) {
+        forEach(root, action);
+    }
+
+    @SuppressWarnings("unchecked")
+    private void forEach(Node node, BiConsumer<? super K, ? super V> action) {
+        for (int i = 0; i < node.array.length; i += 2) {
+            if (node.array[i] == null) {
+                forEach((Node) node.array[i + 1], action);
+            } else {
+                action.accept((K) node.array[i], (V) node.array[i + 1]);
+            }
+        }
+    }
+}
@@ -0,0 +1,30 @@
+/* Copyright (c) 2015-2016 MIT 6.005 course staff, all rights reserved.
+ * Redistribution of original or derived work requires permission of course staff.
+ */
+package graph;
+
+/**
+ * A graph that can add to the weight of an edge in place, with one lookup of
+ * the edge. Implemented by the graphs in this package that support it;
+ * callers use {@link Graphs#increment(Graph, Object, Object, int)}.
+ *
+ * @param <L> type of vertex labels in this graph, must be immutable
+ */
+interface IncrementableGraph<L> extends Graph<L> {
+
+    /**
+     * Add to the weight of an edge. If the new weight is nonzero, the edge is
+     * added or updated, adding vertices with the given labels if they do not
+     * already exist; if it is zero, the edge is removed if it exists (the
+     * graph is not otherwise modified).
+     *
+     * @param source label of the source vertex
+     * @param target label of the target vertex
+     * @param delta amount to add to the current weight, or to zero if there
+     *              is no such edge
+     * @return the new weight of the edge
+     * @throws IllegalArgumentException if the new weight would be negative
+     * @throws ArithmeticException if the new weight overflows an int
+     */
+    int increment(L source, L target, int delta);
+}
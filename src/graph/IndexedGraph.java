@@ -0,0 +1,728 @@
+/* Copyright (c) 2015-2016 MIT 6.005 course staff, all rights reserved.
+ * Redistribution of original or derived work requires permission of course staff.
+ */
+package graph;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.Spliterator;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * An implementation of Graph that interns each vertex label as a dense int id
+ * and stores adjacency in primitive arrays indexed by id.
+ *
+ * <p>Each vertex keeps its out edges as parallel int arrays of target ids and
+ * weights, and its in edges as parallel int arrays of source ids and weights.
+ * No weight or id is boxed and there is no per-vertex hash map, so an edge
+ * costs 16 bytes across both directions, plus unused array capacity.
+ * Adjacency lists are unsorted. Short lists are scanned linearly; a list
+ * longer than {@value #INDEX_THRESHOLD} entries also gets an open-addressed
+ * table from neighbour id to index, at most 16 more bytes per entry, so set
+ * and increment take expected constant time however high the degrees, and
+ * remove takes time linear in the degree of the removed vertex.
+ *
+ * @param <L> type of vertex labels in this graph, must be immutable
+ */
+public class IndexedGraph<L> implements Graph<L>, IncrementableGraph<L> {
+
+    private static final int[] NO_EDGES = new int[0];
+    /** Bound on the capacity of the first adjacency array of a vertex. */
+    private static final int MAX_INITIAL_DEGREE = 1024;
+    /** Adjacency lists longer than this are indexed by a hash table. */
+    static final int INDEX_THRESHOLD = 16;
+
+    private final LabelIndex<L> ids;
+    // Indexed by vertex id; entries beyond ids.idLimit(), and of free ids, are empty
+    private int[][] outTargets;
+    private int[][] outWeights;
+    private int[] outDegree;
+    private int[][] inSources;
+    private int[][] inWeights;
+    private int[] inDegree;
+    // Indexed by vertex id; null, or a table from neighbour id to index in the list
+    private int[][] outIndex;
+    private int[][] inIndex;
+    // Capacity of the first adjacency array allocated for a vertex, in each direction
+    private final int initialDegree;
+
+    // Abstraction function:
+    //   AF(ids, out*, in*) = a graph whose vertices are the labels in 'ids', with an edge
+    //     from ids.label(s) to ids.label(outTargets[s][i]) of weight outWeights[s][i]
+    //     for every live id s and 0 <= i < outDegree[s].
+    //   The in* arrays mirror the out* arrays and add nothing to the abstract value.
+    // Representation invariant:
+    //   - The out*, in* and *Degree arrays all have the same length, at least ids.idLimit().
+    //   - 4 <= initialDegree <= MAX_INITIAL_DEGREE
+    //   - For every id v, outDegree[v] <= outTargets[v].length == outWeights[v].length, and
+    //     likewise for in*; an id that is not live has degree 0 in both directions.
+    //   - Every out edge (s, t, w) has live t, w > 0, and no two out edges of s share t.
+    //   - For all s, t, w: (s, t, w) is an out edge of s iff (t, s, w) is an in edge of t.
+    //   - outIndex and inIndex have the same length as the other arrays. outIndex[v] is
+    //     non-null if outDegree[v] > INDEX_THRESHOLD; if non-null, it is a linear-probing
+    //     table of power-of-two length, more than twice outDegree[v], whose non-negative
+    //     entries are exactly 0 .. outDegree[v] - 1, each i in the probe sequence of
+    //     outTargets[v][i] with no -1 before it; and likewise for inIndex.
+    // Safety from rep exposure:
+    //   - All fields are private; arrays are never returned.
+    //   - Labels are immutable, and vertices, sources and targets return new collections.
+
+    /**
+     * Create a new empty graph.
+     */
+    public IndexedGraph() {
+        this(16);
+    }
+
+    /**
+     * Create a new empty graph with room for some vertices before it grows.
+     *
+     * @param expectedVertices number of vertices to size the graph for
+     * @throws IllegalArgumentException if expectedVertices is negative, or
+     *                                  more vertices than the graph can hold
+     */
+    public IndexedGraph(int expectedVertices) {
+        this(expectedVertices, 0);
+    }
+
+    /**
+     * Create a new empty graph with room for some vertices, and for their
+     * edges, before it grows. The first adjacency arrays of each vertex are
+     * sized for the average degree, expectedEdges / expectedVertices.
+     *
+     * @param expectedVertices number of vertices to size the graph for
+     * @param expectedEdges number of edges to size the graph for, >= 0
+     * @throws IllegalArgumentException if expectedVertices or expectedEdges
+     *                                  is negative, or expectedVertices is
+     *                                  more vertices than the graph can hold
+     */
+    public IndexedGraph(int expectedVertices, int expectedEdges) {
+        if (expectedEdges < 0) {
+            throw new IllegalArgumentException("expected edges must be nonnegative: " + expectedEdges);
+        }
+        ids = new LabelIndex<>(expectedVertices);
+        long averageDegree = (expectedEdges + Math.max(16L, expectedVertices) - 1) / Math.max(16L, expectedVertices);
+        initialDegree = (int) Math.max(4, Math.min(MAX_INITIAL_DEGREE, averageDegree));
+        int capacity = Math.max(16, expectedVertices);
+        outTargets = new int[capacity][];
+        outWeights = new int[capacity][];
+        outDegree = new int[capacity];
+        inSources = new int[capacity][];
+        inWeights = new int[capacity][];
+        inDegree = new int[capacity];
+        outIndex = new int[capacity][];
+        inIndex = new int[capacity][];
+        Arrays.fill(outTargets, NO_EDGES);
+        Arrays.fill(outWeights, NO_EDGES);
+        Arrays.fill(inSources, NO_EDGES);
+        Arrays.fill(inWeights, NO_EDGES);
+        checkRep();
+    }
+
+    /**
+     * Check the whole representation invariant.
+     * @throws AssertionError if the representation invariant is violated
+     */
+    private void checkRep() {
+        ids.checkRep();
+        assert outDegree.length >= ids.idLimit() : "Adjacency arrays smaller than id range";
+        assert outIndex.length == outDegree.length && inIndex.length == inDegree.length : "Index arrays out of sync";
+        assert 4 <= initialDegree && initialDegree <= MAX_INITIAL_DEGREE : "Bad initial degree";
+        for (int v = 0; v < ids.idLimit(); v++) {
+            if (ids.label(v) == null) {
+                assert outDegree[v] == 0 && inDegree[v] == 0 : "Free id has edges";
+            }
+            for (int i = 0; i < outDegree[v]; i++) {
+                checkEdge(v, outTargets[v][i]);
+            }
+            for (int i = 0; i < inDegree[v]; i++) {
+                checkEdge(inSources[v][i], v);
+            }
+            checkIndex(outTargets[v], outDegree[v], outIndex[v]);
+            checkIndex(inSources[v], inDegree[v], inIndex[v]);
+        }
+    }
+
+    /**
+     * Check that an adjacency list's index, if any, maps each entry to its position.
+     * @throws AssertionError if the representation invariant is violated
+     */
+    private static void checkIndex(int[] list, int n, int[] index) {
+        assert index != null || n <= INDEX_THRESHOLD : "Long adjacency list not indexed";
+        if (index == null) {
+            return;
+        }
+        assert Integer.bitCount(index.length) == 1 && 2 * n < index.length : "Bad index size";
+        int entries = 0;
+        for (int position : index) {
+            if (position >= 0) {
+                entries++;
+                assert position < n : "Index entry beyond the list";
+            }
+        }
+        assert entries == n : "Index out of sync with list";
+        for (int i = 0; i < n; i++) {
+            assert find(list, n, index, list[i]) == i : "Entry not reachable in index";
+        }
+    }
+
+    /**
+     * Check that the edge between two ids, if any, is stored consistently.
+     * @param s source id
+     * @param t target id
+     * @throws AssertionError if the representation invariant is violated
+     */
+    private void checkEdge(int s, int t) {
+        int out = findOut(s, t);
+        int in = findIn(t, s);
+        assert (out < 0) == (in < 0) : "In edges out of sync";
+        if (out >= 0) {
+            assert ids.label(s) != null && ids.label(t) != null : "Edge endpoint not live";
+            assert outWeights[s][out] > 0 : "Weight must be positive";
+            assert outWeights[s][out] == inWeights[t][in] : "In edge weight out of sync";
+            assert find(outTargets[s], out, t) < 0 : "Duplicate edge";
+        }
+    }
+
+    /**
+     * Check the representation invariant after a change to the edge between
+     * two ids, as far as the RepCheck level asks for.
+     * @param s source id
+     * @param t target id
+     * @throws AssertionError if the representation invariant is violated
+     */
+    private void checkRepAfterChange(int s, int t) {
+        if (RepCheck.audit()) {
+            checkRep();
+        } else if (RepCheck.incremental()) {
+            checkEdge(s, t);
+        }
+    }
+
+    /**
+     * Check the representation invariant after a vertex was removed, as far
+     * as the RepCheck level asks for.
+     * @param vertex the removed vertex
+     * @throws AssertionError if the representation invariant is violated
+     */
+    private void checkRepAfterRemove(L vertex) {
+        if (RepCheck.audit()) {
+            checkRep();
+        } else if (RepCheck.incremental()) {
+            assert ids.idOf(vertex) < 0 : "Removed vertex still has an id";
+        }
+    }
+
+    /**
+     * Find an id in the first n entries of an array.
+     * @return the index of id, or -1 if it is not there
+     */
+    private static int find(int[] array, int n, int id) {
+        for (int i = 0; i < n; i++) {
+            if (array[i] == id) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Find an id in an adjacency list, through its index if it has one.
+     * @param list the list, whose first n entries are distinct ids
+     * @param index null, or the list's index
+     * @return the index of id in the list, or -1 if it is not there
+     */
+    private static int find(int[] list, int n, int[] index, int id) {
+        if (index == null) {
+            return find(list, n, id);
+        }
+        int mask = index.length - 1;
+        for (int slot = home(id, mask); index[slot] >= 0; slot = (slot + 1) & mask) {
+            if (list[index[slot]] == id) {
+                return index[slot];
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * @return the index in s's out edges of the edge to t, or -1 if there is none
+     */
+    private int findOut(int s, int t) {
+        return find(outTargets[s], outDegree[s], outIndex[s], t);
+    }
+
+    /**
+     * @return the index in t's in edges of the edge from s, or -1 if there is none
+     */
+    private int findIn(int t, int s) {
+        return find(inSources[t], inDegree[t], inIndex[t], s);
+    }
+
+    private static int home(int id, int mask) {
+        return (id * 0x9E3779B9) & mask;
+    }
+
+    /**
+     * Index the entry just appended at position n - 1 of an adjacency list,
+     * building or growing the index if the list is now too long for it.
+     * @return the list's index after the append, null if it needs none yet
+     */
+    private static int[] indexAppended(int[] list, int n, int[] index) {
+        if (index == null && n <= INDEX_THRESHOLD) {
+            return null;
+        }
+        if (index == null || 2 * n >= index.length) {
+            index = new int[LabelIndex.tableCapacity(n)];
+            Arrays.fill(index, -1);
+            for (int i = 0; i < n; i++) {
+                insert(index, list[i], i);
+            }
+            return index;
+        }
+        insert(index, list[n - 1], n - 1);
+        return index;
+    }
+
+    private static void insert(int[] index, int id, int position) {
+        int mask = index.length - 1;
+        int slot = home(id, mask);
+        while (index[slot] >= 0) {
+            slot = (slot + 1) & mask;
+        }
+        index[slot] = position;
+    }
+
+    /**
+     * Update an index before the entry at a position of an adjacency list of
+     * length n is removed by moving the last entry into its place.
+     */
+    private static void indexRemoving(int[] list, int n, int[] index, int position) {
+        if (index == null) {
+            return;
+        }
+        int mask = index.length - 1;
+        int hole = slotOf(list, index, position);
+        // Shift later entries of the probe run back, so no entry is cut off from its home
+        for (int slot = (hole + 1) & mask; index[slot] >= 0; slot = (slot + 1) & mask) {
+            int home = home(list[index[slot]], mask);
+            if (((slot - home) & mask) >= ((slot - hole) & mask)) {
+                index[hole] = index[slot];
+                hole = slot;
+            }
+        }
+        index[hole] = -1;
+        int last = n - 1;
+        if (position != last) {
+            index[slotOf(list, index, last)] = position;
+        }
+    }
+
+    /**
+     * @return the slot of an index that holds the given position of the list
+     */
+    private static int slotOf(int[] list, int[] index, int position) {
+        int mask = index.length - 1;
+        int slot = home(list[position], mask);
+        while (index[slot] != position) {
+            slot = (slot + 1) & mask;
+        }
+        return slot;
+    }
+
+    /**
+     * Get the id of a vertex, adding the vertex if it is not in the graph.
+     */
+    private int intern(L vertex) {
+        int id = ids.intern(vertex);
+        if (id == outDegree.length) {
+            int capacity = id * 2;
+            outTargets = Arrays.copyOf(outTargets, capacity);
+            outWeights = Arrays.copyOf(outWeights, capacity);
+            outDegree = Arrays.copyOf(outDegree, capacity);
+            inSources = Arrays.copyOf(inSources, capacity);
+            inWeights = Arrays.copyOf(inWeights, capacity);
+            inDegree = Arrays.copyOf(inDegree, capacity);
+            outIndex = Arrays.copyOf(outIndex, capacity);
+            inIndex = Arrays.copyOf(inIndex, capacity);
+            Arrays.fill(outTargets, id, capacity, NO_EDGES);
+            Arrays.fill(outWeights, id, capacity, NO_EDGES);
+            Arrays.fill(inSources, id, capacity, NO_EDGES);
+            Arrays.fill(inWeights, id, capacity, NO_EDGES);
+        }
+        return id;
+    }
+
+    @Override public boolean add(L vertex) {
+        int before = ids.size();
+        int id = intern(vertex);
+        checkRepAfterChange(id, id);
+        return ids.size() != before;
+    }
+
+    @Override public int set(L source, L target, int weight) {
+        if (weight < 0) {
+            throw new IllegalArgumentException("weight must be nonnegative: " + weight);
+        }
+        int s = ids.idOf(source);
+        int t = ids.idOf(target);
+        int out = s < 0 || t < 0 ? -1 : findOut(s, t);
+        int previousWeight = out < 0 ? 0 : outWeights[s][out];
+        if (out >= 0) {
+            int in = findIn(t, s);
+            if (weight == 0) {
+                removeAt(s, out, t, in);
+            } else {
+                outWeights[s][out] = weight;
+                inWeights[t][in] = weight;
+            }
+        } else if (weight != 0) {
+            // Vertices are only added with an edge; setting a missing edge to zero adds nothing
+            s = intern(source);
+            t = intern(target);
+            appendOut(s, t, weight);
+            appendIn(t, s, weight);
+        } else {
+            return 0;
+        }
+        checkRepAfterChange(s, t);
+        return previousWeight;
+    }
+
+    /**
+     * Add to the weight of an edge with one lookup of the edge, instead of
+     * reading the weight through targets() and writing it with set(). If the
+     * new weight is nonzero, the edge is added or updated, adding vertices
+     * with the given labels if they do not already exist; if it is zero, the
+     * edge is removed if it exists (the graph is not otherwise modified).
+     *
+     * @param source label of the source vertex
+     * @param target label of the target vertex
+     * @param delta amount to add to the current weight, or to zero if there
+     *              is no such edge
+     * @return the new weight of the edge
+     * @throws IllegalArgumentException if the new weight would be negative
+     * @throws ArithmeticException if the new weight overflows an int
+     */
+    @Override public int increment(L source, L target, int delta) {
+        int s = ids.idOf(source);
+        int t = ids.idOf(target);
+        int out = s < 0 || t < 0 ? -1 : findOut(s, t);
+        int previousWeight = out < 0 ? 0 : outWeights[s][out];
+        int weight = Graphs.incrementedWeight(previousWeight, delta);
+        if (weight == previousWeight) {
+            return weight;
+        }
+        if (out >= 0) {
+            int in = findIn(t, s);
+            if (weight == 0) {
+                removeAt(s, out, t, in);
+            } else {
+                outWeights[s][out] = weight;
+                inWeights[t][in] = weight;
+            }
+        } else {
+            s = intern(source);
+            t = intern(target);
+            appendOut(s, t, weight);
+            appendIn(t, s, weight);
+        }
+        checkRepAfterChange(s, t);
+        return weight;
+    }
+
+    private void appendOut(int s, int t, int weight) {
+        int n = outDegree[s];
+        if (n == outTargets[s].length) {
+            int capacity = Math.max(initialDegree, n * 2);
+            outTargets[s] = Arrays.copyOf(outTargets[s], capacity);
+            outWeights[s] = Arrays.copyOf(outWeights[s], capacity);
+        }
+        outTargets[s][n] = t;
+        outWeights[s][n] = weight;
+        outDegree[s] = n + 1;
+        outIndex[s] = indexAppended(outTargets[s], n + 1, outIndex[s]);
+    }
+
+    private void appendIn(int t, int s, int weight) {
+        int n = inDegree[t];
+        if (n == inSources[t].length) {
+            int capacity = Math.max(initialDegree, n * 2);
+            inSources[t] = Arrays.copyOf(inSources[t], capacity);
+            inWeights[t] = Arrays.copyOf(inWeights[t], capacity);
+        }
+        inSources[t][n] = s;
+        inWeights[t][n] = weight;
+        inDegree[t] = n + 1;
+        inIndex[t] = indexAppended(inSources[t], n + 1, inIndex[t]);
+    }
+
+    /**
+     * Remove the edge from s to t, stored at index out of s's out edges and
+     * index in of t's in edges, by moving each list's last entry into its slot.
+     */
+    private void removeAt(int s, int out, int t, int in) {
+        removeOutAt(s, out);
+        removeInAt(t, in);
+    }
+
+    private void removeOutAt(int s, int out) {
+        indexRemoving(outTargets[s], outDegree[s], outIndex[s], out);
+        int last = --outDegree[s];
+        outTargets[s][out] = outTargets[s][last];
+        outWeights[s][out] = outWeights[s][last];
+    }
+
+    private void removeInAt(int t, int in) {
+        indexRemoving(inSources[t], inDegree[t], inIndex[t], in);
+        int last = --inDegree[t];
+        inSources[t][in] = inSources[t][last];
+        inWeights[t][in] = inWeights[t][last];
+    }
+
+    @Override public boolean remove(L vertex) {
+        int v = ids.idOf(vertex);
+        if (v < 0) {
+            return false;
+        }
+        // Remove v from the in edges of its successors and the out edges of its predecessors
+        for (int i = 0; i < outDegree[v]; i++) {
+            int t = outTargets[v][i];
+            if (t != v) {
+                removeInAt(t, findIn(t, v));
+            }
+        }
+        for (int i = 0; i < inDegree[v]; i++) {
+            int s = inSources[v][i];
+            if (s != v) {
+                removeOutAt(s, findOut(s, v));
+            }
+        }
+        outTargets[v] = NO_EDGES;
+        outWeights[v] = NO_EDGES;
+        outDegree[v] = 0;
+        outIndex[v] = null;
+        inSources[v] = NO_EDGES;
+        inWeights[v] = NO_EDGES;
+        inDegree[v] = 0;
+        inIndex[v] = null;
+        ids.remove(vertex);
+        checkRepAfterRemove(vertex);
+        return true;
+    }
+
+    @Override public Set<L> vertices() {
+        Set<L> vertices = new HashSet<>();
+        for (int v = 0; v < ids.idLimit(); v++) {
+            L label = ids.label(v);
+            if (label != null) {
+                vertices.add(label);
+            }
+        }
+        return vertices;
+    }
+
+    @Override public Map<L, Integer> sources(L target) {
+        Map<L, Integer> sources = new HashMap<>();
+        int t = ids.idOf(target);
+        if (t >= 0) {
+            for (int i = 0; i < inDegree[t]; i++) {
+                sources.put(ids.label(inSources[t][i]), inWeights[t][i]);
+            }
+        }
+        return sources;
+    }
+
+    @Override public Map<L, Integer> targets(L source) {
+        Map<L, Integer> targets = new HashMap<>();
+        int s = ids.idOf(source);
+        if (s >= 0) {
+            for (int i = 0; i < outDegree[s]; i++) {
+                targets.put(ids.label(outTargets[s][i]), outWeights[s][i]);
+            }
+        }
+        return targets;
+    }
+
+    /**
+     * Get the weight of an edge without building a map of neighbours.
+     *
+     * @param source label of the source vertex
+     * @param target label of the target vertex
+     * @return the weight of the edge from source to target, or zero if there
+     *         is no such edge
+     */
+    public int weight(L source, L target) {
+        int s = ids.idOf(source);
+        int t = ids.idOf(target);
+        if (s < 0 || t < 0) {
+            return 0;
+        }
+        int out = findOut(s, t);
+        return out < 0 ? 0 : outWeights[s][out];
+    }
+
+    /**
+     * Get every edge of this graph as a stream, grouped by source vertex. The
+     * stream walks the range of vertex ids, skipping ids with no out edges,
+     * and reads the adjacency arrays directly, so no map or per-vertex stream
+     * is built. A parallel stream splits off halves of the ids not yet
+     * started on. The graph must not be mutated while the stream is in use.
+     *
+     * @return a sequential stream of the edges of this graph
+     */
+    public Stream<WeightedEdge<L>> edges() {
+        long edges = 0;
+        for (int s = 0; s < ids.idLimit(); s++) {
+            edges += outDegree[s];
+        }
+        return StreamSupport.stream(new OutEdges(0, ids.idLimit(), edges), false);
+    }
+
+    /**
+     * A spliterator over the out edges of a range of vertex ids, in order of
+     * id and then of position in each adjacency array.
+     */
+    private final class OutEdges implements Spliterator<WeightedEdge<L>> {
+
+        private int source;
+        private int index;
+        private int next;
+        private final int end;
+        private long unstarted;
+
+        // Abstraction function:
+        //   AF(source, index, next, end) = the out edges of source at positions
+        //     [index, outDegree[source]), followed by the out edges of each id in [next, end)
+        // Representation invariant:
+        //   - 0 <= next <= end <= ids.idLimit()
+        //   - source < next, or source == -1 if no id has been started on
+        //   - unstarted is an estimate of the number of out edges of ids in [next, end),
+        //     exact until the first split
+        // Safety from rep exposure:
+        //   - All fields are private; edges are returned as new immutable WeightedEdges.
+
+        OutEdges(int next, int end, long unstarted) {
+            this.source = -1;
+            this.next = next;
+            this.end = end;
+            this.unstarted = unstarted;
+        }
+
+        private int remaining() {
+            return source < 0 ? 0 : outDegree[source] - index;
+        }
+
+        @Override public boolean tryAdvance(Consumer<? super WeightedEdge<L>> action) {
+            while (remaining() == 0) {
+                while (next < end && outDegree[next] == 0) {
+                    next++;
+                }
+                if (next == end) {
+                    return false;
+                }
+                source = next++;
+                index = 0;
+                unstarted = Math.max(0, unstarted - outDegree[source]);
+            }
+            int i = index++;
+            action.accept(new WeightedEdge<>(ids.label(source), ids.label(outTargets[source][i]), outWeights[source][i]));
+            return true;
+        }
+
+        @Override public Spliterator<WeightedEdge<L>> trySplit() {
+            // The prefix takes the rest of the row started on and the first half of the
+            // ids not yet started on
+            int mid = (next + end) >>> 1;
+            if (mid <= next) {
+                return null;
+            }
+            long half = unstarted / 2;
+            OutEdges prefix = new OutEdges(next, mid, half);
+            prefix.source = source;
+            prefix.index = index;
+            source = -1;
+            next = mid;
+            unstarted -= half;
+            return prefix;
+        }
+
+        @Override public long estimateSize() {
+            return remaining() + unstarted;
+        }
+
+        @Override public int characteristics() {
+            return ORDERED | DISTINCT | NONNULL;
+        }
+    }
+
+    /*
+     * Id-level access for other graphs in this package, such as FrozenGraph.
+     * Ids are in [0, idLimit()) but not necessarily dense.
+     */
+
+    /**
+     * @return an upper bound on the ids of vertices in this graph
+     */
+    int idLimit() {
+        return ids.idLimit();
+    }
+
+    /**
+     * @param id an id in [0, idLimit())
+     * @return the label of the vertex with that id, or null if there is none
+     */
+    L label(int id) {
+        return ids.label(id);
+    }
+
+    /**
+     * @param id a vertex id
+     * @return the number of out edges of that vertex
+     */
+    int outDegree(int id) {
+        return outDegree[id];
+    }
+
+    /**
+     * @param id a vertex id
+     * @param i an index in [0, outDegree(id))
+     * @return the id of the target of the i-th out edge of that vertex
+     */
+    int outTarget(int id, int i) {
+        return outTargets[id][i];
+    }
+
+    /**
+     * @param id a vertex id
+     * @param i an index in [0, outDegree(id))
+     * @return the weight of the i-th out edge of that vertex
+     */
+    int outWeight(int id, int i) {
+        return outWeights[id][i];
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder();
+        for (int v = 0; v < ids.idLimit(); v++) {
+            L label = ids.label(v);
+            if (label == null) {
+                continue;
+            }
+            if (outDegree[v] == 0) {
+                sb.append(label).append(" -> \n");
+            }
+            for (int i = 0; i < outDegree[v]; i++) {
+                sb.append(label).append(" -> ").append(ids.label(outTargets[v][i]))
+                        .append(" : ").append(outWeights[v][i]).append("\n");
+            }
+        }
+        return sb.toString();
+    }
+}
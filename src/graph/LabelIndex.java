@@ -0,0 +1,279 @@
+/* Copyright (c) 2015-2016 MIT 6.005 course staff, all rights reserved.
+ * Redistribution of original or derived work requires permission of course staff.
+ */
+package graph;
+
+import java.util.Arrays;
+
+/**
+ * A mutable dictionary assigning each label a dense int id.
+ * Ids are in the range [0, idLimit()); the id of a removed label is reused by
+ * a later label. Labels are compared with equals and must be immutable and
+ * non-null.
+ *
+ * <p>The table is open-addressed with linear probing and stores ids in an
+ * int array, so looking up a label allocates nothing and no Integer is boxed.
+ *
+ * @param <L> type of labels, must be immutable
+ */
+class LabelIndex<L> {
+
+    private static final int EMPTY = -1;
+
+    /**
+     * The largest capacity of an open-addressed table in this package: the
+     * largest power of two that is a legal array length.
+     */
+    static final int MAX_TABLE_CAPACITY = 1 << 30;
+
+    private Object[] labels;
+    private int[] hashes;
+    private int[] slots;
+    private int[] freeIds;
+    private int freeCount;
+    private int idLimit;
+    private int size;
+
+    // Abstraction function:
+    //   AF(labels, size) = the map { labels[i] -> i | 0 <= i < idLimit, labels[i] != null }
+    // Representation invariant:
+    //   - size is the number of non-null labels[0..idLimit); labels[idLimit..] are null.
+    //   - hashes[i] == mix(labels[i].hashCode()) for every live id i.
+    //   - slots.length is a power of two greater than size; each live id is in exactly one
+    //     slot, reachable by linear probing from hashes[id] without crossing an EMPTY slot;
+    //     every other slot is EMPTY.
+    //   - freeIds[0..freeCount) are the distinct ids below idLimit whose label is null.
+    // Safety from rep exposure:
+    //   - All fields are private; arrays are never returned, and labels are immutable.
+
+    /**
+     * Create an empty index.
+     * @param expectedSize number of labels to size the table for
+     * @throws IllegalArgumentException if expectedSize is negative, or too
+     *                                  large for any table to hold
+     */
+    LabelIndex(int expectedSize) {
+        int capacity = tableCapacity(expectedSize);
+        labels = new Object[Math.max(16, expectedSize)];
+        hashes = new int[labels.length];
+        slots = new int[capacity];
+        Arrays.fill(slots, EMPTY);
+        freeIds = new int[16];
+        checkRep();
+    }
+
+    /**
+     * Check the whole representation invariant. The graphs that own an index
+     * call this when they audit their own rep.
+     * @throws AssertionError if the representation invariant is violated
+     */
+    void checkRep() {
+        int live = 0;
+        for (int id = 0; id < idLimit; id++) {
+            if (labels[id] != null) {
+                live++;
+                checkRep(id);
+            }
+        }
+        assert live == size : "Size out of sync with labels";
+        assert size + freeCount == idLimit : "Free ids out of sync with labels";
+        assert size * 2 <= slots.length : "Table overfull";
+    }
+
+    /**
+     * Check the representation invariant for one live id.
+     * @param id the id to check
+     * @throws AssertionError if the representation invariant is violated
+     */
+    private void checkRep(int id) {
+        assert labels[id] != null : "Id not live";
+        assert hashes[id] == mix(labels[id].hashCode()) : "Stale hash";
+        assert idOf(labels[id]) == id : "Label not reachable from its home slot";
+    }
+
+    /**
+     * Check the representation invariant after the label with the given id
+     * was added or removed, if the RepCheck level is INCREMENTAL. Full audits
+     * are left to the owning graph, which decides on one once per mutation.
+     * @param id the id that changed
+     * @throws AssertionError if the representation invariant is violated
+     */
+    private void checkRepAfterChange(int id) {
+        if (RepCheck.incremental()) {
+            assert size + freeCount == idLimit : "Free ids out of sync with labels";
+            if (labels[id] != null) {
+                checkRep(id);
+            }
+        }
+    }
+
+    private static int mix(int hash) {
+        return hash ^ (hash >>> 16);
+    }
+
+    /**
+     * Size an open-addressed table that stays at most half full.
+     * @param entries number of entries the table must hold
+     * @return the smallest power of two that is at least 16 and greater than
+     *         2 * entries
+     * @throws IllegalArgumentException if entries is negative, or the
+     *                                  capacity would exceed MAX_TABLE_CAPACITY
+     */
+    static int tableCapacity(long entries) {
+        if (entries < 0 || entries * 2 >= MAX_TABLE_CAPACITY) {
+            throw new IllegalArgumentException("no table can hold " + entries + " entries");
+        }
+        return Math.max(16, Integer.highestOneBit((int) entries * 2) << 1);
+    }
+
+    /**
+     * Double the capacity of an open-addressed table that has filled up.
+     * @param capacity the current capacity, a power of two
+     * @return 2 * capacity
+     * @throws IllegalStateException if capacity is already MAX_TABLE_CAPACITY
+     */
+    static int grownCapacity(int capacity) {
+        if (capacity >= MAX_TABLE_CAPACITY) {
+            throw new IllegalStateException("table is at its largest capacity, " + capacity);
+        }
+        return capacity * 2;
+    }
+
+    /**
+     * @return the number of labels in the index
+     */
+    int size() {
+        return size;
+    }
+
+    /**
+     * @return an upper bound on the ids of labels in the index
+     */
+    int idLimit() {
+        return idLimit;
+    }
+
+    /**
+     * Get the label with the given id.
+     * @param id an id in [0, idLimit())
+     * @return the label with that id, or null if no label has it
+     */
+    @SuppressWarnings("unchecked")
+    L label(int id) {
+        return (L) labels[id];
+    }
+
+    /**
+     * Get the id of a label.
+     * @param label a label
+     * @return the id of label, or -1 if it is not in the index
+     */
+    int idOf(Object label) {
+        if (label == null) {
+            return -1;
+        }
+        int hash = mix(label.hashCode());
+        int mask = slots.length - 1;
+        for (int slot = hash & mask; ; slot = (slot + 1) & mask) {
+            int id = slots[slot];
+            if (id == EMPTY) {
+                return -1;
+            }
+            if (hashes[id] == hash && labels[id].equals(label)) {
+                return id;
+            }
+        }
+    }
+
+    /**
+     * Get the id of a label, adding the label if it is not in the index.
+     * @param label a non-null label
+     * @return the id of label
+     * @throws IllegalStateException if label is new and the index is at its
+     *                               largest size; the index is unchanged
+     */
+    int intern(L label) {
+        int hash = mix(label.hashCode());
+        int mask = slots.length - 1;
+        int slot = hash & mask;
+        for (; slots[slot] != EMPTY; slot = (slot + 1) & mask) {
+            int id = slots[slot];
+            if (hashes[id] == hash && labels[id].equals(label)) {
+                return id;
+            }
+        }
+        if ((size + 1) * 2L > slots.length) {
+            // Grow before adding, so that a full index is left unchanged
+            rehash(grownCapacity(slots.length));
+            mask = slots.length - 1;
+            slot = hash & mask;
+            while (slots[slot] != EMPTY) {
+                slot = (slot + 1) & mask;
+            }
+        }
+        int id = freeCount > 0 ? freeIds[--freeCount] : idLimit++;
+        if (id == labels.length) {
+            labels = Arrays.copyOf(labels, id * 2);
+            hashes = Arrays.copyOf(hashes, id * 2);
+        }
+        labels[id] = label;
+        hashes[id] = hash;
+        slots[slot] = id;
+        size++;
+        checkRepAfterChange(id);
+        return id;
+    }
+
+    /**
+     * Remove a label from the index, freeing its id for reuse.
+     * @param label a label
+     * @return the id label had, or -1 if it was not in the index
+     */
+    int remove(Object label) {
+        int id = idOf(label);
+        if (id < 0) {
+            return -1;
+        }
+        int mask = slots.length - 1;
+        int hole = hashes[id] & mask;
+        while (slots[hole] != id) {
+            hole = (hole + 1) & mask;
+        }
+        // Backward-shift deletion: move later entries of the probe run into the hole
+        // when their home slot does not lie cyclically in (hole, next]
+        for (int next = (hole + 1) & mask; slots[next] != EMPTY; next = (next + 1) & mask) {
+            int home = hashes[slots[next]] & mask;
+            boolean homeBetween = hole <= next
+                    ? hole < home && home <= next
+                    : hole < home || home <= next;
+            if (!homeBetween) {
+                slots[hole] = slots[next];
+                hole = next;
+            }
+        }
+        slots[hole] = EMPTY;
+        labels[id] = null;
+        if (freeCount == freeIds.length) {
+            freeIds = Arrays.copyOf(freeIds, freeCount * 2);
+        }
+        freeIds[freeCount++] = id;
+        size--;
+        checkRepAfterChange(id);
+        return id;
+    }
+
+    private void rehash(int capacity) {
+        slots = new int[capacity];
+        Arrays.fill(slots, EMPTY);
+        int mask = capacity - 1;
+        for (int id = 0; id < idLimit; id++) {
+            if (labels[id] != null) {
+                int slot = hashes[id] & mask;
+                while (slots[slot] != EMPTY) {
+                    slot = (slot + 1) & mask;
+                }
+                slots[slot] = id;
+            }
+        }
+    }
+}
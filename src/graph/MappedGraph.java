@@ -0,0 +1,655 @@
+/* Copyright (c) 2015-2016 MIT 6.005 course staff, all rights reserved.
+ * Redistribution of original or derived work requires permission of course staff.
+ */
+package graph;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Stream;
+
+/**
+ * A read-only graph served directly from a memory-mapped file.
+ *
+ * <p>{@link #write(FrozenGraph, Path)} stores a snapshot in a compact binary
+ * layout and {@link #open(Path)} maps it back without parsing or copying: the
+ * label table and the out and in CSR arrays are read straight from the
+ * mapped pages, so opening costs the same for any size of graph, and processes
+ * mapping the same file share one copy of it in the page cache.
+ *
+ * <p>File layout, all integers big-endian:
+ * <pre>
+ *   header:       int magic "GRPH", int version, int vertex count n, int edge count E,
+ *                 8 longs giving the file position of each section below
+ *   labelOffsets: n + 1 ints, the byte range of each label in labelBytes
+ *   labelBytes:   the UTF-8 labels, in increasing unsigned byte order
+ *   outOffsets:   n + 1 ints;  outTargets: E ints;  outWeights: E ints
+ *   inOffsets:    n + 1 ints;  inSources:  E ints;  inWeights:  E ints
+ * </pre>
+ * Vertex ids are the ranks of the labels, so a label is found by binary
+ * search, and each CSR row is sorted by neighbour id as in FrozenGraph. Each
+ * section must fit in 2 GiB.
+ *
+ * <p>Opening a file checks the header, the section sizes and the three offset
+ * sections, which takes time linear in the number of vertices but not in the
+ * number of edges. The rest of the contents, the order of the labels and the
+ * neighbour ids and weights of the edges, are trusted as written by write:
+ * they are only checked by a RepCheck audit, so a file corrupted there may
+ * give wrong answers or IndexOutOfBoundsException.
+ *
+ * <p>The mutators of Graph, add, set and remove, throw
+ * UnsupportedOperationException. {@link #close()} unmaps the file; after
+ * that every method except close throws IllegalStateException.
+ */
+public final class MappedGraph implements Graph<String>, EdgeSpliterator.Rows<String>, AutoCloseable {
+
+    static final int MAGIC = 0x47525048; // "GRPH"
+    static final int VERSION = 1;
+    private static final int SECTIONS = 8;
+    private static final int HEADER_BYTES = 4 * Integer.BYTES + SECTIONS * Long.BYTES;
+
+    private final int vertexCount;
+    private final int edgeCount;
+    private final ByteBuffer[] sections;
+    private final ByteBuffer labelOffsets;
+    private final ByteBuffer labelBytes;
+    private final ByteBuffer outOffsets;
+    private final ByteBuffer outTargets;
+    private final ByteBuffer outWeights;
+    private final ByteBuffer inOffsets;
+    private final ByteBuffer inSources;
+    private final ByteBuffer inWeights;
+    private boolean closed;
+
+    // Abstraction function:
+    //   AF(label*, out*) = a graph whose vertices are label(0), ..., label(vertexCount - 1),
+    //     the UTF-8 decodings of the labelBytes ranges given by labelOffsets, with an edge
+    //     from label(v) to label(outTargets[i]) of weight outWeights[i] for every v and
+    //     outOffsets[v] <= i < outOffsets[v + 1] (reading each buffer as an int array).
+    //   The in* sections mirror the out* sections and add nothing to the abstract value.
+    // Representation invariant:
+    //   - sections holds the eight mapped buffers, in file order.
+    //   - labelOffsets has vertexCount + 1 nondecreasing entries from 0 to the length of
+    //     labelBytes, and the labels are strictly increasing in unsigned byte order.
+    //   - outOffsets and inOffsets have vertexCount + 1 nondecreasing entries from 0 to
+    //     edgeCount; the other CSR sections have edgeCount entries.
+    //   - Within each row, neighbour ids are in [0, vertexCount) and strictly increasing,
+    //     and all weights are > 0.
+    //   - For all s, t, w: (s, t, w) is in the out row of s iff (t, s, w) is in the in row of t.
+    // Safety from rep exposure:
+    //   - All fields are private and no buffer is ever returned; the mapping is read-only.
+    //   - vertices, sources and targets return new collections of newly decoded Strings.
+    // Thread safety argument:
+    //   - The buffers are never written and are read only with absolute gets, which do not
+    //     touch buffer positions, so any number of threads may read concurrently.
+    //   - close must not run concurrently with other methods, and is the only method that
+    //     writes 'closed'.
+
+    private MappedGraph(int vertexCount, int edgeCount, ByteBuffer[] sections) {
+        this.vertexCount = vertexCount;
+        this.edgeCount = edgeCount;
+        this.sections = sections;
+        this.labelOffsets = sections[0];
+        this.labelBytes = sections[1];
+        this.outOffsets = sections[2];
+        this.outTargets = sections[3];
+        this.outWeights = sections[4];
+        this.inOffsets = sections[5];
+        this.inSources = sections[6];
+        this.inWeights = sections[7];
+        checkRep();
+    }
+
+    /**
+     * Check the representation invariant. Section sizes are always checked,
+     * and open has already checked the offset sections; the rest of the
+     * contents, which means reading the whole file, only when the RepCheck
+     * level asks for an audit.
+     * @throws AssertionError if the representation invariant is violated
+     */
+    private void checkRep() {
+        int n = vertexCount;
+        assert labelOffsets.capacity() == (n + 1) * Integer.BYTES : "Label offsets wrong size";
+        assert outOffsets.capacity() == (n + 1) * Integer.BYTES : "Out offsets wrong size";
+        assert inOffsets.capacity() == (n + 1) * Integer.BYTES : "In offsets wrong size";
+        for (ByteBuffer section : new ByteBuffer[] { outTargets, outWeights, inSources, inWeights }) {
+            assert section.capacity() == edgeCount * Integer.BYTES : "Edge section wrong size";
+        }
+        if (!RepCheck.audit()) {
+            return;
+        }
+        assert intAt(labelOffsets, 0) == 0 && intAt(labelOffsets, n) == labelBytes.capacity()
+                : "Labels do not cover label bytes";
+        for (int v = 1; v < n; v++) {
+            assert compare(v - 1, labelBytes(v)) < 0 : "Labels not sorted";
+        }
+        checkRows(outOffsets, outTargets, outWeights);
+        checkRows(inOffsets, inSources, inWeights);
+        for (int s = 0; s < n; s++) {
+            for (int i = outStart(s); i < outEnd(s); i++) {
+                assert weight(inOffsets, inSources, inWeights, outTarget(i), s) == outWeight(i)
+                        : "In rows out of sync";
+            }
+        }
+    }
+
+    private void checkRows(ByteBuffer offsets, ByteBuffer neighbours, ByteBuffer weights) {
+        assert intAt(offsets, 0) == 0 && intAt(offsets, vertexCount) == edgeCount : "Rows do not cover edges";
+        for (int v = 0; v < vertexCount; v++) {
+            assert intAt(offsets, v) <= intAt(offsets, v + 1) : "Offsets decrease";
+            for (int i = intAt(offsets, v); i < intAt(offsets, v + 1); i++) {
+                int neighbour = intAt(neighbours, i);
+                assert 0 <= neighbour && neighbour < vertexCount : "Neighbour id out of range";
+                assert i == intAt(offsets, v) || intAt(neighbours, i - 1) < neighbour : "Row not sorted";
+                assert intAt(weights, i) > 0 : "Weight must be positive";
+            }
+        }
+    }
+
+    /**
+     * Write a snapshot to a file in the MappedGraph format, replacing any
+     * existing file.
+     *
+     * @param graph the graph to write
+     * @param file the file to write
+     * @throws IOException if the file cannot be written
+     * @throws IllegalArgumentException if a section of the file would exceed 2 GiB
+     */
+    public static void write(FrozenGraph<String> graph, Path file) throws IOException {
+        FrozenGraph<String> sorted = sortedByLabel(graph);
+        int n = sorted.vertexCount();
+        int edges = sorted.edgeCount();
+        byte[][] labels = new byte[n][];
+        long labelLength = 0;
+        for (int v = 0; v < n; v++) {
+            labels[v] = sorted.label(v).getBytes(StandardCharsets.UTF_8);
+            labelLength += labels[v].length;
+        }
+        long[] sizes = {
+            (n + 1L) * Integer.BYTES, labelLength,
+            (n + 1L) * Integer.BYTES, (long) edges * Integer.BYTES, (long) edges * Integer.BYTES,
+            (n + 1L) * Integer.BYTES, (long) edges * Integer.BYTES, (long) edges * Integer.BYTES,
+        };
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(file), 1 << 16))) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeInt(n);
+            out.writeInt(edges);
+            long position = HEADER_BYTES;
+            for (long size : sizes) {
+                if (size > Integer.MAX_VALUE) {
+                    throw new IllegalArgumentException("graph too large for a MappedGraph file");
+                }
+                out.writeLong(position);
+                position += size;
+            }
+            int labelOffset = 0;
+            out.writeInt(0);
+            for (byte[] label : labels) {
+                labelOffset += label.length;
+                out.writeInt(labelOffset);
+            }
+            for (byte[] label : labels) {
+                out.write(label);
+            }
+            for (int v = 0; v <= n; v++) {
+                out.writeInt(v < n ? sorted.outStart(v) : edges);
+            }
+            for (int i = 0; i < edges; i++) {
+                out.writeInt(sorted.outTarget(i));
+            }
+            for (int i = 0; i < edges; i++) {
+                out.writeInt(sorted.outWeight(i));
+            }
+            for (int v = 0; v <= n; v++) {
+                out.writeInt(v < n ? sorted.inStart(v) : edges);
+            }
+            for (int i = 0; i < edges; i++) {
+                out.writeInt(sorted.inSource(i));
+            }
+            for (int i = 0; i < edges; i++) {
+                out.writeInt(sorted.inWeight(i));
+            }
+        }
+    }
+
+    /**
+     * Renumber a snapshot so that ids follow the unsigned byte order of the
+     * labels' UTF-8 encodings.
+     */
+    private static FrozenGraph<String> sortedByLabel(FrozenGraph<String> graph) {
+        int n = graph.vertexCount();
+        byte[][] labels = new byte[n][];
+        Integer[] order = new Integer[n];
+        for (int v = 0; v < n; v++) {
+            labels[v] = graph.label(v).getBytes(StandardCharsets.UTF_8);
+            order[v] = v;
+        }
+        Arrays.sort(order, (a, b) -> Arrays.compareUnsigned(labels[a], labels[b]));
+        LabelIndex<String> ids = new LabelIndex<>(n);
+        int[] rank = new int[n];
+        for (int v = 0; v < n; v++) {
+            rank[order[v]] = ids.intern(graph.label(order[v]));
+        }
+        int[] offsets = new int[n + 1];
+        long[] edges = new long[graph.edgeCount()];
+        for (int v = 0; v < n; v++) {
+            int position = offsets[v];
+            for (int i = graph.outStart(order[v]); i < graph.outEnd(order[v]); i++) {
+                edges[position++] = FrozenGraph.pack(rank[graph.outTarget(i)], graph.outWeight(i));
+            }
+            offsets[v + 1] = position;
+        }
+        return FrozenGraph.fromPacked(ids, offsets, edges);
+    }
+
+    /**
+     * Open a file written by {@link #write(FrozenGraph, Path)}. The file is
+     * mapped read-only and must not be modified while the graph is open.
+     *
+     * @param file the file to open
+     * @return a read-only graph backed by the file
+     * @throws IOException if the file cannot be read, or its header, section
+     *         sizes or offset sections are not in the MappedGraph format
+     */
+    public static MappedGraph open(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long fileSize = channel.size();
+            if (fileSize < HEADER_BYTES) {
+                throw new IOException("not a MappedGraph file: " + file);
+            }
+            ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES);
+            while (header.hasRemaining() && channel.read(header, header.position()) >= 0) {
+                // keep reading until the header is full
+            }
+            header.flip();
+            if (header.getInt() != MAGIC) {
+                throw new IOException("not a MappedGraph file: " + file);
+            }
+            int version = header.getInt();
+            if (version != VERSION) {
+                throw new IOException("unsupported MappedGraph version " + version + ": " + file);
+            }
+            int n = header.getInt();
+            int edges = header.getInt();
+            long[] positions = new long[SECTIONS + 1];
+            for (int i = 0; i < SECTIONS; i++) {
+                positions[i] = header.getLong();
+            }
+            positions[SECTIONS] = fileSize;
+            long rowsSize = (n + 1L) * Integer.BYTES;
+            long edgesSize = (long) edges * Integer.BYTES;
+            long[] expectedSizes = { rowsSize, -1, rowsSize, edgesSize, edgesSize, rowsSize, edgesSize, edgesSize };
+            ByteBuffer[] sections = new ByteBuffer[SECTIONS];
+            try {
+                for (int i = 0; i < SECTIONS; i++) {
+                    long size = positions[i + 1] - positions[i];
+                    if (n < 0 || edges < 0 || positions[i] < HEADER_BYTES || size < 0 || size > Integer.MAX_VALUE
+                            || (expectedSizes[i] >= 0 && size != expectedSizes[i])) {
+                        throw new IOException("corrupt MappedGraph file: " + file);
+                    }
+                    sections[i] = channel.map(FileChannel.MapMode.READ_ONLY, positions[i], size);
+                }
+                if (!validOffsets(sections[0], n, sections[1].capacity()) || !validOffsets(sections[2], n, edges)
+                        || !validOffsets(sections[5], n, edges)) {
+                    throw new IOException("corrupt MappedGraph file: " + file);
+                }
+                return new MappedGraph(n, edges, sections);
+            } catch (IOException | RuntimeException | AssertionError e) {
+                for (ByteBuffer section : sections) {
+                    DirectBuffers.free(section);
+                }
+                throw e;
+            }
+        }
+    }
+
+    /**
+     * @return true iff the n + 1 ints of an offset section start at 0, never
+     *         decrease and end at end
+     */
+    private static boolean validOffsets(ByteBuffer section, int n, int end) {
+        int previous = intAt(section, 0);
+        if (previous != 0) {
+            return false;
+        }
+        for (int v = 1; v <= n; v++) {
+            int offset = intAt(section, v);
+            if (offset < previous) {
+                return false;
+            }
+            previous = offset;
+        }
+        return previous == end;
+    }
+
+    private static int intAt(ByteBuffer section, int index) {
+        return section.getInt(index * Integer.BYTES);
+    }
+
+    private void ensureOpen() {
+        if (closed) {
+            throw new IllegalStateException("MappedGraph is closed");
+        }
+    }
+
+    private byte[] labelBytes(int id) {
+        int start = intAt(labelOffsets, id);
+        byte[] bytes = new byte[intAt(labelOffsets, id + 1) - start];
+        labelBytes.get(start, bytes);
+        return bytes;
+    }
+
+    /**
+     * Compare the label with the given id to a UTF-8 key in unsigned byte order.
+     */
+    private int compare(int id, byte[] key) {
+        int start = intAt(labelOffsets, id);
+        int length = intAt(labelOffsets, id + 1) - start;
+        for (int i = 0; i < length && i < key.length; i++) {
+            int difference = Byte.compareUnsigned(labelBytes.get(start + i), key[i]);
+            if (difference != 0) {
+                return difference;
+            }
+        }
+        return Integer.compare(length, key.length);
+    }
+
+    /**
+     * @throws UnsupportedOperationException always; a MappedGraph is read-only
+     */
+    @Override public boolean add(String vertex) {
+        throw new UnsupportedOperationException("MappedGraph is read-only");
+    }
+
+    /**
+     * @throws UnsupportedOperationException always; a MappedGraph is read-only
+     */
+    @Override public int set(String source, String target, int weight) {
+        throw new UnsupportedOperationException("MappedGraph is read-only");
+    }
+
+    /**
+     * @throws UnsupportedOperationException always; a MappedGraph is read-only
+     */
+    @Override public boolean remove(String vertex) {
+        throw new UnsupportedOperationException("MappedGraph is read-only");
+    }
+
+    @Override public Set<String> vertices() {
+        ensureOpen();
+        Set<String> vertices = new HashSet<>();
+        for (int v = 0; v < vertexCount; v++) {
+            vertices.add(label(v));
+        }
+        return vertices;
+    }
+
+    @Override public Map<String, Integer> sources(String target) {
+        ensureOpen();
+        Map<String, Integer> sources = new HashMap<>();
+        int t = idOf(target);
+        if (t >= 0) {
+            for (int i = inStart(t); i < inEnd(t); i++) {
+                sources.put(label(inSource(i)), inWeight(i));
+            }
+        }
+        return sources;
+    }
+
+    @Override public Map<String, Integer> targets(String source) {
+        ensureOpen();
+        Map<String, Integer> targets = new HashMap<>();
+        int s = idOf(source);
+        if (s >= 0) {
+            for (int i = outStart(s); i < outEnd(s); i++) {
+                targets.put(label(outTarget(i)), outWeight(i));
+            }
+        }
+        return targets;
+    }
+
+    /**
+     * Get every edge of this graph as a stream, in order of source id and
+     * then of target id. The stream's spliterator splits the edges into
+     * halves of exactly known size, so a parallel stream spreads them evenly
+     * across threads.
+     *
+     * @return a sequential stream of the edges of this graph
+     * @throws IllegalStateException if this graph is closed
+     */
+    public Stream<WeightedEdge<String>> edges() {
+        ensureOpen();
+        return EdgeSpliterator.stream(this);
+    }
+
+    /**
+     * @return the number of vertices in this graph
+     */
+    public int vertexCount() {
+        return vertexCount;
+    }
+
+    /**
+     * @return the number of edges in this graph
+     */
+    public int edgeCount() {
+        return edgeCount;
+    }
+
+    /**
+     * Find a vertex by binary search of the label table.
+     *
+     * @param label a label
+     * @return the id of the vertex with that label, or -1 if there is none
+     */
+    public int idOf(String label) {
+        ensureOpen();
+        byte[] key = label.getBytes(StandardCharsets.UTF_8);
+        int low = 0;
+        int high = vertexCount - 1;
+        while (low <= high) {
+            int middle = (low + high) >>> 1;
+            int comparison = compare(middle, key);
+            if (comparison < 0) {
+                low = middle + 1;
+            } else if (comparison > 0) {
+                high = middle - 1;
+            } else {
+                return middle;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * @param id a vertex id in [0, vertexCount())
+     * @return the label of the vertex with that id
+     */
+    public String label(int id) {
+        ensureOpen();
+        return new String(labelBytes(id), StandardCharsets.UTF_8);
+    }
+
+    /**
+     * @param id a vertex id in [0, vertexCount())
+     * @return the position of the first out edge of that vertex
+     */
+    public int outStart(int id) {
+        ensureOpen();
+        return intAt(outOffsets, id);
+    }
+
+    /**
+     * @param id a vertex id in [0, vertexCount())
+     * @return one past the position of the last out edge of that vertex
+     */
+    public int outEnd(int id) {
+        ensureOpen();
+        return intAt(outOffsets, id + 1);
+    }
+
+    /**
+     * @param position an out edge position in [0, edgeCount())
+     * @return the id of the target of the out edge at that position
+     */
+    public int outTarget(int position) {
+        ensureOpen();
+        return intAt(outTargets, position);
+    }
+
+    /**
+     * @param position an out edge position in [0, edgeCount())
+     * @return the weight of the out edge at that position
+     */
+    public int outWeight(int position) {
+        ensureOpen();
+        return intAt(outWeights, position);
+    }
+
+    /**
+     * @param id a vertex id in [0, vertexCount())
+     * @return the position of the first in edge of that vertex
+     */
+    public int inStart(int id) {
+        ensureOpen();
+        return intAt(inOffsets, id);
+    }
+
+    /**
+     * @param id a vertex id in [0, vertexCount())
+     * @return one past the position of the last in edge of that vertex
+     */
+    public int inEnd(int id) {
+        ensureOpen();
+        return intAt(inOffsets, id + 1);
+    }
+
+    /**
+     * @param position an in edge position in [0, edgeCount())
+     * @return the id of the source of the in edge at that position
+     */
+    public int inSource(int position) {
+        ensureOpen();
+        return intAt(inSources, position);
+    }
+
+    /**
+     * @param position an in edge position in [0, edgeCount())
+     * @return the weight of the in edge at that position
+     */
+    public int inWeight(int position) {
+        ensureOpen();
+        return intAt(inWeights, position);
+    }
+
+    /**
+     * Get the weight of an edge by binary search of its source's out edges.
+     *
+     * @param source a vertex id in [0, vertexCount())
+     * @param target a vertex id in [0, vertexCount())
+     * @return the weight of the edge from source to target, or zero if there
+     *         is no such edge
+     */
+    public int weight(int source, int target) {
+        ensureOpen();
+        return weight(outOffsets, outTargets, outWeights, source, target);
+    }
+
+    /**
+     * Get the weight of an edge without building a map of neighbours.
+     *
+     * @param source label of the source vertex
+     * @param target label of the target vertex
+     * @return the weight of the edge from source to target, or zero if there
+     *         is no such edge
+     */
+    public int weight(String source, String target) {
+        int s = idOf(source);
+        int t = idOf(target);
+        return s < 0 || t < 0 ? 0 : weight(s, t);
+    }
+
+    /**
+     * Find a best two-edge path between two vertices, as
+     * {@link FrozenGraph#bestTwoHop(int, int)} does.
+     *
+     * @param source a vertex id in [0, vertexCount())
+     * @param target a vertex id in [0, vertexCount())
+     * @return the best path from source to target through one intermediate
+     *         vertex, packed as FrozenGraph.bestTwoHop packs it, or
+     *         {@link FrozenGraph#NO_TWO_HOP} if there is none
+     */
+    public long bestTwoHop(int source, int target) {
+        ensureOpen();
+        return TwoHop.best(this, source, target);
+    }
+
+    private static int weight(ByteBuffer offsets, ByteBuffer neighbours, ByteBuffer weights, int v, int neighbour) {
+        int i = search(neighbours, intAt(offsets, v), intAt(offsets, v + 1), neighbour);
+        return i < 0 ? 0 : intAt(weights, i);
+    }
+
+    /**
+     * Binary search a sorted range of an int section, like
+     * {@link java.util.Arrays#binarySearch(int[], int, int, int)}.
+     */
+    private static int search(ByteBuffer neighbours, int from, int to, int neighbour) {
+        int low = from;
+        int high = to - 1;
+        while (low <= high) {
+            int middle = (low + high) >>> 1;
+            int id = intAt(neighbours, middle);
+            if (id < neighbour) {
+                low = middle + 1;
+            } else if (id > neighbour) {
+                high = middle - 1;
+            } else {
+                return middle;
+            }
+        }
+        return -(low + 1);
+    }
+
+    /**
+     * Unmap the file. Every later call of a method other than close throws
+     * IllegalStateException. Closing an already closed graph has no effect.
+     */
+    @Override public void close() {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        for (ByteBuffer section : sections) {
+            DirectBuffers.free(section);
+        }
+    }
+
+    @Override
+    public String toString() {
+        ensureOpen();
+        StringBuilder sb = new StringBuilder();
+        for (int v = 0; v < vertexCount; v++) {
+            String label = label(v);
+            if (outStart(v) == outEnd(v)) {
+                sb.append(label).append(" -> \n");
+            }
+            for (int i = outStart(v); i < outEnd(v); i++) {
+                sb.append(label).append(" -> ").append(label(outTarget(i)))
+                        .append(" : ").append(outWeight(i)).append("\n");
+            }
+        }
+        return sb.toString();
+    }
+}
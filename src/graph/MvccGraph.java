@@ -0,0 +1,631 @@
+/* Copyright (c) 2015-2016 MIT 6.005 course staff, all rights reserved.
+ * Redistribution of original or derived work requires permission of course staff.
+ */
+package graph;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * A thread-safe implementation of Graph that keeps several versions of each
+ * vertex and edge, so that readers see a consistent graph while writers
+ * change it.
+ *
+ * <p>Every mutation commits a new version of the graph, numbered one more
+ * than the last. Each vertex and edge keeps a chain of the values it had in
+ * recent versions, newest first. {@link #snapshot()} pins the latest version
+ * and returns a read-only view of it that stays consistent however long it is
+ * used, e.g. to export a large graph with toString(). Values that no pinned
+ * version can see any more are discarded when a writer next commits, or when
+ * the last snapshot pinning them is closed.
+ *
+ * <p>Mutators are serialized with each other. Readers never take a lock a
+ * writer waits for, so a slow reader costs writers only the memory of the
+ * versions it pins, never time. Observers of this graph itself read the
+ * latest version through a short-lived snapshot.
+ *
+ * @param <L> type of vertex labels in this graph, must be immutable
+ */
+public final class MvccGraph<L> implements Graph<L>, IncrementableGraph<L> {
+
+    private final ConcurrentHashMap<L, Entry<L>> entries = new ConcurrentHashMap<>();
+    // Pinned versions, with the number of open snapshots pinning each
+    private final ConcurrentSkipListMap<Long, Integer> pins = new ConcurrentSkipListMap<>();
+    private final ReentrantLock writeLock = new ReentrantLock();
+    // Chains holding more than their latest value, each once, guarded by writeLock
+    private final Set<Slot<L>> pending = new HashSet<>();
+    // The oldest pinned version the pending chains were last trimmed at, guarded by writeLock
+    private long prunedAt;
+    private volatile long current;
+    private volatile long horizon;
+
+    // Abstraction function:
+    //   AF(entries, current) = the graph at version current, where the graph at version v
+    //     has a vertex for every label whose entry has presence valueAt v equal to 1, and an
+    //     edge from s to t of weight w for every vertex s and t whose out chain in the entry
+    //     of s has valueAt v equal to w > 0
+    //   The in chains mirror the out chains and add nothing to the abstract value.
+    // Representation invariant:
+    //   - horizon <= current, and every pinned version is >= horizon.
+    //   - prunedAt <= horizon. Every chain holding more than one value is in pending, and
+    //     holds no value older than its value at version prunedAt.
+    //   - Every chain's versions strictly decrease from its head, all are <= current, and
+    //     its values are >= 0; presence values are 0 or 1.
+    //   - At every version v >= horizon: for all s, t, w: the out chain of t in the entry
+    //     of s has valueAt v equal to w iff the in chain of s in the entry of t does, and
+    //     w > 0 only if s and t are both present at v.
+    // Safety from rep exposure:
+    //   - All fields are private; entries and chains are never returned, and observers
+    //     return new collections of immutable labels.
+    // Thread safety argument:
+    //   - Mutators hold writeLock, so at most one commits at a time; only they create
+    //     entries, push chain nodes, prune chains and touch pending and prunedAt.
+    //   - A commit to version n only pushes nodes stamped n, then publishes n by writing
+    //     current. A reader at version v < n skips those nodes, and a reader that reads
+    //     current == n also sees every node pushed before it was written.
+    //   - Pruning only unlinks nodes shadowed at every version >= some oldest version, after
+    //     writing horizon = current; snapshot() pins a version and then checks it is still
+    //     >= horizon, so either the pin is seen by the pruning writer or the snapshot retries
+    //     with a later version.
+    //   - Chain heads are published through the ConcurrentHashMaps or volatile fields.
+
+    /**
+     * One value in the history of a vertex's presence or an edge's weight.
+     */
+    private static final class Chain {
+        final long version;
+        final int value;
+        volatile Chain older;
+
+        Chain(long version, int value, Chain older) {
+            this.version = version;
+            this.value = value;
+            this.older = older;
+        }
+    }
+
+    /**
+     * The history of one vertex label: its presence and its edges, keyed by
+     * the label at their other end.
+     */
+    private static final class Entry<L> {
+        volatile Chain presence;
+        final ConcurrentHashMap<L, Chain> out = new ConcurrentHashMap<>();
+        final ConcurrentHashMap<L, Chain> in = new ConcurrentHashMap<>();
+    }
+
+    /**
+     * The location of a chain changed by a commit: the presence of label if
+     * direction is PRESENCE, otherwise the chain of key among label's edges
+     * in that direction.
+     */
+    private static final class Slot<L> {
+        static final int PRESENCE = 0;
+        static final int OUT = 1;
+        static final int IN = 2;
+
+        final L label;
+        final int direction;
+        final L key;
+
+        Slot(L label, int direction, L key) {
+            this.label = label;
+            this.direction = direction;
+            this.key = key;
+        }
+
+        @Override public boolean equals(Object that) {
+            return that instanceof Slot && sameValue((Slot<?>) that);
+        }
+
+        private boolean sameValue(Slot<?> that) {
+            return label.equals(that.label) && direction == that.direction && Objects.equals(key, that.key);
+        }
+
+        @Override public int hashCode() {
+            return (label.hashCode() * 31 + Objects.hashCode(key)) * 3 + direction;
+        }
+    }
+
+    /**
+     * Create a new empty graph.
+     */
+    public MvccGraph() {
+        checkRep();
+    }
+
+    /**
+     * Check the whole representation invariant at the latest version. Must be
+     * called holding writeLock, or before the graph is shared.
+     * @throws AssertionError if the representation invariant is violated
+     */
+    private void checkRep() {
+        assert prunedAt <= horizon && horizon <= current : "Horizon out of order";
+        for (Map.Entry<L, Entry<L>> e : entries.entrySet()) {
+            L label = e.getKey();
+            Entry<L> entry = e.getValue();
+            checkChain(entry.presence, 1, new Slot<>(label, Slot.PRESENCE, null));
+            for (Map.Entry<L, Chain> edge : entry.out.entrySet()) {
+                checkChain(edge.getValue(), Integer.MAX_VALUE, new Slot<>(label, Slot.OUT, edge.getKey()));
+                checkEdge(label, edge.getKey());
+            }
+            for (Map.Entry<L, Chain> edge : entry.in.entrySet()) {
+                checkChain(edge.getValue(), Integer.MAX_VALUE, new Slot<>(label, Slot.IN, edge.getKey()));
+                checkEdge(edge.getKey(), label);
+            }
+        }
+    }
+
+    private void checkChain(Chain head, int maxValue, Slot<L> slot) {
+        long version = current + 1;
+        for (Chain node = head; node != null; node = node.older) {
+            assert node.version < version : "Chain versions not decreasing";
+            assert 0 <= node.value && node.value <= maxValue : "Bad value in chain";
+            assert node.version >= prunedAt || node.older == null : "Chain not trimmed";
+            version = node.version;
+        }
+        assert head == null || head.older == null || pending.contains(slot) : "Chain with history not pending";
+    }
+
+    /**
+     * Check the representation invariant for the edge between two vertices at
+     * the latest version. Must be called holding writeLock.
+     */
+    private void checkEdge(L source, L target) {
+        long v = current;
+        int out = valueAt(edgeChain(source, target, true), v);
+        int in = valueAt(edgeChain(target, source, false), v);
+        assert out == in : "In edges out of sync";
+        assert out == 0 || present(source, v) && present(target, v) : "Edge of a missing vertex";
+    }
+
+    /**
+     * Check the representation invariant after a commit changed the edge
+     * between two vertices, as far as the RepCheck level asks for.
+     */
+    private void checkRepAfterChange(L source, L target) {
+        if (RepCheck.audit()) {
+            checkRep();
+        } else if (RepCheck.incremental()) {
+            checkEdge(source, target);
+        }
+    }
+
+    /**
+     * Check the representation invariant after a commit removed a vertex, as
+     * far as the RepCheck level asks for.
+     */
+    private void checkRepAfterRemove(L vertex) {
+        if (RepCheck.audit()) {
+            checkRep();
+        } else if (RepCheck.incremental()) {
+            assert !present(vertex, current) : "Removed vertex still present";
+        }
+    }
+
+    /**
+     * @return the value of the chain starting at head at version v, or 0 if
+     *         it had none
+     */
+    private static int valueAt(Chain head, long v) {
+        Chain node = head;
+        while (node != null && node.version > v) {
+            node = node.older;
+        }
+        return node == null ? 0 : node.value;
+    }
+
+    private boolean present(L label, long v) {
+        Entry<L> entry = entries.get(label);
+        return entry != null && valueAt(entry.presence, v) != 0;
+    }
+
+    private Chain edgeChain(L label, L other, boolean out) {
+        Entry<L> entry = entries.get(label);
+        return entry == null ? null : (out ? entry.out : entry.in).get(other);
+    }
+
+    /**
+     * Pin the latest version and get a read-only view of the graph at that
+     * version. The view stays the same however this graph changes later,
+     * until it is closed; close it promptly, since the versions it pins are
+     * kept in memory while it is open.
+     *
+     * @return an open snapshot of the latest version
+     */
+    public Snapshot<L> snapshot() {
+        while (true) {
+            long v = current;
+            pins.merge(v, 1, Integer::sum);
+            if (v >= horizon) {
+                return new Snapshot<>(this, v);
+            }
+            unpin(v);
+        }
+    }
+
+    private void unpin(long v) {
+        pins.computeIfPresent(v, (version, count) -> count == 1 ? null : count - 1);
+    }
+
+    /**
+     * Release a snapshot's version, and discard history nobody needs any more
+     * if no writer is busy.
+     */
+    private void release(long v) {
+        unpin(v);
+        if (writeLock.tryLock()) {
+            try {
+                prune(List.of());
+            } finally {
+                writeLock.unlock();
+            }
+        }
+    }
+
+    /**
+     * @return the number of chains holding values older than their latest
+     *         value, for tests in this package
+     */
+    int pendingChains() {
+        writeLock.lock();
+        try {
+            return pending.size();
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    /**
+     * Discard values that no pinned version can see, from the given chains
+     * and, if the oldest pinned version has advanced since they were last
+     * trimmed, from those pending from earlier commits. Must be called
+     * holding writeLock.
+     */
+    private void prune(List<Slot<L>> touched) {
+        long latest = current;
+        horizon = latest;
+        Map.Entry<Long, Integer> first = pins.firstEntry();
+        long oldest = first == null ? latest : Math.min(first.getKey(), latest);
+        if (oldest > prunedAt) {
+            prunedAt = oldest;
+            pending.removeIf(slot -> !prune(slot, oldest));
+        }
+        for (Slot<L> slot : touched) {
+            // A pending chain was already trimmed at oldest, and the commit only pushed a
+            // newer value onto it; any other chain held one value before the commit
+            if (!pending.contains(slot) && prune(slot, oldest)) {
+                pending.add(slot);
+            }
+        }
+    }
+
+    /**
+     * Discard the values of a chain that no version >= oldest can see, and
+     * the chain itself, and then its entry, if they are empty at every such
+     * version. Must be called holding writeLock.
+     * @return whether the chain still holds values for versions older than
+     *         its latest value
+     */
+    private boolean prune(Slot<L> slot, long oldest) {
+        Entry<L> entry = entries.get(slot.label);
+        if (entry == null) {
+            return false;
+        }
+        Map<L, Chain> edges = slot.direction == Slot.OUT ? entry.out : entry.in;
+        Chain head = slot.direction == Slot.PRESENCE ? entry.presence : edges.get(slot.key);
+        if (head == null) {
+            return false;
+        }
+        Chain node = head;
+        while (node.version > oldest && node.older != null) {
+            node = node.older;
+        }
+        node.older = null;
+        if (node == head && head.value == 0) {
+            if (slot.direction == Slot.PRESENCE) {
+                entry.presence = null;
+            } else {
+                edges.remove(slot.key, head);
+            }
+            if (entry.presence == null && entry.out.isEmpty() && entry.in.isEmpty()) {
+                entries.remove(slot.label, entry);
+            }
+        }
+        return node != head;
+    }
+
+    /**
+     * @return the entry of label, created if it has none; must be called
+     *         holding writeLock
+     */
+    private Entry<L> entryOf(L label) {
+        return entries.computeIfAbsent(label, l -> new Entry<>());
+    }
+
+    /**
+     * Push a presence value for label at version next. Must be called holding
+     * writeLock.
+     */
+    private void pushPresence(L label, int value, long next, List<Slot<L>> touched) {
+        Entry<L> entry = entryOf(label);
+        entry.presence = new Chain(next, value, entry.presence);
+        touched.add(new Slot<>(label, Slot.PRESENCE, null));
+    }
+
+    /**
+     * Push a weight for the edge from source to target, in both directions,
+     * at version next. Must be called holding writeLock.
+     */
+    private void pushEdge(L source, L target, int weight, long next, List<Slot<L>> touched) {
+        Entry<L> s = entryOf(source);
+        Entry<L> t = entryOf(target);
+        s.out.put(target, new Chain(next, weight, s.out.get(target)));
+        t.in.put(source, new Chain(next, weight, t.in.get(source)));
+        touched.add(new Slot<>(source, Slot.OUT, target));
+        touched.add(new Slot<>(target, Slot.IN, source));
+    }
+
+    /**
+     * Publish version next and prune. Must be called holding writeLock.
+     */
+    private void commit(long next, List<Slot<L>> touched) {
+        current = next;
+        prune(touched);
+    }
+
+    @Override public boolean add(L vertex) {
+        writeLock.lock();
+        try {
+            long latest = current;
+            if (present(vertex, latest)) {
+                return false;
+            }
+            List<Slot<L>> touched = new ArrayList<>();
+            pushPresence(vertex, 1, latest + 1, touched);
+            commit(latest + 1, touched);
+            return true;
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    @Override public int set(L source, L target, int weight) {
+        if (weight < 0) {
+            throw new IllegalArgumentException("weight must be nonnegative: " + weight);
+        }
+        writeLock.lock();
+        try {
+            int previousWeight = valueAt(edgeChain(source, target, true), current);
+            update(source, target, previousWeight, weight);
+            return previousWeight;
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    @Override public int increment(L source, L target, int delta) {
+        writeLock.lock();
+        try {
+            int previousWeight = valueAt(edgeChain(source, target, true), current);
+            int weight = Graphs.incrementedWeight(previousWeight, delta);
+            update(source, target, previousWeight, weight);
+            return weight;
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    /**
+     * Commit a new weight for an edge, as Graph.set does, unless it is
+     * unchanged. Must be called holding writeLock.
+     */
+    private void update(L source, L target, int previousWeight, int weight) {
+        if (weight == previousWeight) {
+            return;
+        }
+        long latest = current;
+        long next = latest + 1;
+        List<Slot<L>> touched = new ArrayList<>();
+        if (!present(source, latest)) {
+            pushPresence(source, 1, next, touched);
+        }
+        if (!present(target, latest)) {
+            pushPresence(target, 1, next, touched);
+        }
+        pushEdge(source, target, weight, next, touched);
+        commit(next, touched);
+        checkRepAfterChange(source, target);
+    }
+
+    @Override public boolean remove(L vertex) {
+        writeLock.lock();
+        try {
+            long latest = current;
+            if (!present(vertex, latest)) {
+                return false;
+            }
+            long next = latest + 1;
+            List<Slot<L>> touched = new ArrayList<>();
+            Entry<L> entry = entries.get(vertex);
+            for (Map.Entry<L, Chain> edge : new ArrayList<>(entry.out.entrySet())) {
+                if (valueAt(edge.getValue(), latest) > 0) {
+                    pushEdge(vertex, edge.getKey(), 0, next, touched);
+                }
+            }
+            for (Map.Entry<L, Chain> edge : new ArrayList<>(entry.in.entrySet())) {
+                // read at next, where a self loop is already removed
+                if (valueAt(edge.getValue(), next) > 0) {
+                    pushEdge(edge.getKey(), vertex, 0, next, touched);
+                }
+            }
+            pushPresence(vertex, 0, next, touched);
+            commit(next, touched);
+            checkRepAfterRemove(vertex);
+            return true;
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    @Override public Set<L> vertices() {
+        try (Snapshot<L> snapshot = snapshot()) {
+            return snapshot.vertices();
+        }
+    }
+
+    @Override public Map<L, Integer> sources(L target) {
+        try (Snapshot<L> snapshot = snapshot()) {
+            return snapshot.sources(target);
+        }
+    }
+
+    @Override public Map<L, Integer> targets(L source) {
+        try (Snapshot<L> snapshot = snapshot()) {
+            return snapshot.targets(source);
+        }
+    }
+
+    @Override
+    public String toString() {
+        try (Snapshot<L> snapshot = snapshot()) {
+            return snapshot.toString();
+        }
+    }
+
+    /**
+     * A read-only view of an MvccGraph at one version. Its observers are
+     * safe for use by several threads at once, and return the same results
+     * however the graph changes, until the snapshot is closed. Its mutators
+     * throw UnsupportedOperationException.
+     *
+     * @param <L> type of vertex labels in the graph, must be immutable
+     */
+    public static final class Snapshot<L> implements Graph<L>, AutoCloseable {
+
+        private final MvccGraph<L> graph;
+        private final long version;
+        private volatile boolean closed;
+
+        // Abstraction function:
+        //   AF(graph, version) = the graph at version 'version' of 'graph', as defined in the
+        //     abstraction function of MvccGraph
+        // Representation invariant:
+        //   - While !closed, version is pinned in graph.pins, once for this snapshot.
+        // Safety from rep exposure:
+        //   - All fields are private; observers return new collections of immutable labels.
+        // Thread safety argument:
+        //   - The fields are final or volatile, and graph keeps every value at version
+        //     pinned until close, so observers only read chains that no writer prunes.
+
+        private Snapshot(MvccGraph<L> graph, long version) {
+            this.graph = graph;
+            this.version = version;
+        }
+
+        /**
+         * @return the version of the graph this snapshot shows; later
+         *         snapshots of the same graph have the same or greater versions
+         */
+        public long version() {
+            return version;
+        }
+
+        /**
+         * Unpin this snapshot's version, so that the graph can discard
+         * values only it could see. Closing a snapshot more than once has no
+         * further effect.
+         */
+        @Override public void close() {
+            synchronized (this) {
+                if (closed) {
+                    return;
+                }
+                closed = true;
+            }
+            graph.release(version);
+        }
+
+        private void ensureOpen() {
+            if (closed) {
+                throw new IllegalStateException("Snapshot is closed");
+            }
+        }
+
+        @Override public boolean add(L vertex) {
+            throw new UnsupportedOperationException("Snapshot is read-only");
+        }
+
+        @Override public int set(L source, L target, int weight) {
+            throw new UnsupportedOperationException("Snapshot is read-only");
+        }
+
+        @Override public boolean remove(L vertex) {
+            throw new UnsupportedOperationException("Snapshot is read-only");
+        }
+
+        @Override public Set<L> vertices() {
+            ensureOpen();
+            Set<L> result = new HashSet<>();
+            graph.entries.forEach((label, entry) -> {
+                if (valueAt(entry.presence, version) != 0) {
+                    result.add(label);
+                }
+            });
+            return result;
+        }
+
+        @Override public Map<L, Integer> sources(L target) {
+            ensureOpen();
+            return edgesAt(target, false);
+        }
+
+        @Override public Map<L, Integer> targets(L source) {
+            ensureOpen();
+            return edgesAt(source, true);
+        }
+
+        private Map<L, Integer> edgesAt(L label, boolean out) {
+            Map<L, Integer> result = new HashMap<>();
+            Entry<L> entry = graph.entries.get(label);
+            if (entry == null || valueAt(entry.presence, version) == 0) {
+                return result;
+            }
+            (out ? entry.out : entry.in).forEach((other, chain) -> {
+                int weight = valueAt(chain, version);
+                if (weight > 0) {
+                    result.put(other, weight);
+                }
+            });
+            return result;
+        }
+
+        @Override
+        public String toString() {
+            ensureOpen();
+            StringBuilder sb = new StringBuilder();
+            graph.entries.forEach((label, entry) -> {
+                if (valueAt(entry.presence, version) == 0) {
+                    return;
+                }
+                Map<L, Integer> targets = edgesAt(label, true);
+                if (targets.isEmpty()) {
+                    sb.append(label).append(" -> \n");
+                }
+                for (Map.Entry<L, Integer> edge : targets.entrySet()) {
+                    sb.append(label).append(" -> ").append(edge.getKey())
+                            .append(" : ").append(edge.getValue()).append("\n");
+                }
+            });
+            return sb.toString();
+        }
+    }
+}
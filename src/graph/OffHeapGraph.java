@@ -0,0 +1,763 @@
+/* Copyright (c) 2015-2016 MIT 6.005 course staff, all rights reserved.
+ * Redistribution of original or derived work requires permission of course staff.
+ */
+package graph;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * An implementation of Graph that keeps its whole rep in direct (off-heap)
+ * memory: vertex labels, vertex and edge records, and the hash tables that
+ * find them.
+ *
+ * <p>The Java heap holds only a few buffer objects, however large the graph,
+ * so garbage collection pauses do not grow with the graph. Collections
+ * returned by vertices, sources and targets are ordinary heap objects.
+ *
+ * <p>Off-heap memory is released by {@link #close()}; after that every method
+ * except close throws IllegalStateException. A graph that is never closed
+ * releases its memory when it is garbage collected.
+ *
+ * <p>Each of the graph's buffers is limited to 2 GiB, which bounds the graph
+ * to about 70 million edges and 2 GiB of UTF-8 label text. Sizing the graph,
+ * or adding to it, beyond that limit throws IllegalArgumentException.
+ */
+public class OffHeapGraph implements Graph<String>, IncrementableGraph<String>, AutoCloseable {
+
+    private static final int NONE = -1;
+
+    // Fields of a vertex record, in ints
+    private static final int V_FIRST_OUT = 0;
+    private static final int V_FIRST_IN = 1;
+    private static final int V_LABEL_OFFSET = 2;
+    private static final int V_LABEL_LENGTH = 3;
+    private static final int V_HASH = 4;
+    private static final int VERTEX_INTS = 5;
+
+    // Fields of an edge record, in ints
+    private static final int E_SOURCE = 0;
+    private static final int E_TARGET = 1;
+    private static final int E_WEIGHT = 2;
+    private static final int E_NEXT_OUT = 3;
+    private static final int E_PREV_OUT = 4;
+    private static final int E_NEXT_IN = 5;
+    private static final int E_PREV_IN = 6;
+    private static final int EDGE_INTS = 7;
+
+    private ByteBuffer vertexRecords;
+    private int vertexLimit;
+    private int vertexCount;
+    private int freeVertex = NONE;
+
+    private ByteBuffer edgeRecords;
+    private int edgeLimit;
+    private int edgeCount;
+    private int freeEdge = NONE;
+
+    private ByteBuffer labelBytes;
+    private int labelEnd;
+    private int liveLabelBytes;
+
+    // Open-addressed tables of record id + 1, with 0 for an empty slot
+    private ByteBuffer vertexSlots;
+    private int vertexSlotCount;
+    private ByteBuffer edgeSlots;
+    private int edgeSlotCount;
+
+    private boolean closed;
+
+    // Abstraction function:
+    //   AF(vertexRecords, edgeRecords, labelBytes) = a graph whose vertices are the UTF-8
+    //     decodings of labelBytes[LABEL_OFFSET, LABEL_OFFSET + LABEL_LENGTH) of the live vertex
+    //     records in [0, vertexLimit), with an edge from SOURCE to TARGET of weight WEIGHT
+    //     for every live edge record in [0, edgeLimit).
+    //   The slot tables and the FIRST/NEXT/PREV links are lookup structures and add nothing
+    //   to the abstract value.
+    // Representation invariant:
+    //   - A vertex record is live iff LABEL_LENGTH >= 0; an edge record is live iff WEIGHT > 0.
+    //     Free records form singly linked lists from freeVertex through FIRST_OUT and from
+    //     freeEdge through NEXT_OUT.
+    //   - vertexCount and edgeCount count the live records; liveLabelBytes sums LABEL_LENGTH
+    //     over live vertices, whose labels lie within [0, labelEnd) and are distinct.
+    //   - HASH of a live vertex is hash(its label bytes).
+    //   - Each live vertex id v appears once in vertexSlots, as v + 1, reachable by linear
+    //     probing from HASH without crossing an empty slot; likewise each live edge in
+    //     edgeSlots from edgeHash(SOURCE, TARGET). No other slots are non-empty, and each
+    //     table is at most half full.
+    //   - The live edges with source v form a doubly linked list through NEXT_OUT/PREV_OUT
+    //     starting at FIRST_OUT of v; likewise for target v through the IN links.
+    //   - SOURCE and TARGET of a live edge are live vertices; no two live edges share both.
+    // Safety from rep exposure:
+    //   - All fields are private and no buffer is ever returned.
+    //   - Methods return new heap collections of newly decoded Strings.
+
+    /**
+     * Create a new empty graph.
+     */
+    public OffHeapGraph() {
+        this(16, 16);
+    }
+
+    /**
+     * Create a new empty graph with room for some vertices and edges before
+     * it grows.
+     *
+     * @param expectedVertices number of vertices to size the graph for, >= 0
+     * @param expectedEdges number of edges to size the graph for, >= 0
+     * @throws IllegalArgumentException if a buffer sized for expectedVertices
+     *                                  or expectedEdges would exceed 2 GiB
+     */
+    public OffHeapGraph(int expectedVertices, int expectedEdges) {
+        int vertices = Math.max(16, expectedVertices);
+        int edges = Math.max(16, expectedEdges);
+        // Size every buffer before allocating any, so a bad size leaks nothing
+        int vertexBytes = bufferBytes(vertices, VERTEX_INTS * Integer.BYTES);
+        int edgeBytes = bufferBytes(edges, EDGE_INTS * Integer.BYTES);
+        int labelByteCount = bufferBytes(vertices, 8);
+        vertexSlotCount = LabelIndex.tableCapacity(vertices);
+        edgeSlotCount = LabelIndex.tableCapacity(edges);
+        int vertexSlotBytes = bufferBytes(vertexSlotCount, Integer.BYTES);
+        int edgeSlotBytes = bufferBytes(edgeSlotCount, Integer.BYTES);
+        vertexRecords = DirectBuffers.allocate(vertexBytes);
+        edgeRecords = DirectBuffers.allocate(edgeBytes);
+        labelBytes = DirectBuffers.allocate(labelByteCount);
+        vertexSlots = DirectBuffers.allocate(vertexSlotBytes);
+        edgeSlots = DirectBuffers.allocate(edgeSlotBytes);
+        checkRep();
+    }
+
+    /**
+     * @return count * width, the size of a buffer of count items of width bytes
+     * @throws IllegalArgumentException if the size exceeds the 2 GiB limit of
+     *                                  a buffer
+     */
+    private static int bufferBytes(long count, int width) {
+        long bytes = Math.multiplyExact(count, width);
+        if (bytes > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("OffHeapGraph cannot hold " + count + " items of "
+                    + width + " bytes in one buffer");
+        }
+        return (int) bytes;
+    }
+
+    /**
+     * Check the whole representation invariant.
+     * @throws AssertionError if the representation invariant is violated
+     */
+    private void checkRep() {
+        if (closed) {
+            return;
+        }
+        int liveVertices = 0;
+        int liveBytes = 0;
+        for (int v = 0; v < vertexLimit; v++) {
+            if (vget(v, V_LABEL_LENGTH) >= 0) {
+                liveVertices++;
+                liveBytes += vget(v, V_LABEL_LENGTH);
+                checkVertex(v);
+            }
+        }
+        int liveEdges = 0;
+        for (int e = 0; e < edgeLimit; e++) {
+            if (eget(e, E_WEIGHT) > 0) {
+                liveEdges++;
+                checkEdge(e);
+            }
+        }
+        assert liveVertices == vertexCount : "Vertex count out of sync";
+        assert liveEdges == edgeCount : "Edge count out of sync";
+        assert liveBytes == liveLabelBytes : "Label byte count out of sync";
+        assert vertexCount * 2 <= vertexSlotCount && edgeCount * 2 <= edgeSlotCount : "Table overfull";
+    }
+
+    /**
+     * Check one live vertex: its label is found by lookup and its list heads
+     * point back at it.
+     */
+    private void checkVertex(int v) {
+        assert vget(v, V_LABEL_OFFSET) + vget(v, V_LABEL_LENGTH) <= labelEnd : "Label out of range";
+        assert idOf(labelOf(v)) == v : "Vertex not reachable from its home slot";
+        int firstOut = vget(v, V_FIRST_OUT);
+        int firstIn = vget(v, V_FIRST_IN);
+        assert firstOut == NONE || (eget(firstOut, E_SOURCE) == v && eget(firstOut, E_PREV_OUT) == NONE)
+                : "Out list head inconsistent";
+        assert firstIn == NONE || (eget(firstIn, E_TARGET) == v && eget(firstIn, E_PREV_IN) == NONE)
+                : "In list head inconsistent";
+    }
+
+    /**
+     * Check one live edge: its endpoints are live, it is found by lookup,
+     * and its neighbours in both lists link back to it.
+     */
+    private void checkEdge(int e) {
+        int s = eget(e, E_SOURCE);
+        int t = eget(e, E_TARGET);
+        assert vget(s, V_LABEL_LENGTH) >= 0 && vget(t, V_LABEL_LENGTH) >= 0 : "Edge endpoint not live";
+        assert findEdge(s, t) == e : "Edge not reachable from its home slot";
+        int nextOut = eget(e, E_NEXT_OUT);
+        int prevOut = eget(e, E_PREV_OUT);
+        int nextIn = eget(e, E_NEXT_IN);
+        int prevIn = eget(e, E_PREV_IN);
+        assert nextOut == NONE || (eget(nextOut, E_PREV_OUT) == e && eget(nextOut, E_SOURCE) == s) : "Out list broken";
+        assert prevOut == NONE ? vget(s, V_FIRST_OUT) == e : eget(prevOut, E_NEXT_OUT) == e : "Out list broken";
+        assert nextIn == NONE || (eget(nextIn, E_PREV_IN) == e && eget(nextIn, E_TARGET) == t) : "In list broken";
+        assert prevIn == NONE ? vget(t, V_FIRST_IN) == e : eget(prevIn, E_NEXT_IN) == e : "In list broken";
+    }
+
+    /**
+     * Check the representation invariant after the edge between two vertices
+     * changed, as far as the RepCheck level asks for.
+     */
+    private void checkRepAfterChange(int s, int t) {
+        if (RepCheck.audit()) {
+            checkRep();
+        } else if (RepCheck.incremental()) {
+            checkVertex(s);
+            checkVertex(t);
+            int e = findEdge(s, t);
+            if (e != NONE) {
+                checkEdge(e);
+            }
+        }
+    }
+
+    /**
+     * Check the representation invariant after a vertex was removed, as far
+     * as the RepCheck level asks for.
+     */
+    private void checkRepAfterRemove(String vertex) {
+        if (RepCheck.audit()) {
+            checkRep();
+        } else if (RepCheck.incremental()) {
+            assert idOf(vertex) == NONE : "Removed vertex still reachable";
+        }
+    }
+
+    /*
+     * Record and table access.
+     */
+
+    private int vget(int v, int field) {
+        return vertexRecords.getInt((v * VERTEX_INTS + field) * Integer.BYTES);
+    }
+
+    private void vput(int v, int field, int value) {
+        vertexRecords.putInt((v * VERTEX_INTS + field) * Integer.BYTES, value);
+    }
+
+    private int eget(int e, int field) {
+        return edgeRecords.getInt((e * EDGE_INTS + field) * Integer.BYTES);
+    }
+
+    private void eput(int e, int field, int value) {
+        edgeRecords.putInt((e * EDGE_INTS + field) * Integer.BYTES, value);
+    }
+
+    private static int slot(ByteBuffer slots, int i) {
+        return slots.getInt(i * Integer.BYTES);
+    }
+
+    private static void putSlot(ByteBuffer slots, int i, int value) {
+        slots.putInt(i * Integer.BYTES, value);
+    }
+
+    private static int hash(byte[] bytes) {
+        int hash = 1;
+        for (byte b : bytes) {
+            hash = 31 * hash + b;
+        }
+        return hash ^ (hash >>> 16);
+    }
+
+    private static int edgeHash(int s, int t) {
+        int hash = s * 0x9E3779B9 + t;
+        return hash ^ (hash >>> 16);
+    }
+
+    /**
+     * Ensure a record buffer can hold minBytes, replacing it by a copy at
+     * least twice as large if it cannot.
+     * @return buffer, or its replacement
+     */
+    private static ByteBuffer ensureCapacity(ByteBuffer buffer, int minBytes) {
+        if (minBytes <= buffer.capacity()) {
+            return buffer;
+        }
+        long bytes = Math.min(Math.max(buffer.capacity() * 2L, minBytes), Integer.MAX_VALUE);
+        ByteBuffer grown = DirectBuffers.allocate((int) bytes);
+        ByteBuffer old = buffer.duplicate();
+        old.clear();
+        grown.put(old);
+        grown.clear();
+        DirectBuffers.free(buffer);
+        return grown;
+    }
+
+    private void ensureOpen() {
+        if (closed) {
+            throw new IllegalStateException("OffHeapGraph is closed");
+        }
+    }
+
+    /*
+     * Vertices.
+     */
+
+    private boolean labelEquals(int v, byte[] bytes) {
+        if (vget(v, V_LABEL_LENGTH) != bytes.length) {
+            return false;
+        }
+        int offset = vget(v, V_LABEL_OFFSET);
+        for (int i = 0; i < bytes.length; i++) {
+            if (labelBytes.get(offset + i) != bytes[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private String labelOf(int v) {
+        byte[] bytes = new byte[vget(v, V_LABEL_LENGTH)];
+        labelBytes.get(vget(v, V_LABEL_OFFSET), bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private int idOf(String label) {
+        return idOf(label.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * @return the id of the vertex with the given UTF-8 label, or NONE
+     */
+    private int idOf(byte[] bytes) {
+        int hash = hash(bytes);
+        int mask = vertexSlotCount - 1;
+        for (int i = hash & mask; ; i = (i + 1) & mask) {
+            int v = slot(vertexSlots, i) - 1;
+            if (v == NONE) {
+                return NONE;
+            }
+            if (vget(v, V_HASH) == hash && labelEquals(v, bytes)) {
+                return v;
+            }
+        }
+    }
+
+    /**
+     * @return the id of the vertex with the given label, added if absent
+     */
+    private int intern(String label) {
+        byte[] bytes = label.getBytes(StandardCharsets.UTF_8);
+        int v = idOf(bytes);
+        if (v != NONE) {
+            return v;
+        }
+        if ((vertexCount + 1) * 2 > vertexSlotCount) {
+            rehashVertices(LabelIndex.grownCapacity(vertexSlotCount));
+        }
+        int offset = appendLabel(bytes);
+        if (freeVertex != NONE) {
+            v = freeVertex;
+            freeVertex = vget(v, V_FIRST_OUT);
+        } else {
+            vertexRecords = ensureCapacity(vertexRecords, bufferBytes(vertexLimit + 1L, VERTEX_INTS * Integer.BYTES));
+            v = vertexLimit++;
+        }
+        int hash = hash(bytes);
+        vput(v, V_FIRST_OUT, NONE);
+        vput(v, V_FIRST_IN, NONE);
+        vput(v, V_LABEL_OFFSET, offset);
+        vput(v, V_LABEL_LENGTH, bytes.length);
+        vput(v, V_HASH, hash);
+        int mask = vertexSlotCount - 1;
+        int i = hash & mask;
+        while (slot(vertexSlots, i) != 0) {
+            i = (i + 1) & mask;
+        }
+        putSlot(vertexSlots, i, v + 1);
+        vertexCount++;
+        liveLabelBytes += bytes.length;
+        return v;
+    }
+
+    /**
+     * Append label bytes to the label arena, first compacting away the bytes
+     * of removed labels if the arena is full.
+     * @return the offset of the appended bytes
+     */
+    private int appendLabel(byte[] bytes) {
+        if ((long) labelEnd + bytes.length > labelBytes.capacity()) {
+            int needed = bufferBytes((long) liveLabelBytes + bytes.length, 1);
+            long capacity = Math.min(Math.max(16L, Math.max(2L * liveLabelBytes, needed)), Integer.MAX_VALUE);
+            ByteBuffer compacted = DirectBuffers.allocate((int) capacity);
+            int end = 0;
+            for (int v = 0; v < vertexLimit; v++) {
+                int length = vget(v, V_LABEL_LENGTH);
+                if (length >= 0) {
+                    compacted.put(end, labelBytes, vget(v, V_LABEL_OFFSET), length);
+                    vput(v, V_LABEL_OFFSET, end);
+                    end += length;
+                }
+            }
+            DirectBuffers.free(labelBytes);
+            labelBytes = compacted;
+            labelEnd = end;
+        }
+        int offset = labelEnd;
+        labelBytes.put(offset, bytes);
+        labelEnd += bytes.length;
+        return offset;
+    }
+
+    private void rehashVertices(int slotCount) {
+        ByteBuffer slots = DirectBuffers.allocate(bufferBytes(slotCount, Integer.BYTES));
+        DirectBuffers.free(vertexSlots);
+        vertexSlotCount = slotCount;
+        vertexSlots = slots;
+        int mask = slotCount - 1;
+        for (int v = 0; v < vertexLimit; v++) {
+            if (vget(v, V_LABEL_LENGTH) >= 0) {
+                int i = vget(v, V_HASH) & mask;
+                while (slot(vertexSlots, i) != 0) {
+                    i = (i + 1) & mask;
+                }
+                putSlot(vertexSlots, i, v + 1);
+            }
+        }
+    }
+
+    /*
+     * Edges.
+     */
+
+    /**
+     * @return the id of the live edge from s to t, or NONE
+     */
+    private int findEdge(int s, int t) {
+        int mask = edgeSlotCount - 1;
+        for (int i = edgeHash(s, t) & mask; ; i = (i + 1) & mask) {
+            int e = slot(edgeSlots, i) - 1;
+            if (e == NONE) {
+                return NONE;
+            }
+            if (eget(e, E_SOURCE) == s && eget(e, E_TARGET) == t) {
+                return e;
+            }
+        }
+    }
+
+    private void addEdge(int s, int t, int weight) {
+        if ((edgeCount + 1) * 2 > edgeSlotCount) {
+            rehashEdges(LabelIndex.grownCapacity(edgeSlotCount));
+        }
+        int e;
+        if (freeEdge != NONE) {
+            e = freeEdge;
+            freeEdge = eget(e, E_NEXT_OUT);
+        } else {
+            edgeRecords = ensureCapacity(edgeRecords, bufferBytes(edgeLimit + 1L, EDGE_INTS * Integer.BYTES));
+            e = edgeLimit++;
+        }
+        int firstOut = vget(s, V_FIRST_OUT);
+        int firstIn = vget(t, V_FIRST_IN);
+        eput(e, E_SOURCE, s);
+        eput(e, E_TARGET, t);
+        eput(e, E_WEIGHT, weight);
+        eput(e, E_NEXT_OUT, firstOut);
+        eput(e, E_PREV_OUT, NONE);
+        eput(e, E_NEXT_IN, firstIn);
+        eput(e, E_PREV_IN, NONE);
+        if (firstOut != NONE) {
+            eput(firstOut, E_PREV_OUT, e);
+        }
+        if (firstIn != NONE) {
+            eput(firstIn, E_PREV_IN, e);
+        }
+        vput(s, V_FIRST_OUT, e);
+        vput(t, V_FIRST_IN, e);
+        int mask = edgeSlotCount - 1;
+        int i = edgeHash(s, t) & mask;
+        while (slot(edgeSlots, i) != 0) {
+            i = (i + 1) & mask;
+        }
+        putSlot(edgeSlots, i, e + 1);
+        edgeCount++;
+    }
+
+    private void removeEdge(int e) {
+        int s = eget(e, E_SOURCE);
+        int t = eget(e, E_TARGET);
+        int nextOut = eget(e, E_NEXT_OUT);
+        int prevOut = eget(e, E_PREV_OUT);
+        int nextIn = eget(e, E_NEXT_IN);
+        int prevIn = eget(e, E_PREV_IN);
+        if (prevOut == NONE) {
+            vput(s, V_FIRST_OUT, nextOut);
+        } else {
+            eput(prevOut, E_NEXT_OUT, nextOut);
+        }
+        if (nextOut != NONE) {
+            eput(nextOut, E_PREV_OUT, prevOut);
+        }
+        if (prevIn == NONE) {
+            vput(t, V_FIRST_IN, nextIn);
+        } else {
+            eput(prevIn, E_NEXT_IN, nextIn);
+        }
+        if (nextIn != NONE) {
+            eput(nextIn, E_PREV_IN, prevIn);
+        }
+        int mask = edgeSlotCount - 1;
+        int hole = edgeHash(s, t) & mask;
+        while (slot(edgeSlots, hole) != e + 1) {
+            hole = (hole + 1) & mask;
+        }
+        deleteSlot(edgeSlots, mask, hole, false);
+        eput(e, E_WEIGHT, 0);
+        eput(e, E_NEXT_OUT, freeEdge);
+        freeEdge = e;
+        edgeCount--;
+    }
+
+    private void rehashEdges(int slotCount) {
+        ByteBuffer slots = DirectBuffers.allocate(bufferBytes(slotCount, Integer.BYTES));
+        DirectBuffers.free(edgeSlots);
+        edgeSlotCount = slotCount;
+        edgeSlots = slots;
+        int mask = slotCount - 1;
+        for (int e = 0; e < edgeLimit; e++) {
+            if (eget(e, E_WEIGHT) > 0) {
+                int i = edgeHash(eget(e, E_SOURCE), eget(e, E_TARGET)) & mask;
+                while (slot(edgeSlots, i) != 0) {
+                    i = (i + 1) & mask;
+                }
+                putSlot(edgeSlots, i, e + 1);
+            }
+        }
+    }
+
+    /**
+     * Empty a slot of a linear-probing table by backward-shift deletion:
+     * later entries of the probe run move into the hole when their home slot
+     * does not lie cyclically in (hole, next].
+     */
+    private void deleteSlot(ByteBuffer slots, int mask, int hole, boolean vertexTable) {
+        for (int next = (hole + 1) & mask; slot(slots, next) != 0; next = (next + 1) & mask) {
+            int id = slot(slots, next) - 1;
+            int hash = vertexTable ? vget(id, V_HASH) : edgeHash(eget(id, E_SOURCE), eget(id, E_TARGET));
+            int home = hash & mask;
+            boolean homeBetween = hole <= next
+                    ? hole < home && home <= next
+                    : hole < home || home <= next;
+            if (!homeBetween) {
+                putSlot(slots, hole, slot(slots, next));
+                hole = next;
+            }
+        }
+        putSlot(slots, hole, 0);
+    }
+
+    /*
+     * Graph operations.
+     */
+
+    @Override public boolean add(String vertex) {
+        ensureOpen();
+        int before = vertexCount;
+        int v = intern(vertex);
+        checkRepAfterChange(v, v);
+        return vertexCount != before;
+    }
+
+    @Override public int set(String source, String target, int weight) {
+        ensureOpen();
+        if (weight < 0) {
+            throw new IllegalArgumentException("weight must be nonnegative: " + weight);
+        }
+        int s = idOf(source);
+        int t = idOf(target);
+        int e = s == NONE || t == NONE ? NONE : findEdge(s, t);
+        int previousWeight = e == NONE ? 0 : eget(e, E_WEIGHT);
+        if (weight == 0) {
+            if (e == NONE) {
+                // Vertices are only added with an edge; setting a missing edge to zero adds nothing
+                return 0;
+            }
+            removeEdge(e);
+        } else if (e != NONE) {
+            eput(e, E_WEIGHT, weight);
+        } else {
+            s = intern(source);
+            t = intern(target);
+            addEdge(s, t, weight);
+        }
+        checkRepAfterChange(s, t);
+        return previousWeight;
+    }
+
+    /**
+     * Add to the weight of an edge with one lookup of the edge, instead of
+     * reading the weight through targets() and writing it with set(). If the
+     * new weight is nonzero, the edge is added or updated, adding vertices
+     * with the given labels if they do not already exist; if it is zero, the
+     * edge is removed if it exists (the graph is not otherwise modified).
+     *
+     * @param source label of the source vertex
+     * @param target label of the target vertex
+     * @param delta amount to add to the current weight, or to zero if there
+     *              is no such edge
+     * @return the new weight of the edge
+     * @throws IllegalArgumentException if the new weight would be negative
+     * @throws ArithmeticException if the new weight overflows an int
+     */
+    @Override public int increment(String source, String target, int delta) {
+        ensureOpen();
+        int s = idOf(source);
+        int t = idOf(target);
+        int e = s == NONE || t == NONE ? NONE : findEdge(s, t);
+        int previousWeight = e == NONE ? 0 : eget(e, E_WEIGHT);
+        int weight = Graphs.incrementedWeight(previousWeight, delta);
+        if (weight == previousWeight) {
+            return weight;
+        }
+        if (e != NONE) {
+            if (weight == 0) {
+                removeEdge(e);
+            } else {
+                eput(e, E_WEIGHT, weight);
+            }
+        } else {
+            s = intern(source);
+            t = intern(target);
+            addEdge(s, t, weight);
+        }
+        checkRepAfterChange(s, t);
+        return weight;
+    }
+
+    @Override public boolean remove(String vertex) {
+        ensureOpen();
+        int v = idOf(vertex);
+        if (v == NONE) {
+            return false;
+        }
+        while (vget(v, V_FIRST_OUT) != NONE) {
+            removeEdge(vget(v, V_FIRST_OUT));
+        }
+        while (vget(v, V_FIRST_IN) != NONE) {
+            removeEdge(vget(v, V_FIRST_IN));
+        }
+        int mask = vertexSlotCount - 1;
+        int hole = vget(v, V_HASH) & mask;
+        while (slot(vertexSlots, hole) != v + 1) {
+            hole = (hole + 1) & mask;
+        }
+        deleteSlot(vertexSlots, mask, hole, true);
+        liveLabelBytes -= vget(v, V_LABEL_LENGTH);
+        vput(v, V_LABEL_LENGTH, NONE);
+        vput(v, V_FIRST_OUT, freeVertex);
+        freeVertex = v;
+        vertexCount--;
+        checkRepAfterRemove(vertex);
+        return true;
+    }
+
+    @Override public Set<String> vertices() {
+        ensureOpen();
+        Set<String> vertices = new HashSet<>();
+        for (int v = 0; v < vertexLimit; v++) {
+            if (vget(v, V_LABEL_LENGTH) >= 0) {
+                vertices.add(labelOf(v));
+            }
+        }
+        return vertices;
+    }
+
+    @Override public Map<String, Integer> sources(String target) {
+        ensureOpen();
+        Map<String, Integer> sources = new HashMap<>();
+        int t = idOf(target);
+        if (t != NONE) {
+            for (int e = vget(t, V_FIRST_IN); e != NONE; e = eget(e, E_NEXT_IN)) {
+                sources.put(labelOf(eget(e, E_SOURCE)), eget(e, E_WEIGHT));
+            }
+        }
+        return sources;
+    }
+
+    @Override public Map<String, Integer> targets(String source) {
+        ensureOpen();
+        Map<String, Integer> targets = new HashMap<>();
+        int s = idOf(source);
+        if (s != NONE) {
+            for (int e = vget(s, V_FIRST_OUT); e != NONE; e = eget(e, E_NEXT_OUT)) {
+                targets.put(labelOf(eget(e, E_TARGET)), eget(e, E_WEIGHT));
+            }
+        }
+        return targets;
+    }
+
+    /**
+     * Get the weight of an edge without building a map of neighbours.
+     *
+     * @param source label of the source vertex
+     * @param target label of the target vertex
+     * @return the weight of the edge from source to target, or zero if there
+     *         is no such edge
+     */
+    public int weight(String source, String target) {
+        ensureOpen();
+        int s = idOf(source);
+        int t = idOf(target);
+        if (s == NONE || t == NONE) {
+            return 0;
+        }
+        int e = findEdge(s, t);
+        return e == NONE ? 0 : eget(e, E_WEIGHT);
+    }
+
+    /**
+     * Release this graph's off-heap memory. Every later call of a method
+     * other than close throws IllegalStateException. Closing an already
+     * closed graph has no effect.
+     */
+    @Override public void close() {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        for (ByteBuffer buffer : new ByteBuffer[] { vertexRecords, edgeRecords, labelBytes, vertexSlots, edgeSlots }) {
+            DirectBuffers.free(buffer);
+        }
+        vertexRecords = null;
+        edgeRecords = null;
+        labelBytes = null;
+        vertexSlots = null;
+        edgeSlots = null;
+    }
+
+    @Override
+    public String toString() {
+        ensureOpen();
+        StringBuilder sb = new StringBuilder();
+        for (int v = 0; v < vertexLimit; v++) {
+            if (vget(v, V_LABEL_LENGTH) < 0) {
+                continue;
+            }
+            String label = labelOf(v);
+            if (vget(v, V_FIRST_OUT) == NONE) {
+                sb.append(label).append(" -> \n");
+            }
+            for (int e = vget(v, V_FIRST_OUT); e != NONE; e = eget(e, E_NEXT_OUT)) {
+                sb.append(label).append(" -> ").append(labelOf(eget(e, E_TARGET)))
+                        .append(" : ").append(eget(e, E_WEIGHT)).append("\n");
+            }
+        }
+        return sb.toString();
+    }
+}
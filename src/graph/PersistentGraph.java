@@ -0,0 +1,281 @@
+/* Copyright (c) 2015-2016 MIT 6.005 course staff, all rights reserved.
+ * Redistribution of original or derived work requires permission of course staff.
+ */
+package graph;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * A thread-safe implementation of Graph whose every version is immutable and
+ * shares structure with the versions before it.
+ *
+ * <p>Vertices and adjacency are kept in hash array mapped tries. A mutation
+ * builds a new version that copies only the O(log n) trie nodes on the paths
+ * to the changed vertices and edges, and then publishes it; observers read
+ * whichever version is current without locking. {@link #snapshot()} returns
+ * an independent graph starting from the current version in O(1) time, so a
+ * reader can hold a consistent view while writers carry on with this graph.
+ * Mutators are serialized with each other but never block observers.
+ *
+ * @param <L> type of vertex labels in this graph, must be immutable
+ */
+public final class PersistentGraph<L> implements Graph<L>, IncrementableGraph<L> {
+
+    private volatile HashTrie<L, Vertex<L>> vertices;
+
+    // Abstraction function:
+    //   AF(vertices) = a graph whose vertices are the keys of vertices, with an edge from v
+    //     to t of weight w for every v and every pair t -> w of vertices.get(v).out
+    //   The in tries mirror the out tries and add nothing to the abstract value.
+    // Representation invariant:
+    //   - For all s, t, w: vertices.get(s).out.get(t) == w iff vertices.get(t).in.get(s) == w;
+    //     in particular the keys of every out and in trie are vertices.
+    //   - All weights are > 0.
+    // Safety from rep exposure:
+    //   - vertices is private; tries and Vertex are immutable and never returned, and
+    //     vertices, sources and targets return new collections.
+    //   - A snapshot shares tries with this graph, which is safe because they are immutable.
+    // Thread safety argument:
+    //   - Every trie reachable from vertices is immutable, and vertices is volatile, so a
+    //     reader that reads it once sees one whole version.
+    //   - Mutators are synchronized, so each builds its version from the latest one and no
+    //     update is lost; each mutation takes effect when it writes vertices.
+
+    /**
+     * The immutable edges of one vertex.
+     */
+    private static final class Vertex<L> {
+        static final Vertex<?> EMPTY = new Vertex<>(HashTrie.empty(), HashTrie.empty());
+
+        final HashTrie<L, Integer> out;
+        final HashTrie<L, Integer> in;
+
+        Vertex(HashTrie<L, Integer> out, HashTrie<L, Integer> in) {
+            this.out = out;
+            this.in = in;
+        }
+
+        @SuppressWarnings("unchecked")
+        static <L> Vertex<L> empty() {
+            return (Vertex<L>) EMPTY;
+        }
+    }
+
+    /**
+     * Create a new empty graph.
+     */
+    public PersistentGraph() {
+        this(HashTrie.empty());
+    }
+
+    private PersistentGraph(HashTrie<L, Vertex<L>> vertices) {
+        this.vertices = vertices;
+        checkRep();
+    }
+
+    /**
+     * Check the whole representation invariant, as far as the RepCheck level
+     * asks for.
+     * @throws AssertionError if the representation invariant is violated
+     */
+    private void checkRep() {
+        if (RepCheck.audit()) {
+            checkVersion(vertices);
+        }
+    }
+
+    private static <L> void checkVersion(HashTrie<L, Vertex<L>> version) {
+        version.checkRep();
+        version.forEach((label, vertex) -> {
+            vertex.out.checkRep();
+            vertex.in.checkRep();
+            vertex.out.forEach((target, weight) -> checkEdge(version, label, target));
+            vertex.in.forEach((source, weight) -> checkEdge(version, source, label));
+        });
+    }
+
+    private static <L> void checkEdge(HashTrie<L, Vertex<L>> version, L source, L target) {
+        Vertex<L> s = version.get(source);
+        Vertex<L> t = version.get(target);
+        Integer out = s == null ? null : s.out.get(target);
+        Integer in = t == null ? null : t.in.get(source);
+        assert out == null ? in == null : out.equals(in) : "In edges out of sync";
+        assert out == null || out > 0 : "Weight must be positive";
+    }
+
+    /**
+     * Check the representation invariant after a new version changed the edge
+     * between two vertices, as far as the RepCheck level asks for.
+     */
+    private void checkRepAfterChange(HashTrie<L, Vertex<L>> version, L source, L target) {
+        if (RepCheck.audit()) {
+            checkVersion(version);
+        } else if (RepCheck.incremental()) {
+            checkEdge(version, source, target);
+        }
+    }
+
+    /**
+     * Check the representation invariant after a new version removed a
+     * vertex, as far as the RepCheck level asks for.
+     */
+    private void checkRepAfterRemove(HashTrie<L, Vertex<L>> version, L vertex) {
+        if (RepCheck.audit()) {
+            checkVersion(version);
+        } else if (RepCheck.incremental()) {
+            assert version.get(vertex) == null : "Removed vertex still present";
+        }
+    }
+
+    /**
+     * Get an independent copy of this graph in O(1) time. The copy starts
+     * with the current vertices and edges of this graph, and later mutations
+     * of either graph do not affect the other. Neither graph is copied; they
+     * share structure until they are changed.
+     *
+     * @return a new graph with the abstract value this graph has now
+     */
+    public PersistentGraph<L> snapshot() {
+        return new PersistentGraph<>(vertices);
+    }
+
+    @Override public synchronized boolean add(L vertex) {
+        HashTrie<L, Vertex<L>> version = vertices;
+        if (version.get(vertex) != null) {
+            return false;
+        }
+        vertices = version.put(vertex, Vertex.empty());
+        return true;
+    }
+
+    @Override public synchronized int set(L source, L target, int weight) {
+        if (weight < 0) {
+            throw new IllegalArgumentException("weight must be nonnegative: " + weight);
+        }
+        HashTrie<L, Vertex<L>> version = vertices;
+        Vertex<L> sourceVertex = version.get(source);
+        Integer previous = sourceVertex == null ? null : sourceVertex.out.get(target);
+        int previousWeight = previous == null ? 0 : previous;
+        if (weight == 0 && previous == null) {
+            return 0;
+        }
+        vertices = withEdge(version, source, target, weight);
+        checkRepAfterChange(vertices, source, target);
+        return previousWeight;
+    }
+
+    @Override public synchronized int increment(L source, L target, int delta) {
+        HashTrie<L, Vertex<L>> version = vertices;
+        Vertex<L> sourceVertex = version.get(source);
+        Integer previous = sourceVertex == null ? null : sourceVertex.out.get(target);
+        int previousWeight = previous == null ? 0 : previous;
+        int weight = Graphs.incrementedWeight(previousWeight, delta);
+        if (weight != previousWeight) {
+            vertices = withEdge(version, source, target, weight);
+            checkRepAfterChange(vertices, source, target);
+        }
+        return weight;
+    }
+
+    /**
+     * @return version with the edge from source to target set to weight, or
+     *         removed if weight is 0, adding the vertices unless weight is 0
+     */
+    private static <L> HashTrie<L, Vertex<L>> withEdge(HashTrie<L, Vertex<L>> version,
+            L source, L target, int weight) {
+        Vertex<L> s = vertexOrEmpty(version, source);
+        s = new Vertex<>(weight == 0 ? s.out.remove(target) : s.out.put(target, weight), s.in);
+        version = version.put(source, s);
+        Vertex<L> t = vertexOrEmpty(version, target);
+        t = new Vertex<>(t.out, weight == 0 ? t.in.remove(source) : t.in.put(source, weight));
+        return version.put(target, t);
+    }
+
+    private static <L> Vertex<L> vertexOrEmpty(HashTrie<L, Vertex<L>> version, L label) {
+        Vertex<L> vertex = version.get(label);
+        return vertex == null ? Vertex.empty() : vertex;
+    }
+
+    @Override public synchronized boolean remove(L vertex) {
+        HashTrie<L, Vertex<L>> version = vertices;
+        Vertex<L> removed = version.get(vertex);
+        if (removed == null) {
+            return false;
+        }
+        List<L> targets = new ArrayList<>(removed.out.size());
+        List<L> sources = new ArrayList<>(removed.in.size());
+        removed.out.forEach((target, weight) -> targets.add(target));
+        removed.in.forEach((source, weight) -> sources.add(source));
+        HashTrie<L, Vertex<L>> next = version.remove(vertex);
+        for (L target : targets) {
+            Vertex<L> t = next.get(target);
+            if (t != null) {
+                next = next.put(target, new Vertex<>(t.out, t.in.remove(vertex)));
+            }
+        }
+        for (L source : sources) {
+            Vertex<L> s = next.get(source);
+            if (s != null) {
+                next = next.put(source, new Vertex<>(s.out.remove(vertex), s.in));
+            }
+        }
+        vertices = next;
+        checkRepAfterRemove(vertices, vertex);
+        return true;
+    }
+
+    @Override public Set<L> vertices() {
+        HashTrie<L, Vertex<L>> version = vertices;
+        Set<L> result = new HashSet<>(version.size() * 4 / 3 + 1);
+        version.forEach((label, vertex) -> result.add(label));
+        return result;
+    }
+
+    @Override public Map<L, Integer> sources(L target) {
+        Vertex<L> vertex = vertices.get(target);
+        return vertex == null ? new HashMap<>() : toMap(vertex.in);
+    }
+
+    @Override public Map<L, Integer> targets(L source) {
+        Vertex<L> vertex = vertices.get(source);
+        return vertex == null ? new HashMap<>() : toMap(vertex.out);
+    }
+
+    private static <L> Map<L, Integer> toMap(HashTrie<L, Integer> edges) {
+        Map<L, Integer> result = new HashMap<>(edges.size() * 4 / 3 + 1);
+        edges.forEach(result::put);
+        return result;
+    }
+
+    /**
+     * Get the weight of an edge without building a map of neighbours.
+     *
+     * @param source label of the source vertex
+     * @param target label of the target vertex
+     * @return the weight of the edge from source to target, or zero if there
+     *         is no such edge
+     */
+    public int weight(L source, L target) {
+        Vertex<L> vertex = vertices.get(source);
+        Integer weight = vertex == null ? null : vertex.out.get(target);
+        return weight == null ? 0 : weight;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder();
+        vertices.forEach((label, vertex) -> {
+            if (vertex.out.size() == 0) {
+                sb.append(label).append(" -> \n");
+            }
+            vertex.out.forEach((target, weight) -> sb.append(label).append(" -> ").append(target)
+                    .append(" : ").append(weight).append("\n"));
+        });
+        return sb.toString();
+    }
+}
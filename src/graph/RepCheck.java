@@ -0,0 +1,158 @@
+/* Copyright (c) 2015-2016 MIT 6.005 course staff, all rights reserved.
+ * Redistribution of original or derived work requires permission of course staff.
+ */
+package graph;
+
+import java.util.Locale;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Policy deciding how much representation-invariant checking the graph and
+ * poet ADTs do after each mutation.
+ *
+ * <p>A full audit of a graph's rep is linear in the size of the graph, so
+ * running one after every mutation makes building a graph quadratic. Each
+ * checked class therefore asks this policy, on every mutation, whether to
+ * audit its whole rep, to check only the parts the mutation touched, or to
+ * check nothing:
+ * <ul><li> {@link Level#OFF}: no checking.
+ *     <li> {@link Level#SAMPLED}: a full audit after a random one in every
+ *          {@link #sampleRate()} mutations, and no checking otherwise.
+ *     <li> {@link Level#INCREMENTAL}: after every mutation, check only the
+ *          vertices and edges it touched.
+ *     <li> {@link Level#FULL}: a full audit after every mutation. </ul>
+ *
+ * <p>Checks are {@code assert} statements, so they only fail when assertions
+ * are enabled. The initial level is read from the system property
+ * {@code graph.repcheck} (one of {@code off}, {@code sampled},
+ * {@code incremental}, {@code full}); if it is absent or not recognised, the
+ * level is INCREMENTAL when assertions are enabled and OFF otherwise. The
+ * sample rate is read from {@code graph.repcheck.samplerate} and defaults to
+ * {@value #DEFAULT_SAMPLE_RATE}.
+ */
+public final class RepCheck {
+
+    /**
+     * How much of a rep to check after each mutation, in increasing order of
+     * cost per mutation.
+     */
+    public enum Level { OFF, SAMPLED, INCREMENTAL, FULL }
+
+    /** Default number of mutations per sampled full audit. */
+    public static final int DEFAULT_SAMPLE_RATE = 1024;
+
+    private static volatile Level level = initialLevel();
+    private static volatile int sampleRate = initialSampleRate();
+
+    // Abstraction function:
+    //   AF(level, sampleRate) = the checking policy described above.
+    // Representation invariant:
+    //   - level != null
+    //   - sampleRate >= 1
+    // Safety from rep exposure:
+    //   - Fields are private; Level values are immutable.
+    //   - Fields are volatile, so a change made by one thread is seen by all.
+
+    private RepCheck() {
+        throw new AssertionError("uninstantiable");
+    }
+
+    private static Level initialLevel() {
+        String property = System.getProperty("graph.repcheck");
+        if (property != null) {
+            for (Level candidate : Level.values()) {
+                if (candidate.name().equals(property.trim().toUpperCase(Locale.ROOT))) {
+                    return candidate;
+                }
+            }
+        }
+        boolean assertionsEnabled = false;
+        assert assertionsEnabled = true; // intentional side effect: true only under -ea
+        return assertionsEnabled ? Level.INCREMENTAL : Level.OFF;
+    }
+
+    private static int initialSampleRate() {
+        Integer property = Integer.getInteger("graph.repcheck.samplerate");
+        return property != null && property >= 1 ? property : DEFAULT_SAMPLE_RATE;
+    }
+
+    /**
+     * @return the current checking level
+     */
+    public static Level level() {
+        return level;
+    }
+
+    /**
+     * Change the checking level for all graphs and poets in this JVM.
+     *
+     * @param newLevel the new checking level
+     */
+    public static void setLevel(Level newLevel) {
+        if (newLevel == null) {
+            throw new IllegalArgumentException("level must not be null");
+        }
+        level = newLevel;
+    }
+
+    /**
+     * @return the average number of mutations per full audit at level SAMPLED
+     */
+    public static int sampleRate() {
+        return sampleRate;
+    }
+
+    /**
+     * Change the average number of mutations per full audit at level SAMPLED.
+     *
+     * @param newSampleRate the new sample rate, must be at least 1
+     */
+    public static void setSampleRate(int newSampleRate) {
+        if (newSampleRate < 1) {
+            throw new IllegalArgumentException("sample rate must be at least 1: " + newSampleRate);
+        }
+        sampleRate = newSampleRate;
+    }
+
+    /**
+     * Decide whether the mutation that just happened should be followed by a
+     * full audit of the rep. Call at most once per mutation, since at level
+     * SAMPLED each call draws a new sample.
+     *
+     * @return true if the level is FULL, or the level is SAMPLED and this
+     *         mutation was sampled
+     */
+    public static boolean audit() {
+        switch (level) {
+        case FULL:
+            return true;
+        case SAMPLED:
+            return ThreadLocalRandom.current().nextInt(sampleRate) == 0;
+        default:
+            return false;
+        }
+    }
+
+    /**
+     * Decide whether the mutation that just happened should be followed by a
+     * check of only the parts of the rep it touched. Callers that also audit
+     * check {@link #audit()} first and only call this if no audit is due.
+     *
+     * @return true if the level is INCREMENTAL
+     */
+    public static boolean incremental() {
+        return level == Level.INCREMENTAL;
+    }
+
+    /**
+     * Decide whether a rep whose full check takes constant time, or time
+     * proportional to the operation just performed, should be checked. Such a
+     * check never changes the complexity of the operation, so it runs at every
+     * level except OFF.
+     *
+     * @return true if the level is anything but OFF
+     */
+    public static boolean enabled() {
+        return level != Level.OFF;
+    }
+}
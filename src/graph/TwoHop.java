@@ -0,0 +1,108 @@
+/* Copyright (c) 2015-2016 MIT 6.005 course staff, all rights reserved.
+ * Redistribution of original or derived work requires permission of course staff.
+ */
+package graph;
+
+/**
+ * Best two-edge path queries over an immutable graph stored in compressed
+ * sparse rows, shared by the graphs that expose their rows.
+ */
+final class TwoHop {
+
+    private TwoHop() {
+        throw new AssertionError("uninstantiable");
+    }
+
+    /**
+     * Find a best two-edge path between two vertices, as specified by
+     * {@link FrozenGraph#bestTwoHop(int, int)}.
+     *
+     * @param rows an immutable graph in compressed sparse rows
+     * @param source a vertex id in [0, rows.vertexCount())
+     * @param target a vertex id in [0, rows.vertexCount())
+     * @return the best path, packed as {@link FrozenGraph#bestTwoHop(int, int)}
+     *         packs it, or {@link FrozenGraph#NO_TWO_HOP} if there is none
+     */
+    static long best(EdgeSpliterator.Rows<?> rows, int source, int target) {
+        int outFrom = rows.outStart(source);
+        int outTo = rows.outEnd(source);
+        int inFrom = rows.inStart(target);
+        int inTo = rows.inEnd(target);
+        long best = FrozenGraph.NO_TWO_HOP;
+        long bestWeight = 0;
+        if (outTo - outFrom <= inTo - inFrom) {
+            for (int i = outFrom; i < outTo && inFrom < inTo; i++) {
+                int bridge = rows.outTarget(i);
+                int j = searchIn(rows, inFrom, inTo, bridge);
+                if (j < 0) {
+                    inFrom = -j - 1;
+                    continue;
+                }
+                long weight = (long) rows.outWeight(i) + rows.inWeight(j);
+                if (weight > bestWeight) {
+                    best = FrozenGraph.twoHop(bridge, weight);
+                    bestWeight = weight;
+                }
+                inFrom = j + 1;
+            }
+        } else {
+            for (int j = inFrom; j < inTo && outFrom < outTo; j++) {
+                int bridge = rows.inSource(j);
+                int i = searchOut(rows, outFrom, outTo, bridge);
+                if (i < 0) {
+                    outFrom = -i - 1;
+                    continue;
+                }
+                long weight = (long) rows.outWeight(i) + rows.inWeight(j);
+                if (weight > bestWeight) {
+                    best = FrozenGraph.twoHop(bridge, weight);
+                    bestWeight = weight;
+                }
+                outFrom = i + 1;
+            }
+        }
+        return best;
+    }
+
+    /**
+     * Binary search out edge positions [from, to) for a target id, like
+     * {@link java.util.Arrays#binarySearch(int[], int, int, int)}.
+     */
+    private static int searchOut(EdgeSpliterator.Rows<?> rows, int from, int to, int target) {
+        int low = from;
+        int high = to - 1;
+        while (low <= high) {
+            int middle = (low + high) >>> 1;
+            int id = rows.outTarget(middle);
+            if (id < target) {
+                low = middle + 1;
+            } else if (id > target) {
+                high = middle - 1;
+            } else {
+                return middle;
+            }
+        }
+        return -(low + 1);
+    }
+
+    /**
+     * Binary search in edge positions [from, to) for a source id, like
+     * {@link java.util.Arrays#binarySearch(int[], int, int, int)}.
+     */
+    private static int searchIn(EdgeSpliterator.Rows<?> rows, int from, int to, int source) {
+        int low = from;
+        int high = to - 1;
+        while (low <= high) {
+            int middle = (low + high) >>> 1;
+            int id = rows.inSource(middle);
+            if (id < source) {
+                low = middle + 1;
+            } else if (id > source) {
+                high = middle - 1;
+            } else {
+                return middle;
+            }
+        }
+        return -(low + 1);
+    }
+}
@@ -0,0 +1,85 @@
+/* Copyright (c) 2015-2016 MIT 6.005 course staff, all rights reserved.
+ * Redistribution of original or derived work requires permission of course staff.
+ */
+package graph;
+
+/**
+ * An immutable weighted directed edge between two vertex labels.
+ *
+ * @param <L> type of vertex labels, must be immutable
+ */
+public final class WeightedEdge<L> {
+
+    private final L source;
+    private final L target;
+    private final int weight;
+
+    // Abstraction function:
+    //   AF(source, target, weight) = the edge from source to target with weight 'weight'
+    // Representation invariant:
+    //   - source != null, target != null
+    //   - weight > 0
+    // Safety from rep exposure:
+    //   - All fields are private and final, and labels are immutable.
+
+    /**
+     * Create an edge.
+     *
+     * @param source label of the source vertex, not null
+     * @param target label of the target vertex, not null
+     * @param weight weight of the edge, > 0
+     * @throws IllegalArgumentException if weight <= 0
+     * @throws NullPointerException if source or target is null
+     */
+    public WeightedEdge(L source, L target, int weight) {
+        if (source == null || target == null) {
+            throw new NullPointerException("edge labels must not be null");
+        }
+        if (weight <= 0) {
+            throw new IllegalArgumentException("weight must be positive: " + weight);
+        }
+        this.source = source;
+        this.target = target;
+        this.weight = weight;
+    }
+
+    /**
+     * @return the label of the source vertex
+     */
+    public L source() {
+        return source;
+    }
+
+    /**
+     * @return the label of the target vertex
+     */
+    public L target() {
+        return target;
+    }
+
+    /**
+     * @return the weight of the edge, > 0
+     */
+    public int weight() {
+        return weight;
+    }
+
+    @Override public boolean equals(Object that) {
+        return that instanceof WeightedEdge && sameValue((WeightedEdge<?>) that);
+    }
+
+    private boolean sameValue(WeightedEdge<?> that) {
+        return source.equals(that.source) && target.equals(that.target) && weight == that.weight;
+    }
+
+    @Override public int hashCode() {
+        return (source.hashCode() * 31 + target.hashCode()) * 31 + weight;
+    }
+
+    /**
+     * @return a string of the form "source -> target : weight"
+     */
+    @Override public String toString() {
+        return source + " -> " + target + " : " + weight;
+    }
+}
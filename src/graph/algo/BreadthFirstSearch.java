@@ -0,0 +1,141 @@
+/* Copyright (c) 2015-2016 MIT 6.005 course staff, all rights reserved.
+ * Redistribution of original or derived work requires permission of course staff.
+ */
+package graph.algo;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.stream.IntStream;
+
+import graph.FrozenGraph;
+import graph.Graph;
+
+/**
+ * Level-synchronous parallel breadth-first search.
+ *
+ * <p>The search expands one level at a time: the current frontier is cut
+ * into slices, expanded in parallel once there is more than one, and each
+ * unvisited target is claimed by exactly one thread with a compare-and-set
+ * on its distance. The next level starts once the whole frontier is
+ * expanded, so distances are exact hop counts.
+ *
+ * <p>The search runs on a FrozenGraph, walking its rows with plain loops;
+ * each slice collects the targets it claims in one buffer of its own, so
+ * nothing is allocated per vertex or per hop. Other graphs are first frozen:
+ * an IndexedGraph or a MappedGraph by copying its arrays, any other graph
+ * with one call to targets() per vertex.
+ */
+public final class BreadthFirstSearch {
+
+    /**
+     * Number of frontier vertices in each slice; frontiers no larger than
+     * this are expanded by the calling thread alone.
+     */
+    static final int PARALLEL_THRESHOLD = 1024;
+
+    private BreadthFirstSearch() {
+        throw new AssertionError("uninstantiable");
+    }
+
+    /**
+     * Find the number of edges on a shortest path to every vertex reachable
+     * from a source vertex, ignoring weights.
+     *
+     * @param <L> type of vertex labels in the graph
+     * @param graph the graph to search, not modified during the search
+     * @param source label of the vertex to start from
+     * @return a map from each vertex reachable from source, including source
+     *         itself, to its hop distance from source; empty if source is not
+     *         a vertex of graph
+     */
+    public static <L> Map<L, Integer> hops(Graph<L> graph, L source) {
+        FrozenGraph<L> frozen = FrozenGraph.freeze(graph);
+        int s = frozen.idOf(source);
+        Map<L, Integer> result = new HashMap<>();
+        if (s < 0) {
+            return result;
+        }
+        int[] hops = hopsById(frozen, s);
+        for (int v = 0; v < hops.length; v++) {
+            if (hops[v] >= 0) {
+                result.put(frozen.label(v), hops[v]);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Find the number of edges on a shortest path to every vertex reachable
+     * from a source vertex, ignoring weights, by vertex id.
+     *
+     * @param graph the graph to search
+     * @param source a vertex id in [0, graph.vertexCount())
+     * @return an array indexed by vertex id, holding the hop distance of each
+     *         vertex from source, or -1 if it is not reachable
+     */
+    public static int[] hopsById(FrozenGraph<?> graph, int source) {
+        int n = graph.vertexCount();
+        if (source < 0 || source >= n) {
+            throw new IndexOutOfBoundsException("no vertex with id " + source);
+        }
+        AtomicIntegerArray hops = new AtomicIntegerArray(n);
+        for (int v = 0; v < n; v++) {
+            hops.set(v, -1);
+        }
+        hops.set(source, 0);
+        int[] frontier = { source };
+        for (int level = 1; frontier.length > 0; level++) {
+            if (frontier.length <= PARALLEL_THRESHOLD) {
+                frontier = expand(graph, hops, frontier, 0, frontier.length, level);
+                continue;
+            }
+            int[] current = frontier;
+            int next = level;
+            int slices = (current.length + PARALLEL_THRESHOLD - 1) / PARALLEL_THRESHOLD;
+            int[][] claimed = IntStream.range(0, slices).parallel()
+                    .mapToObj(k -> expand(graph, hops, current, k * PARALLEL_THRESHOLD,
+                            Math.min(current.length, (k + 1) * PARALLEL_THRESHOLD), next))
+                    .toArray(int[][]::new);
+            int size = 0;
+            for (int[] slice : claimed) {
+                size += slice.length;
+            }
+            frontier = new int[size];
+            size = 0;
+            for (int[] slice : claimed) {
+                System.arraycopy(slice, 0, frontier, size, slice.length);
+                size += slice.length;
+            }
+        }
+        int[] result = new int[n];
+        Arrays.setAll(result, hops::get);
+        return result;
+    }
+
+    /**
+     * Expand a slice of a frontier: claim every unvisited target of the
+     * vertices frontier[from..to) for the given level.
+     *
+     * @return the targets this call claimed, in the order it claimed them
+     */
+    private static int[] expand(FrozenGraph<?> graph, AtomicIntegerArray hops, int[] frontier,
+            int from, int to, int level) {
+        int[] claimed = new int[Math.max(16, to - from)];
+        int count = 0;
+        for (int k = from; k < to; k++) {
+            int v = frontier[k];
+            for (int i = graph.outStart(v); i < graph.outEnd(v); i++) {
+                int t = graph.outTarget(i);
+                if (hops.get(t) < 0 && hops.compareAndSet(t, -1, level)) {
+                    if (count == claimed.length) {
+                        claimed = Arrays.copyOf(claimed, 2 * count);
+                    }
+                    claimed[count++] = t;
+                }
+            }
+        }
+        return Arrays.copyOf(claimed, count);
+    }
+}
@@ -0,0 +1,184 @@
+/* Copyright (c) 2015-2016 MIT 6.005 course staff, all rights reserved.
+ * Redistribution of original or derived work requires permission of course staff.
+ */
+package graph.algo;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+import graph.FrozenGraph;
+import graph.Graph;
+
+/**
+ * Weighted PageRank by power iteration on the fork-join pool.
+ *
+ * <p>A random surfer at vertex u follows an out edge of u with probability
+ * proportional to its weight, or with probability 1 - damping, or always if
+ * u has no out edges, jumps to a vertex chosen uniformly at random. The rank
+ * of a vertex is the long-run fraction of time the surfer spends there; the
+ * ranks sum to 1.
+ *
+ * <p>Each iteration pulls rank along the in edges of every vertex, so each
+ * new rank is written by exactly one task and no synchronization is needed
+ * within an iteration. The vertex range is split recursively into
+ * fork-join tasks. It runs on a FrozenGraph, and freezes other graphs first,
+ * as {@link BreadthFirstSearch} does.
+ */
+public final class PageRank {
+
+    /** Default probability of following an edge rather than jumping. */
+    public static final double DEFAULT_DAMPING = 0.85;
+    /** Default bound on the summed change of all ranks at convergence. */
+    public static final double DEFAULT_TOLERANCE = 1e-9;
+    /** Default bound on the number of iterations. */
+    public static final int DEFAULT_MAX_ITERATIONS = 100;
+
+    /** Vertex ranges no larger than this are computed by one task. */
+    static final int TASK_SIZE = 2048;
+
+    private PageRank() {
+        throw new AssertionError("uninstantiable");
+    }
+
+    /**
+     * Compute the PageRank of every vertex of a graph with the default
+     * damping, tolerance and iteration bound.
+     *
+     * @param <L> type of vertex labels in the graph
+     * @param graph the graph to rank, not modified during the computation
+     * @return a map from every vertex of graph to its rank
+     */
+    public static <L> Map<L, Double> ranks(Graph<L> graph) {
+        return ranks(graph, DEFAULT_DAMPING, DEFAULT_TOLERANCE, DEFAULT_MAX_ITERATIONS);
+    }
+
+    /**
+     * Compute the PageRank of every vertex of a graph.
+     *
+     * @param <L> type of vertex labels in the graph
+     * @param graph the graph to rank, not modified during the computation
+     * @param damping probability of following an edge, in [0, 1]
+     * @param tolerance stop once the ranks change by at most this much in
+     *                  total in one iteration, >= 0
+     * @param maxIterations stop after this many iterations, >= 0
+     * @return a map from every vertex of graph to its rank
+     */
+    public static <L> Map<L, Double> ranks(Graph<L> graph, double damping, double tolerance, int maxIterations) {
+        FrozenGraph<L> frozen = FrozenGraph.freeze(graph);
+        double[] ranks = ranksById(frozen, damping, tolerance, maxIterations);
+        Map<L, Double> result = new HashMap<>();
+        for (int v = 0; v < ranks.length; v++) {
+            result.put(frozen.label(v), ranks[v]);
+        }
+        return result;
+    }
+
+    /**
+     * Compute the PageRank of every vertex of a graph, by vertex id.
+     *
+     * @param graph the graph to rank
+     * @param damping probability of following an edge, in [0, 1]
+     * @param tolerance stop once the ranks change by at most this much in
+     *                  total in one iteration, >= 0
+     * @param maxIterations stop after this many iterations, >= 0
+     * @return an array indexed by vertex id holding the rank of each vertex
+     */
+    public static double[] ranksById(FrozenGraph<?> graph, double damping, double tolerance, int maxIterations) {
+        if (!(0 <= damping && damping <= 1)) {
+            throw new IllegalArgumentException("damping must be in [0, 1]: " + damping);
+        }
+        if (!(tolerance >= 0) || maxIterations < 0) {
+            throw new IllegalArgumentException("tolerance and iterations must be nonnegative");
+        }
+        int n = graph.vertexCount();
+        if (n == 0) {
+            return new double[0];
+        }
+        long[] outWeight = new long[n];
+        for (int v = 0; v < n; v++) {
+            for (int i = graph.outStart(v); i < graph.outEnd(v); i++) {
+                outWeight[v] += graph.outWeight(i);
+            }
+        }
+        double[] ranks = new double[n];
+        Arrays.fill(ranks, 1.0 / n);
+        double[] next = new double[n];
+        for (int iteration = 0; iteration < maxIterations; iteration++) {
+            double dangling = 0;
+            for (int v = 0; v < n; v++) {
+                if (outWeight[v] == 0) {
+                    dangling += ranks[v];
+                }
+            }
+            double base = (1 - damping) / n + damping * dangling / n;
+            Step step = new Step(graph, damping, base, outWeight, ranks, next, 0, n);
+            double change = ForkJoinPool.commonPool().invoke(step);
+            double[] swap = ranks;
+            ranks = next;
+            next = swap;
+            if (change <= tolerance) {
+                break;
+            }
+        }
+        return ranks;
+    }
+
+    /**
+     * One iteration over a range of vertex ids: computes next[v] from ranks
+     * for every v in [from, to), and returns the summed absolute change.
+     */
+    private static final class Step extends RecursiveTask<Double> {
+
+        private static final long serialVersionUID = 1L;
+
+        private final FrozenGraph<?> graph;
+        private final double damping;
+        private final double base;
+        private final long[] outWeight;
+        private final double[] ranks;
+        private final double[] next;
+        private final int from;
+        private final int to;
+
+        // Thread safety argument:
+        //   graph, outWeight and ranks are only read during the iteration; each task writes
+        //   only next[from..to), and the ranges of the tasks of one iteration are disjoint.
+
+        Step(FrozenGraph<?> graph, double damping, double base, long[] outWeight,
+                double[] ranks, double[] next, int from, int to) {
+            this.graph = graph;
+            this.damping = damping;
+            this.base = base;
+            this.outWeight = outWeight;
+            this.ranks = ranks;
+            this.next = next;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override protected Double compute() {
+            if (to - from > TASK_SIZE) {
+                int mid = (from + to) >>> 1;
+                Step left = new Step(graph, damping, base, outWeight, ranks, next, from, mid);
+                Step right = new Step(graph, damping, base, outWeight, ranks, next, mid, to);
+                left.fork();
+                double change = right.compute();
+                return change + left.join();
+            }
+            double change = 0;
+            for (int v = from; v < to; v++) {
+                double pulled = 0;
+                for (int i = graph.inStart(v); i < graph.inEnd(v); i++) {
+                    int u = graph.inSource(i);
+                    pulled += ranks[u] * graph.inWeight(i) / outWeight[u];
+                }
+                next[v] = base + damping * pulled;
+                change += Math.abs(next[v] - ranks[v]);
+            }
+            return change;
+        }
+    }
+}
@@ -0,0 +1,200 @@
+/* Copyright (c) 2015-2016 MIT 6.005 course staff, all rights reserved.
+ * Redistribution of original or derived work requires permission of course staff.
+ */
+package graph.algo;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+import graph.FrozenGraph;
+import graph.Graph;
+
+/**
+ * Single-source shortest paths by Dijkstra's algorithm, treating edge weights
+ * as lengths.
+ *
+ * <p>The queue is a binary heap of int vertex ids keyed by long distances,
+ * indexed by vertex so that a shorter distance moves a queued vertex up in
+ * place; no entry or distance is boxed, and the search costs
+ * O((V + E) log V) time. It runs on a FrozenGraph, and freezes other graphs
+ * first, as {@link BreadthFirstSearch} does.
+ */
+public final class ShortestPaths {
+
+    private ShortestPaths() {
+        throw new AssertionError("uninstantiable");
+    }
+
+    /**
+     * Find the length of a shortest path to every vertex reachable from a
+     * source vertex, where the length of a path is the sum of its weights.
+     *
+     * @param <L> type of vertex labels in the graph
+     * @param graph the graph to search, not modified during the search
+     * @param source label of the vertex to start from
+     * @return a map from each vertex reachable from source, including source
+     *         itself, to its distance from source; empty if source is not a
+     *         vertex of graph
+     */
+    public static <L> Map<L, Long> distances(Graph<L> graph, L source) {
+        FrozenGraph<L> frozen = FrozenGraph.freeze(graph);
+        int s = frozen.idOf(source);
+        Map<L, Long> result = new HashMap<>();
+        if (s < 0) {
+            return result;
+        }
+        long[] distances = distancesById(frozen, s);
+        for (int v = 0; v < distances.length; v++) {
+            if (distances[v] >= 0) {
+                result.put(frozen.label(v), distances[v]);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Find the length of a shortest path to every vertex reachable from a
+     * source vertex, by vertex id.
+     *
+     * @param graph the graph to search
+     * @param source a vertex id in [0, graph.vertexCount())
+     * @return an array indexed by vertex id, holding the distance of each
+     *         vertex from source, or -1 if it is not reachable
+     */
+    public static long[] distancesById(FrozenGraph<?> graph, int source) {
+        int n = graph.vertexCount();
+        if (source < 0 || source >= n) {
+            throw new IndexOutOfBoundsException("no vertex with id " + source);
+        }
+        long[] distances = new long[n];
+        Arrays.fill(distances, -1);
+        distances[source] = 0;
+        IndexedHeap queue = new IndexedHeap(n, distances);
+        queue.offer(source);
+        while (!queue.isEmpty()) {
+            int v = queue.poll();
+            long distance = distances[v];
+            for (int i = graph.outStart(v); i < graph.outEnd(v); i++) {
+                int t = graph.outTarget(i);
+                long candidate = distance + graph.outWeight(i);
+                if (distances[t] < 0) {
+                    distances[t] = candidate;
+                    queue.offer(t);
+                } else if (candidate < distances[t] && queue.contains(t)) {
+                    distances[t] = candidate;
+                    queue.decreased(t);
+                }
+            }
+        }
+        return distances;
+    }
+
+    /**
+     * A binary min-heap of vertex ids keyed by their entries in a shared
+     * distance array, with the position of each id kept so it can be moved
+     * up in place when its distance decreases.
+     */
+    private static final class IndexedHeap {
+
+        private final int[] heap;
+        private final int[] position;
+        private final long[] keys;
+        private int size;
+
+        // Abstraction function:
+        //   AF(heap, size, keys) = the set of ids heap[0..size), ordered by keys[id]
+        // Representation invariant:
+        //   - keys[heap[(i - 1) / 2]] <= keys[heap[i]] for 0 < i < size.
+        //   - position[heap[i]] == i for 0 <= i < size; position[v] == -1 for ids not in
+        //     the heap.
+        // Safety from rep exposure:
+        //   - heap and position are private; keys is shared with the owning search, which
+        //     only decreases the key of a queued id and then calls decreased.
+
+        IndexedHeap(int capacity, long[] keys) {
+            this.heap = new int[capacity];
+            this.position = new int[capacity];
+            Arrays.fill(position, -1);
+            this.keys = keys;
+        }
+
+        boolean isEmpty() {
+            return size == 0;
+        }
+
+        boolean contains(int id) {
+            return position[id] >= 0;
+        }
+
+        /**
+         * Add an id that is not in the heap and has never been in it.
+         */
+        void offer(int id) {
+            heap[size] = id;
+            position[id] = size;
+            siftUp(size++);
+        }
+
+        /**
+         * Remove and return an id with the smallest key.
+         */
+        int poll() {
+            int top = heap[0];
+            position[top] = -1;
+            size--;
+            if (size > 0) {
+                heap[0] = heap[size];
+                position[heap[0]] = 0;
+                siftDown(0);
+            }
+            return top;
+        }
+
+        /**
+         * Restore the heap order after the key of a queued id decreased.
+         */
+        void decreased(int id) {
+            siftUp(position[id]);
+        }
+
+        private void siftUp(int i) {
+            int id = heap[i];
+            long key = keys[id];
+            while (i > 0) {
+                int parent = (i - 1) >>> 1;
+                if (keys[heap[parent]] <= key) {
+                    break;
+                }
+                place(heap[parent], i);
+                i = parent;
+            }
+            place(id, i);
+        }
+
+        private void siftDown(int i) {
+            int id = heap[i];
+            long key = keys[id];
+            while (true) {
+                int child = 2 * i + 1;
+                if (child >= size) {
+                    break;
+                }
+                if (child + 1 < size && keys[heap[child + 1]] < keys[heap[child]]) {
+                    child++;
+                }
+                if (key <= keys[heap[child]]) {
+                    break;
+                }
+                place(heap[child], i);
+                i = child;
+            }
+            place(id, i);
+        }
+
+        private void place(int id, int i) {
+            heap[i] = id;
+            position[id] = i;
+        }
+    }
+}
@@ -0,0 +1,132 @@
+/* Copyright (c) 2015-2016 MIT 6.005 course staff, all rights reserved.
+ * Redistribution of original or derived work requires permission of course staff.
+ */
+package poet;
+
+import graph.FrozenGraph;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Parallel reading of a corpus into a GraphPoet affinity graph.
+ *
+ * <p>The file is split into one byte range per worker, each boundary moved
+ * forward to the next whitespace byte so that no word is cut. Whitespace is
+ * ASCII, and in UTF-8 an ASCII byte is never part of a longer character, so
+ * the boundaries are found without decoding. Each worker scans its range
+ * with a {@link MappedCorpus} of its own, which keeps its own dictionary of
+ * word ids and counts its bigrams on those ids. The partial counts are then
+ * merged in file order, translating ids through the dictionaries and adding
+ * the bigram that spans each boundary: the last word of one range followed
+ * by the first word of the next range that has any.
+ *
+ * <p>The result is the graph GraphPoet(File) builds, with the same ids.
+ */
+final class ChunkedCorpus {
+
+    private ChunkedCorpus() {
+        throw new AssertionError("uninstantiable");
+    }
+
+    /**
+     * Read a corpus with several threads.
+     *
+     * @param corpus UTF-8 text file to read
+     * @param workers number of threads to read with, >= 1
+     * @return the affinity graph of corpus, as described in GraphPoet
+     * @throws IOException if the corpus cannot be found or read, or is not
+     *                     valid UTF-8
+     */
+    static FrozenGraph<String> read(Path corpus, int workers) throws IOException {
+        if (workers < 1) {
+            throw new IllegalArgumentException("workers must be positive: " + workers);
+        }
+        try (FileChannel channel = FileChannel.open(corpus, StandardOpenOption.READ)) {
+            long size = channel.size();
+            long[] bounds = new long[workers + 1];
+            bounds[workers] = size;
+            for (int k = 1; k < workers; k++) {
+                bounds[k] = nextWhitespace(channel, Math.max(bounds[k - 1], size / workers * k), size);
+            }
+            ExecutorService pool = Executors.newFixedThreadPool(workers);
+            try {
+                List<Future<MappedCorpus>> parts = new ArrayList<>();
+                for (int k = 0; k < workers; k++) {
+                    long start = bounds[k];
+                    long end = bounds[k + 1];
+                    parts.add(pool.submit(() -> {
+                        MappedCorpus part = new MappedCorpus();
+                        part.scan(channel, start, end);
+                        return part;
+                    }));
+                }
+                // Each part is only read here, after get() has waited for its worker
+                MappedCorpus merged = new MappedCorpus();
+                for (Future<MappedCorpus> part : parts) {
+                    merged.merge(get(part));
+                }
+                return merged.toGraph();
+            } finally {
+                pool.shutdownNow();
+            }
+        }
+    }
+
+    /**
+     * @return the position of the first whitespace byte at or after position,
+     *         or size if there is none
+     */
+    private static long nextWhitespace(FileChannel channel, long position, long size) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(256);
+        while (position < size) {
+            buffer.clear();
+            int read = channel.read(buffer, position);
+            if (read < 0) {
+                return size;
+            }
+            for (int i = 0; i < read; i++) {
+                if (isWhitespace(buffer.get(i))) {
+                    return position + i;
+                }
+            }
+            position += read;
+        }
+        return size;
+    }
+
+    /**
+     * @return true iff b is a whitespace character matched by the regex \s,
+     *         the characters that separate words in GraphPoet
+     */
+    private static boolean isWhitespace(byte b) {
+        return b == ' ' || ('\t' <= b && b <= '\r');
+    }
+
+    private static MappedCorpus get(Future<MappedCorpus> future) throws IOException {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("interrupted while reading corpus");
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof IOException) {
+                throw (IOException) cause;
+            }
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            throw (Error) cause;
+        }
+    }
+}
@@ -3,13 +3,12 @@
  */
 package poet;
 
-import graph.ConcreteEdgesGraph;
-import graph.Graph;
+import graph.FrozenGraph;
+import graph.RepCheck;
 import java.io.File;
 import java.io.IOException;
-import java.nio.file.Files;
-import java.util.List;
-import java.util.Map;
+import java.nio.file.Path;
+import java.util.Arrays;
 
 /**
  * A graph-based poetry generator.
@@ -55,12 +54,15 @@ import java.util.Map;
  */
 public class GraphPoet {
     
-    private final Graph<String> graph;
+    private final FrozenGraph<String> graph;
     
     // Abstraction function:
     //   AF(graph) = A word affinity graph where each vertex represents a unique, 
     //   case-insensitive word from the corpus, and each directed edge (w1 -> w2) 
     //   has a weight equal to the number of times word w2 follows word w1 in the corpus.
+    //   The graph is stored on dense int word ids: graph.label(id) is the dictionary
+    //   from ids to words, and the edges are rows of ids. Words are looked up once per
+    //   input word and translated back only for the output.
     //
     // Representation invariant:
     //   - All vertices in the graph are non-empty, lowercase strings.
@@ -68,7 +70,7 @@ public class GraphPoet {
     //   - The graph accurately reflects the adjacency counts of words in the corpus.
     //
     // Safety from rep exposure:
-    //   - The graph is declared as private and final, preventing external modification.
+    //   - The graph is declared as private and final, and is an immutable FrozenGraph.
     //   - All methods that expose parts of the graph return copies or immutable views.
     //   - The class does not provide any methods that allow external entities to modify
     //     the internal graph directly.
@@ -85,37 +87,77 @@ public class GraphPoet {
         // Count the number of times each word follows another
         // Add the counts as edge weights to the graph
         // Also convert words to lowercase
-        this.graph = new ConcreteEdgesGraph();
-        List<String> words = Files.lines(corpus.toPath())
-                .flatMap(line -> List.of(line.split("\\s+")).stream())
-                .map(String::toLowerCase)
-                .toList();
-        for (int i = 0; i < words.size() - 1; i++) {
-            String source = words.get(i);
-            String target = words.get(i + 1);
-            // Get previous weight
-            int weight = graph.targets(source).getOrDefault(target, 0) + 1;
-            // Set the weight
-            graph.set(source, target, weight);
-        }
+        // The file is memory-mapped and scanned byte by byte, so memory grows with the
+        // vocabulary and not the corpus, and a word allocates only the first time its
+        // spelling appears
+        this.graph = MappedCorpus.read(corpus.toPath());
         checkRep();
     }
     
+    /**
+     * Create a new poet with the graph from corpus, as
+     * {@link #GraphPoet(File)} does, reading the corpus with several threads.
+     * Each thread counts the bigrams of its own part of the file, so reading
+     * speeds up with the number of threads until the disk is the bottleneck.
+     * 
+     * @param corpus UTF-8 text file from which to derive the poet's affinity graph
+     * @param workers number of threads to read the corpus with, >= 1
+     * @return a poet with the same affinity graph as new GraphPoet(corpus)
+     * @throws IOException if the corpus file cannot be found or read
+     */
+    public static GraphPoet parallel(File corpus, int workers) throws IOException {
+        return new GraphPoet(ChunkedCorpus.read(corpus.toPath(), workers));
+    }
+    
+    /**
+     * Create a poet from an affinity graph that was already built.
+     * 
+     * @param graph affinity graph satisfying the rep invariant
+     */
+    private GraphPoet(FrozenGraph<String> graph) {
+        this.graph = graph;
+        checkRep();
+    }
+    
+    /**
+     * Load a poet saved by {@link #save(Path)}, without re-reading its corpus.
+     * 
+     * @param model file written by save
+     * @return a poet with the same affinity graph as the poet that was saved
+     * @throws IOException if the file cannot be read or is not a valid model file
+     */
+    public static GraphPoet load(Path model) throws IOException {
+        return new GraphPoet(ModelFile.read(model));
+    }
+    
+    /**
+     * Save this poet's affinity graph in a compact versioned binary format,
+     * replacing any existing file. {@link #load(Path)} reads it back.
+     * 
+     * @param model file to write
+     * @throws IOException if the file cannot be written
+     */
+    public void save(Path model) throws IOException {
+        ModelFile.write(graph, model);
+    }
+    
     // TODO checkRep
     /**
      * Checks the representation invariant of the class.
      * @throws AssertionError if the representation invariant is violated.
      */
     private void checkRep() {
+        if (!RepCheck.enabled()) {
+            return;
+        }
         // The graph should have only positive edge weights
-        for (String vertex : graph.vertices()) {
-            for (String target : graph.targets(vertex).keySet()) {
-                assert graph.targets(vertex).get(target) > 0;
-            }
+        for (int position = 0; position < graph.edgeCount(); position++) {
+            assert graph.outWeight(position) > 0;
         }
         // All vertices should be lowercase, and not contain white space(i.e. tab, space or newline)
         // vertices should not be empty
-        for (String vertex : graph.vertices()) {
+        for (int id = 0; id < graph.vertexCount(); id++) {
+            String vertex = graph.label(id);
             assert vertex.equals(vertex.toLowerCase());
             assert !vertex.contains(" ");
             assert !vertex.contains("\t");
@@ -131,41 +173,69 @@ public class GraphPoet {
      * @return poem (as described above)
      */
     public String poem(String input) {
-        // Separate the input into words
-        // For each pair of adjacent words, find the bridge word with the highest weight
-        // Insert the bridge word between the adjacent words
-        // Return the poem
-        String[] words = input.split("\\s+");
-        StringBuilder poem = new StringBuilder();
-        for (int i = 0; i < words.length - 1; i++) {
-            String source = words[i].toLowerCase();
-            String target = words[i + 1].toLowerCase();
-            // Find the bridge word with the maximum combined weight
-            String bestBridge = null;
-            int maxWeight = 0;
-
-            for (Map.Entry<String, Integer> entry : graph.targets(source).entrySet()) {
-                String bridge = entry.getKey();
-                int sourceToBridgeWeight = entry.getValue();
-                int bridgeToTargetWeight = graph.targets(bridge).getOrDefault(target, 0);
-
-                int combinedWeight = sourceToBridgeWeight + bridgeToTargetWeight;
-                if (bridgeToTargetWeight > 0 && combinedWeight > maxWeight) {
-                    bestBridge = bridge;
-                    maxWeight = combinedWeight;
+        // Separate the input into words in one pass, recording where each word starts
+        // and ends in input rather than copying it out
+        int[] starts = new int[16];
+        int[] ends = new int[16];
+        int count = 0;
+        int length = input.length();
+        for (int i = 0; i < length; ) {
+            while (i < length && isWhitespace(input.charAt(i))) {
+                i++;
+            }
+            if (i == length) {
+                break;
+            }
+            if (count == starts.length) {
+                starts = Arrays.copyOf(starts, 2 * count);
+                ends = Arrays.copyOf(ends, 2 * count);
+            }
+            starts[count] = i;
+            while (i < length && !isWhitespace(input.charAt(i))) {
+                i++;
+            }
+            ends[count++] = i;
+        }
+        
+        // For each pair of adjacent words, find the bridge word with the highest weight;
+        // each word is lowercased and looked up once, as a target and then as a source
+        String[] bridges = new String[count];
+        int capacity = Math.max(0, count - 1);
+        int previous = -1;
+        for (int k = 0; k < count; k++) {
+            int word = graph.idOf(input.substring(starts[k], ends[k]).toLowerCase());
+            if (previous >= 0 && word >= 0) {
+                long path = graph.bestTwoHop(previous, word);
+                if (path != FrozenGraph.NO_TWO_HOP) {
+                    bridges[k - 1] = graph.label(FrozenGraph.twoHopBridge(path));
+                    capacity += bridges[k - 1].length() + 1;
                 }
             }
-
-            // Append the source word and the bridge word (if found) to the poem
-            poem.append(words[i]).append(" ");
-            if (bestBridge != null) {
-                poem.append(bestBridge).append(" ");
+            capacity += ends[k] - starts[k];
+            previous = word;
+        }
+        
+        // Insert the bridge words between the adjacent words, into a builder of
+        // exactly the poem's length
+        StringBuilder poem = new StringBuilder(capacity);
+        for (int k = 0; k < count; k++) {
+            if (k > 0) {
+                poem.append(' ');
+            }
+            poem.append(input, starts[k], ends[k]);
+            if (bridges[k] != null) {
+                poem.append(' ').append(bridges[k]);
             }
         }
-
-        // Append the last word to the poem
-        poem.append(words[words.length - 1]);
-        return poem.toString().trim();
+        return poem.toString();
+    }
+    
+    /**
+     * @return true iff c is a whitespace character matched by the regex \s,
+     *         the characters that separate words
+     */
+    private static boolean isWhitespace(char c) {
+        return c == ' ' || ('\t' <= c && c <= '\r');
     }
     
     // TODO toString()
@@ -173,10 +243,15 @@ public class GraphPoet {
     public String toString() {
         StringBuilder sb = new StringBuilder();
         sb.append("GraphPoet Affinity Graph:\n");
-        for (String vertex : graph.vertices()) {
-            sb.append(vertex).append(" -> ");
-            sb.append(graph.targets(vertex).toString());
-            sb.append("\n");
+        for (int id = 0; id < graph.vertexCount(); id++) {
+            sb.append(graph.label(id)).append(" -> {");
+            for (int position = graph.outStart(id); position < graph.outEnd(id); position++) {
+                if (position > graph.outStart(id)) {
+                    sb.append(", ");
+                }
+                sb.append(graph.label(graph.outTarget(position))).append('=').append(graph.outWeight(position));
+            }
+            sb.append("}\n");
         }
         return sb.toString();
     }
@@ -0,0 +1,412 @@
+/* Copyright (c) 2015-2016 MIT 6.005 course staff, all rights reserved.
+ * Redistribution of original or derived work requires permission of course staff.
+ */
+package poet;
+
+import graph.FrozenGraph;
+import graph.RepCheck;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A corpus reader that scans the bytes of a memory-mapped file.
+ *
+ * <p>Words are runs of bytes other than the ASCII whitespace matched by the
+ * regex \s, which in UTF-8 never occurs inside a longer character. ASCII
+ * letters are folded to lower case as they are scanned, and each word is
+ * looked up by its folded bytes in a table of the spellings seen so far, so
+ * a word costs no allocation once its spelling has been seen. Only a new
+ * spelling is decoded, lower-cased in full and mapped to the id of its word;
+ * spellings that differ only in the case of non-ASCII letters share an id.
+ *
+ * <p>Words are interned into a dense int-id dictionary, bigrams are counted
+ * on pairs of word ids, and the counts become the rows of a FrozenGraph
+ * whose ids follow first appearance in the file, as with GraphBuilder.
+ * Several readers can scan consecutive ranges of a file independently and
+ * be merged in file order, translating ids through their dictionaries.
+ *
+ * <p>A reader is not safe for use by several threads at once.
+ */
+final class MappedCorpus {
+
+    /** Bytes mapped at a time; a word may span two mappings. */
+    private static final int MAP_SIZE = 1 << 30;
+    /** Bytes copied from the mapping at a time, and scanned as an array. */
+    private static final int BLOCK_SIZE = 1 << 16;
+    private static final int EMPTY = -1;
+    private static final long NO_BIGRAM = -1L;
+
+    private final CharsetDecoder decoder = StandardCharsets.UTF_8.newDecoder();
+    private final List<String> labels = new ArrayList<>();
+    private final Map<String, Integer> labelIds = new HashMap<>();
+
+    // Spellings: folded bytes arena[spellingStart[s] .. spellingStart[s + 1]) with hash
+    // spellingHash[s] belong to word spellingWord[s]; slots is an open-addressed table of
+    // spelling indices, EMPTY where unused
+    private byte[] arena = new byte[1 << 12];
+    private int[] spellingStart = new int[65];
+    private int[] spellingHash = new int[64];
+    private int[] spellingWord = new int[64];
+    private int spellings;
+    private int[] slots = emptySlots(128);
+
+    // Bigrams: open-addressed table from packed (previous id, word id) keys to counts
+    private long[] bigrams = emptyBigrams(256);
+    private int[] counts = new int[256];
+    private int bigramCount;
+
+    // First and last word scanned or merged, EMPTY if there are none yet
+    private int firstWord = EMPTY;
+    private int lastWord = EMPTY;
+
+    // Abstraction function:
+    //   AF(labels, bigrams, counts) = the affinity graph whose vertices are the words in
+    //     labels, with an edge of weight counts[i] from labels[bigrams[i] >>> 32] to
+    //     labels[(int) bigrams[i]] for every slot i with bigrams[i] != NO_BIGRAM
+    //   The spelling table and labelIds are caches that add nothing to the abstract value.
+    // Representation invariant:
+    //   - labels are distinct, non-empty and lower case; labelIds maps labels[i] to i.
+    //   - spellingStart[0] == 0 and is nondecreasing up to spellingStart[spellings] <= arena.length;
+    //     the spellings are distinct, and spelling s decodes and lower-cases to
+    //     labels[spellingWord[s]].
+    //   - slots.length is a power of two greater than 2 * spellings; each spelling is in
+    //     exactly one slot, reachable by linear probing from its hash.
+    //   - bigrams.length == counts.length is a power of two greater than 2 * bigramCount;
+    //     bigramCount slots hold distinct keys of ids in [0, labels.size()), each with a
+    //     count > 0 and reachable by linear probing from its hash.
+    //   - firstWord and lastWord are both EMPTY, or both ids in [0, labels.size()).
+    // Safety from rep exposure:
+    //   - Instances never leave this package, and no field is returned; toGraph returns
+    //     a new FrozenGraph and merge only reads the other reader.
+
+    /**
+     * Create a reader that has read no words.
+     */
+    MappedCorpus() {
+    }
+
+    /**
+     * Read a corpus.
+     *
+     * @param corpus UTF-8 text file to read
+     * @return the affinity graph of corpus, as described in GraphPoet
+     * @throws IOException if the corpus cannot be found or read, or is not
+     *                     valid UTF-8
+     */
+    static FrozenGraph<String> read(Path corpus) throws IOException {
+        MappedCorpus reader = new MappedCorpus();
+        try (FileChannel channel = FileChannel.open(corpus, StandardOpenOption.READ)) {
+            reader.scan(channel, 0, channel.size());
+        }
+        return reader.toGraph();
+    }
+
+    /**
+     * Count the bigrams of every word in a range of a file, following the
+     * words read so far, mapping the range a piece at a time and copying each
+     * piece into a block in bulk. Words are folded in place in the block; a
+     * word cut off at the end of the block is carried to the start of the
+     * next.
+     *
+     * @param channel file to read
+     * @param start position of the first byte to read, the start of the file
+     *              or of a word, or whitespace
+     * @param end position after the last byte to read, the end of the file
+     *            or of a word, or whitespace
+     * @throws IOException if the file cannot be read or a word in the range
+     *                     is not valid UTF-8
+     */
+    void scan(FileChannel channel, long start, long end) throws IOException {
+        byte[] block = new byte[BLOCK_SIZE];
+        int carry = 0;
+        int hash = 0;
+        for (long position = start; position < end; position += MAP_SIZE) {
+            int mapped = (int) Math.min(MAP_SIZE, end - position);
+            MappedByteBuffer bytes = channel.map(FileChannel.MapMode.READ_ONLY, position, mapped);
+            for (int offset = 0; offset < mapped; ) {
+                int read = Math.min(block.length - carry, mapped - offset);
+                bytes.get(offset, block, carry, read);
+                offset += read;
+                int filled = carry + read;
+                int wordStart = 0;
+                for (int i = carry; i < filled; i++) {
+                    byte b = block[i];
+                    if (b == ' ' || ('\t' <= b && b <= '\r')) {
+                        if (i > wordStart) {
+                            addWord(block, wordStart, i - wordStart, hash);
+                            hash = 0;
+                        }
+                        wordStart = i + 1;
+                        continue;
+                    }
+                    if ('A' <= b && b <= 'Z') {
+                        b += 'a' - 'A';
+                        block[i] = b;
+                    }
+                    hash = 31 * hash + b;
+                }
+                carry = filled - wordStart;
+                if (carry == block.length) {
+                    // one word fills the whole block
+                    block = Arrays.copyOf(block, 2 * block.length);
+                } else {
+                    System.arraycopy(block, wordStart, block, 0, carry);
+                }
+            }
+        }
+        if (carry > 0) {
+            addWord(block, 0, carry, hash);
+        }
+    }
+
+    /**
+     * Add a word, and the bigram from the previous word if there is one.
+     */
+    private void addWord(byte[] bytes, int from, int length, int hash) throws IOException {
+        follow(wordId(bytes, from, length, hash));
+    }
+
+    /**
+     * Make a word the last word, counting the bigram from the previous last
+     * word if there is one.
+     */
+    private void follow(int id) {
+        if (lastWord == EMPTY) {
+            firstWord = id;
+        } else {
+            countBigram(((long) lastWord << 32) | id, 1);
+        }
+        lastWord = id;
+    }
+
+    /**
+     * Add the words and bigrams read by another reader, as if this reader
+     * had gone on to read them itself: the first word of other follows the
+     * last word of this reader.
+     *
+     * @param other a reader of the text that follows the text read by this
+     *              one, not modified
+     */
+    void merge(MappedCorpus other) {
+        int[] ids = new int[other.labels.size()];
+        for (int i = 0; i < ids.length; i++) {
+            ids[i] = intern(other.labels.get(i));
+        }
+        for (int i = 0; i < other.bigrams.length; i++) {
+            long key = other.bigrams[i];
+            if (key != NO_BIGRAM) {
+                countBigram(((long) ids[(int) (key >>> 32)] << 32) | ids[(int) key], other.counts[i]);
+            }
+        }
+        if (other.firstWord != EMPTY) {
+            follow(ids[other.firstWord]);
+            lastWord = ids[other.lastWord];
+        }
+    }
+
+    /**
+     * @return the id of the word with folded bytes bytes[from..from + length),
+     *         adding the spelling, and the word if it is new
+     * @throws IOException if the bytes of a new spelling are not valid UTF-8
+     */
+    private int wordId(byte[] bytes, int from, int length, int hash) throws IOException {
+        int mask = slots.length - 1;
+        int slot = mix(hash) & mask;
+        for (int s; (s = slots[slot]) != EMPTY; slot = (slot + 1) & mask) {
+            if (spellingHash[s] == hash
+                    && Arrays.equals(arena, spellingStart[s], spellingStart[s + 1], bytes, from, from + length)) {
+                return spellingWord[s];
+            }
+        }
+        String label = decoder.decode(ByteBuffer.wrap(bytes, from, length)).toString().toLowerCase();
+        int id = intern(label);
+        addSpelling(slot, bytes, from, length, hash, id);
+        return id;
+    }
+
+    /**
+     * @return the id of a word, adding it to the dictionary if it is new
+     */
+    private int intern(String label) {
+        Integer id = labelIds.get(label);
+        if (id == null) {
+            id = labels.size();
+            labels.add(label);
+            labelIds.put(label, id);
+        }
+        return id;
+    }
+
+    private void addSpelling(int slot, byte[] bytes, int from, int length, int hash, int id) {
+        int start = spellingStart[spellings];
+        if (start + length > arena.length) {
+            arena = Arrays.copyOf(arena, Math.max(2 * arena.length, start + length));
+        }
+        System.arraycopy(bytes, from, arena, start, length);
+        if (spellings + 1 == spellingHash.length) {
+            spellingStart = Arrays.copyOf(spellingStart, 2 * spellingStart.length);
+            spellingHash = Arrays.copyOf(spellingHash, 2 * spellingHash.length);
+            spellingWord = Arrays.copyOf(spellingWord, 2 * spellingWord.length);
+        }
+        spellingHash[spellings] = hash;
+        spellingWord[spellings] = id;
+        slots[slot] = spellings;
+        spellingStart[++spellings] = start + length;
+        if (2 * spellings >= slots.length) {
+            slots = emptySlots(2 * slots.length);
+            int mask = slots.length - 1;
+            for (int s = 0; s < spellings; s++) {
+                int i = mix(spellingHash[s]) & mask;
+                while (slots[i] != EMPTY) {
+                    i = (i + 1) & mask;
+                }
+                slots[i] = s;
+            }
+        }
+    }
+
+    private void countBigram(long key, int count) {
+        int slot = bigramSlot(key);
+        if (bigrams[slot] == key) {
+            counts[slot] = Math.addExact(counts[slot], count);
+            return;
+        }
+        bigrams[slot] = key;
+        counts[slot] = count;
+        bigramCount++;
+        if (bigramCount * 2 >= bigrams.length) {
+            rehashBigrams(bigrams.length * 2);
+        }
+    }
+
+    /**
+     * @return the slot holding key, or the empty slot where it would go
+     */
+    private int bigramSlot(long key) {
+        int mask = bigrams.length - 1;
+        long h = key * 0x9E3779B97F4A7C15L;
+        int i = (int) (h ^ (h >>> 32)) & mask;
+        while (bigrams[i] != NO_BIGRAM && bigrams[i] != key) {
+            i = (i + 1) & mask;
+        }
+        return i;
+    }
+
+    private void rehashBigrams(int capacity) {
+        long[] oldBigrams = bigrams;
+        int[] oldCounts = counts;
+        bigrams = emptyBigrams(capacity);
+        counts = new int[capacity];
+        for (int i = 0; i < oldBigrams.length; i++) {
+            if (oldBigrams[i] != NO_BIGRAM) {
+                int slot = bigramSlot(oldBigrams[i]);
+                bigrams[slot] = oldBigrams[i];
+                counts[slot] = oldCounts[i];
+            }
+        }
+    }
+
+    /**
+     * Check the representation invariant, at the audit RepCheck level: it
+     * decodes every spelling again.
+     * @throws AssertionError if the representation invariant is violated
+     */
+    private void checkRep() {
+        if (!RepCheck.audit()) {
+            return;
+        }
+        int n = labels.size();
+        assert labelIds.size() == n : "Labels not distinct";
+        for (int id = 0; id < n; id++) {
+            assert labelIds.get(labels.get(id)) == id : "Label ids out of sync";
+        }
+        assert 2 * spellings < slots.length && Integer.bitCount(slots.length) == 1 : "Bad spelling table";
+        int live = 0;
+        for (int s : slots) {
+            if (s != EMPTY) {
+                live++;
+                String label = StandardCharsets.UTF_8.decode(ByteBuffer.wrap(arena, spellingStart[s],
+                        spellingStart[s + 1] - spellingStart[s])).toString().toLowerCase();
+                assert label.equals(labels.get(spellingWord[s])) : "Spelling maps to wrong word";
+            }
+        }
+        assert live == spellings : "Spelling count out of sync";
+        assert 2 * bigramCount < bigrams.length && Integer.bitCount(bigrams.length) == 1 : "Bad bigram table";
+        live = 0;
+        for (int i = 0; i < bigrams.length; i++) {
+            if (bigrams[i] != NO_BIGRAM) {
+                live++;
+                int previous = (int) (bigrams[i] >>> 32);
+                int word = (int) bigrams[i];
+                assert 0 <= previous && previous < n && 0 <= word && word < n : "Id out of range";
+                assert counts[i] > 0 : "Count must be positive";
+                assert bigramSlot(bigrams[i]) == i : "Bigram not reachable from its home slot";
+            }
+        }
+        assert live == bigramCount : "Bigram count out of sync";
+        assert (firstWord == EMPTY) == (lastWord == EMPTY) : "First and last words out of sync";
+        assert firstWord < n && lastWord < n : "Id out of range";
+    }
+
+    /**
+     * @return the affinity graph of the words and bigrams read
+     */
+    FrozenGraph<String> toGraph() {
+        checkRep();
+        int n = labels.size();
+        int[] offsets = new int[n + 1];
+        for (long key : bigrams) {
+            if (key != NO_BIGRAM) {
+                offsets[(int) (key >>> 32) + 1]++;
+            }
+        }
+        for (int v = 0; v < n; v++) {
+            offsets[v + 1] += offsets[v];
+        }
+        // Each row packs (target, count) so that sorting it sorts by target
+        long[] edges = new long[bigramCount];
+        int[] cursor = Arrays.copyOf(offsets, n);
+        for (int i = 0; i < bigrams.length; i++) {
+            if (bigrams[i] != NO_BIGRAM) {
+                edges[cursor[(int) (bigrams[i] >>> 32)]++] = (bigrams[i] << 32) | counts[i];
+            }
+        }
+        int[] targets = new int[bigramCount];
+        int[] weights = new int[bigramCount];
+        for (int v = 0; v < n; v++) {
+            Arrays.sort(edges, offsets[v], offsets[v + 1]);
+        }
+        for (int i = 0; i < bigramCount; i++) {
+            targets[i] = (int) (edges[i] >>> 32);
+            weights[i] = (int) edges[i];
+        }
+        return FrozenGraph.fromRows(labels, offsets, targets, weights);
+    }
+
+    private static int mix(int hash) {
+        return hash ^ (hash >>> 16);
+    }
+
+    private static int[] emptySlots(int size) {
+        int[] slots = new int[size];
+        Arrays.fill(slots, EMPTY);
+        return slots;
+    }
+
+    private static long[] emptyBigrams(int size) {
+        long[] bigrams = new long[size];
+        Arrays.fill(bigrams, NO_BIGRAM);
+        return bigrams;
+    }
+}
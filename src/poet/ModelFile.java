@@ -0,0 +1,162 @@
+/* Copyright (c) 2015-2016 MIT 6.005 course staff, all rights reserved.
+ * Redistribution of original or derived work requires permission of course staff.
+ */
+package poet;
+
+import graph.FrozenGraph;
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * The binary file format of a trained GraphPoet affinity graph.
+ *
+ * <p>Layout, fixed-width integers big-endian and varints unsigned LEB128:
+ * <pre>
+ *   int magic "GPOE", int version
+ *   varint n, then n words, each a varint byte count and its UTF-8 bytes
+ *   for each word in order: varint out-degree d, then d edges, each
+ *     varint gap (target id minus previous target id minus 1, the previous
+ *     target id starting at -1) and varint weight
+ * </pre>
+ * A word's id is its position in the dictionary. Targets within a row are
+ * increasing, so the gaps are small and most fit in one byte.
+ */
+final class ModelFile {
+
+    static final int MAGIC = 0x47504F45; // "GPOE"
+    static final int VERSION = 1;
+
+    private ModelFile() {
+        throw new AssertionError("uninstantiable");
+    }
+
+    /**
+     * Write an affinity graph to a file, replacing any existing file.
+     *
+     * @param graph the graph to write
+     * @param file the file to write
+     * @throws IOException if the file cannot be written
+     */
+    static void write(FrozenGraph<String> graph, Path file) throws IOException {
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(file), 1 << 16))) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            writeVarint(out, graph.vertexCount());
+            for (int v = 0; v < graph.vertexCount(); v++) {
+                byte[] word = graph.label(v).getBytes(StandardCharsets.UTF_8);
+                writeVarint(out, word.length);
+                out.write(word);
+            }
+            for (int v = 0; v < graph.vertexCount(); v++) {
+                writeVarint(out, graph.outEnd(v) - graph.outStart(v));
+                int previous = -1;
+                for (int i = graph.outStart(v); i < graph.outEnd(v); i++) {
+                    writeVarint(out, graph.outTarget(i) - previous - 1);
+                    writeVarint(out, graph.outWeight(i));
+                    previous = graph.outTarget(i);
+                }
+            }
+        }
+    }
+
+    /**
+     * Read an affinity graph written by {@link #write(FrozenGraph, Path)}.
+     *
+     * @param file the file to read
+     * @return the graph stored in file
+     * @throws IOException if the file cannot be read or is not a valid model file
+     */
+    static FrozenGraph<String> read(Path file) throws IOException {
+        ByteBuffer in = ByteBuffer.wrap(Files.readAllBytes(file));
+        try {
+            if (in.remaining() < 2 * Integer.BYTES || in.getInt() != MAGIC) {
+                throw new IOException("not a GraphPoet model file: " + file);
+            }
+            int version = in.getInt();
+            if (version != VERSION) {
+                throw new IOException("unsupported GraphPoet model version " + version + ": " + file);
+            }
+            int n = readVarint(in);
+            if (n > in.remaining()) {
+                throw new BufferUnderflowException();
+            }
+            List<String> words = new ArrayList<>(n);
+            for (int v = 0; v < n; v++) {
+                int length = readVarint(in);
+                if (length > in.remaining()) {
+                    throw new BufferUnderflowException();
+                }
+                words.add(new String(in.array(), in.position(), length, StandardCharsets.UTF_8));
+                in.position(in.position() + length);
+            }
+            int[] offsets = new int[n + 1];
+            int[] targets = new int[Math.max(16, n)];
+            int[] weights = new int[targets.length];
+            int edges = 0;
+            for (int v = 0; v < n; v++) {
+                int degree = readVarint(in);
+                if (degree > in.remaining()) {
+                    throw new BufferUnderflowException();
+                }
+                if (edges + degree > targets.length) {
+                    int capacity = Math.max(targets.length * 2, edges + degree);
+                    targets = Arrays.copyOf(targets, capacity);
+                    weights = Arrays.copyOf(weights, capacity);
+                }
+                int previous = -1;
+                for (int i = 0; i < degree; i++) {
+                    previous += readVarint(in) + 1;
+                    targets[edges] = previous;
+                    weights[edges] = readVarint(in);
+                    edges++;
+                }
+                offsets[v + 1] = edges;
+            }
+            if (in.hasRemaining()) {
+                throw new IOException("trailing data in GraphPoet model file: " + file);
+            }
+            return FrozenGraph.fromRows(words, offsets,
+                    Arrays.copyOf(targets, edges), Arrays.copyOf(weights, edges));
+        } catch (BufferUnderflowException | IllegalArgumentException e) {
+            throw new IOException("corrupt GraphPoet model file: " + file, e);
+        }
+    }
+
+    private static void writeVarint(OutputStream out, int value) throws IOException {
+        while ((value & ~0x7f) != 0) {
+            out.write((value & 0x7f) | 0x80);
+            value >>>= 7;
+        }
+        out.write(value);
+    }
+
+    /**
+     * @return the nonnegative int encoded at the buffer's position
+     * @throws IllegalArgumentException if the encoding is longer than five
+     *         bytes or the value is negative
+     */
+    private static int readVarint(ByteBuffer in) {
+        int value = 0;
+        for (int shift = 0; shift < 35; shift += 7) {
+            byte b = in.get();
+            value |= (b & 0x7f) << shift;
+            if (b >= 0) {
+                if (value < 0) {
+                    throw new IllegalArgumentException("negative varint");
+                }
+                return value;
+            }
+        }
+        throw new IllegalArgumentException("varint too long");
+    }
+}
@@ -5,6 +5,12 @@ package graph;
 
 import static org.junit.Assert.*;
 
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
 import org.junit.Test;
 
 /**
@@ -56,6 +62,82 @@ public class ConcreteEdgesGraphTest extends GraphInstanceTest {
     }
 
 
+    // Testing strategy for ConcreteEdgesGraph.edges()
+    //   empty graph, edges in insertion order, edge updated and removed, parallel stream
+    @Test
+    public void testConcreteEdgesGraphEdges() {
+        ConcreteEdgesGraph graph = new ConcreteEdgesGraph();
+        assertEquals(List.of(), graph.edges().collect(Collectors.toList()));
+
+        graph.add("lonely");
+        graph.set("a", "b", 1);
+        graph.set("b", "c", 2);
+        graph.set("c", "a", 3);
+        graph.set("a", "b", 4);
+        graph.remove("c");
+        graph.set("a", "a", 5);
+        assertEquals(List.of(new WeightedEdge<>("a", "b", 4), new WeightedEdge<>("a", "a", 5)),
+                graph.edges().collect(Collectors.toList()));
+
+        for (int i = 0; i < 1000; i++) {
+            graph.set("v" + i, "a", i + 1);
+        }
+        assertEquals(9 + 1000 * 1001 / 2, graph.edges().parallel().mapToInt(WeightedEdge::weight).sum());
+    }
+
+    // Testing strategy for ConcreteEdgesGraph.targetsView() and sourcesView()
+    //   vertex does not exist, vertex with no edges, vertex with edges
+    //   attempted modification through the view, including through an entry
+    //   iterating over the entries more than once
+    @Test
+    public void testConcreteEdgesGraphViews() {
+        ConcreteEdgesGraph graph = new ConcreteEdgesGraph();
+        assertEquals(Collections.emptyMap(), graph.targetsView("a"));
+        assertEquals(Collections.emptyMap(), graph.sourcesView("a"));
+
+        graph.add("a");
+        assertEquals(Collections.emptyMap(), graph.targetsView("a"));
+
+        graph.set("a", "b", 1);
+        graph.set("a", "c", 2);
+        graph.set("c", "b", 3);
+        assertEquals(Map.of("b", 1, "c", 2), graph.targetsView("a"));
+        assertEquals(Map.of("a", 1, "c", 3), graph.sourcesView("b"));
+        assertEquals(3, graph.targetsView("c").getOrDefault("b", 0).intValue());
+        assertEquals(0, graph.targetsView("c").getOrDefault("a", 0).intValue());
+        assertEquals(graph.targets("a"), graph.targetsView("a"));
+        assertEquals(graph.sources("b"), graph.sourcesView("b"));
+
+        try {
+            graph.targetsView("a").put("d", 4);
+            fail("expected view to be unmodifiable");
+        } catch (UnsupportedOperationException e) {
+            // expected
+        }
+        try {
+            graph.sourcesView("b").keySet().remove("a");
+            fail("expected view to be unmodifiable");
+        } catch (UnsupportedOperationException e) {
+            // expected
+        }
+        try {
+            graph.targetsView("a").entrySet().iterator().next().setValue(5);
+            fail("expected view to be unmodifiable");
+        } catch (UnsupportedOperationException e) {
+            // expected
+        }
+        assertEquals(Map.of("a", 1, "c", 3), graph.sources("b"));
+
+        // The entries belong to the edges, so a second pass sees the same objects
+        Map<String, Integer> targets = graph.targetsView("a");
+        Iterator<Map.Entry<String, Integer>> first = targets.entrySet().iterator();
+        Iterator<Map.Entry<String, Integer>> second = targets.entrySet().iterator();
+        while (first.hasNext()) {
+            assertTrue(first.next() == second.next());
+        }
+        assertEquals(Map.entry("b", 3), graph.targetsView("c").entrySet().iterator().next());
+    }
+
     /*
      * Testing Edge...
      */
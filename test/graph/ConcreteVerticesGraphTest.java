@@ -5,6 +5,14 @@ package graph;
 
 import static org.junit.Assert.*;
 
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.Spliterator;
+import java.util.stream.Collectors;
+
 import org.junit.Test;
 
 /**
@@ -56,6 +64,83 @@ public class ConcreteVerticesGraphTest extends GraphInstanceTest {
     }
 
 
+    // Testing strategy for ConcreteVerticesGraph.edges()
+    //   empty graph, vertex without edges, edges grouped by source, edge removed,
+    //   parallel stream, in order; split before and part way through a vertex's edges
+    @Test
+    public void testConcreteVerticesGraphEdges() {
+        ConcreteVerticesGraph graph = new ConcreteVerticesGraph();
+        assertEquals(List.of(), graph.edges().collect(Collectors.toList()));
+
+        graph.add("lonely");
+        graph.set("a", "b", 1);
+        graph.set("b", "c", 2);
+        graph.set("c", "a", 3);
+        graph.set("b", "c", 0);
+        assertEquals(Set.of(new WeightedEdge<>("a", "b", 1), new WeightedEdge<>("c", "a", 3)),
+                graph.edges().collect(Collectors.toSet()));
+
+        for (int i = 0; i < 1000; i++) {
+            graph.set("v" + i, "a", i + 1);
+        }
+        assertEquals(4 + 1000 * 1001 / 2, graph.edges().parallel().mapToInt(WeightedEdge::weight).sum());
+        assertEquals(graph.edges().collect(Collectors.toList()),
+                graph.edges().parallel().collect(Collectors.toList()));
+
+        Spliterator<WeightedEdge<String>> edges = graph.edges().spliterator();
+        Spliterator<WeightedEdge<String>> prefix = edges.trySplit();
+        List<WeightedEdge<String>> seen = new ArrayList<>();
+        if (prefix != null) {
+            prefix.forEachRemaining(seen::add);
+        }
+        edges.tryAdvance(seen::add);
+        edges.forEachRemaining(seen::add);
+        assertEquals(graph.edges().collect(Collectors.toList()), seen);
+
+        graph.set("a", "c", 2);
+        graph.set("a", "v0", 3);
+        edges = graph.edges().spliterator();
+        assertTrue(edges.tryAdvance(edge -> assertEquals("a", edge.source())));
+        assertNull(edges.trySplit());
+    }
+
+    // Testing strategy for ConcreteVerticesGraph.targetsView() and sourcesView()
+    //   vertex does not exist, vertex with no edges, vertex with edges
+    //   attempted modification through the view
+    @Test
+    public void testConcreteVerticesGraphViews() {
+        ConcreteVerticesGraph graph = new ConcreteVerticesGraph();
+        assertEquals(Collections.emptyMap(), graph.targetsView("a"));
+        assertEquals(Collections.emptyMap(), graph.sourcesView("a"));
+
+        graph.add("a");
+        assertEquals(Collections.emptyMap(), graph.targetsView("a"));
+
+        graph.set("a", "b", 1);
+        graph.set("a", "c", 2);
+        graph.set("c", "b", 3);
+        assertEquals(Map.of("b", 1, "c", 2), graph.targetsView("a"));
+        assertEquals(Map.of("a", 1, "c", 3), graph.sourcesView("b"));
+        assertEquals(3, graph.targetsView("c").getOrDefault("b", 0).intValue());
+        assertEquals(0, graph.targetsView("c").getOrDefault("a", 0).intValue());
+        assertEquals(graph.targets("a"), graph.targetsView("a"));
+        assertEquals(graph.sources("b"), graph.sourcesView("b"));
+
+        try {
+            graph.targetsView("a").put("d", 4);
+            fail("expected view to be unmodifiable");
+        } catch (UnsupportedOperationException e) {
+            // expected
+        }
+        try {
+            graph.sourcesView("b").keySet().remove("a");
+            fail("expected view to be unmodifiable");
+        } catch (UnsupportedOperationException e) {
+            // expected
+        }
+        assertEquals(Map.of("a", 1, "c", 3), graph.sources("b"));
+    }
+
     /*
      * Testing Vertex...
      */
@@ -107,6 +192,35 @@ public class ConcreteVerticesGraphTest extends GraphInstanceTest {
         assertFalse(vertex.getOutEdges().containsKey("c"));
     }
 
+    @Test
+    public void testVertexGetOutWeight() {
+        Vertex vertex = new Vertex("a");
+        assertEquals(0, vertex.getOutWeight("b"));
+
+        vertex.addOutEdge("b", 3);
+        assertEquals(3, vertex.getOutWeight("b"));
+
+        vertex.removeOutEdge("b");
+        assertEquals(0, vertex.getOutWeight("b"));
+    }
+
+    @Test
+    public void testVertexInEdges() {
+        Vertex vertex = new Vertex("a");
+        assertTrue(vertex.getInEdges().isEmpty());
+
+        vertex.addInEdge("b", 1);
+        vertex.addInEdge("c", 2);
+        assertEquals(Map.of("b", 1, "c", 2), vertex.getInEdges());
+        assertEquals(2, vertex.getInWeight("c"));
+        // In edges are not part of the string form
+        assertEquals("a -> \n", vertex.toString());
+
+        vertex.removeInEdge("b");
+        assertEquals(Map.of("c", 2), vertex.getInEdges());
+        assertEquals(0, vertex.getInWeight("b"));
+    }
+
     @Test
     public void testVertexToString() {
         Vertex vertex = new Vertex("a");
@@ -0,0 +1,148 @@
+/* Copyright (c) 2015-2016 MIT 6.005 course staff, all rights reserved.
+ * Redistribution of original or derived work requires permission of course staff.
+ */
+package graph;
+
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.junit.Test;
+
+/**
+ * Tests for ConcurrentGraph.
+ *
+ * This class runs the GraphInstanceTest tests against ConcurrentGraph, as
+ * well as tests for that particular implementation.
+ *
+ * Tests against the Graph spec should be in GraphInstanceTest.
+ */
+public class ConcurrentGraphTest extends GraphInstanceTest {
+
+    /*
+     * Provide a ConcurrentGraph for tests in GraphInstanceTest.
+     */
+    @Override public Graph<String> emptyInstance() {
+        return new ConcurrentGraph<>();
+    }
+
+    /*
+     * Testing ConcurrentGraph...
+     */
+
+    // Testing strategy for ConcurrentGraph
+    //   toString(): empty graph, vertex without edges, vertex with edges
+    //   weight(): vertex missing, edge missing, edge present
+    //   threads: writers to disjoint vertices, writers incrementing one edge,
+    //            readers during set and remove of the same edge and vertex
+
+    @Test
+    public void testConcurrentGraphToString() {
+        ConcurrentGraph<String> graph = new ConcurrentGraph<>();
+        assertEquals("", graph.toString());
+
+        graph.add("a");
+        assertEquals("a -> \n", graph.toString());
+
+        graph.remove("a");
+        graph.set("a", "a", 2);
+        assertEquals("a -> a : 2\n", graph.toString());
+    }
+
+    @Test
+    public void testConcurrentGraphWeight() {
+        ConcurrentGraph<String> graph = new ConcurrentGraph<>();
+        assertEquals(0, graph.weight("a", "b"));
+        graph.set("a", "b", 5);
+        assertEquals(0, graph.weight("b", "a"));
+        assertEquals(5, graph.weight("a", "b"));
+    }
+
+    // Covers writers to disjoint vertices
+    @Test
+    public void testConcurrentGraphDisjointWriters() throws InterruptedException {
+        ConcurrentGraph<Integer> graph = new ConcurrentGraph<>();
+        int threads = 4;
+        int perThread = 1000;
+        List<Thread> workers = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            int offset = t * perThread;
+            workers.add(new Thread(() -> {
+                for (int i = offset; i < offset + perThread; i++) {
+                    graph.set(i, -i - 1, i + 1);
+                    if (i % 2 == 1) {
+                        graph.remove(i);
+                    }
+                }
+            }));
+        }
+        runAll(workers);
+        for (int i = 0; i < threads * perThread; i += 2) {
+            assertEquals(Map.of(-i - 1, i + 1), graph.targets(i));
+        }
+        for (int i = 1; i < threads * perThread; i += 2) {
+            assertFalse(graph.vertices().contains(i));
+        }
+    }
+
+    // Covers writers incrementing one edge
+    @Test
+    public void testConcurrentGraphIncrements() throws InterruptedException {
+        ConcurrentGraph<String> graph = new ConcurrentGraph<>();
+        int threads = 4;
+        int perThread = 1000;
+        List<Thread> workers = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            workers.add(new Thread(() -> {
+                for (int i = 0; i < perThread; i++) {
+                    Graphs.increment(graph, "a", "b", 1);
+                }
+            }));
+        }
+        runAll(workers);
+        assertEquals(Map.of("b", threads * perThread), graph.targets("a"));
+        assertEquals(Map.of("a", threads * perThread), graph.sources("b"));
+    }
+
+    // Covers readers during set and remove of the same edge and vertex
+    @Test
+    public void testConcurrentGraphReadersSeeWholeUpdates() throws InterruptedException {
+        ConcurrentGraph<String> graph = new ConcurrentGraph<>();
+        int rounds = 2000;
+        AtomicReference<String> failure = new AtomicReference<>();
+        List<Thread> workers = new ArrayList<>();
+        workers.add(new Thread(() -> {
+            for (int i = 1; i <= rounds; i++) {
+                graph.set("a", "b", i);
+                graph.remove("b");
+            }
+        }));
+        workers.add(new Thread(() -> {
+            for (int i = 0; i < rounds; i++) {
+                Integer weight = graph.targets("a").get("b");
+                if (weight != null && weight <= 0) {
+                    failure.set("bad weight " + weight);
+                }
+                if (graph.sources("b").size() > 1) {
+                    failure.set("too many sources " + graph.sources("b"));
+                }
+            }
+        }));
+        runAll(workers);
+        assertNull(failure.get());
+        assertEquals(Map.of(), graph.targets("a"));
+        assertFalse(graph.vertices().contains("b"));
+    }
+
+    private static void runAll(List<Thread> workers) throws InterruptedException {
+        for (Thread worker : workers) {
+            worker.start();
+        }
+        for (Thread worker : workers) {
+            worker.join();
+        }
+    }
+}
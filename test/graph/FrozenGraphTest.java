@@ -0,0 +1,319 @@
+/* Copyright (c) 2015-2016 MIT 6.005 course staff, all rights reserved.
+ * Redistribution of original or derived work requires permission of course staff.
+ */
+package graph;
+
+import static org.junit.Assert.*;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.Spliterator;
+import java.util.stream.Collectors;
+
+import org.junit.Test;
+
+/**
+ * Tests for FrozenGraph.
+ * 
+ * FrozenGraph is immutable, so it cannot run the GraphInstanceTest tests;
+ * these tests freeze graphs built by the mutable implementations and compare
+ * the snapshot with the original.
+ */
+public class FrozenGraphTest {
+    
+    // Testing strategy
+    //   freeze(): graph is ConcreteEdgesGraph, ConcreteVerticesGraph,
+    //             IndexedGraph (with and without removed vertices), FrozenGraph,
+    //             MappedGraph (with non-ASCII labels, so ids differ from insertion order)
+    //   graph: empty, vertices without edges, edges, self loops
+    //   observers: vertices, sources, targets, weight, id-level rows
+    //   mutators: add, set, remove all throw
+    //   original graph mutated after freeze()
+    //   fromRows(): valid rows; duplicate labels, unsorted row, zero weight
+    //   edges(): empty graph, order, spliterator split sizes, parallel stream over skewed degrees
+    //   bestTwoHop(): no path, one path, ties, self loops, out row shorter or longer than
+    //                 in row, combined weight beyond Integer.MAX_VALUE, random graph
+    
+    @Test(expected=AssertionError.class)
+    public void testAssertionsEnabled() {
+        assert false; // make sure assertions are enabled with VM argument: -ea
+    }
+    
+    /**
+     * Fill a graph with a fixed set of vertices and edges.
+     */
+    private static Graph<String> populate(Graph<String> graph) {
+        graph.add("lonely");
+        graph.set("a", "b", 1);
+        graph.set("a", "c", 2);
+        graph.set("b", "c", 3);
+        graph.set("c", "a", 4);
+        graph.set("c", "c", 5);
+        return graph;
+    }
+    
+    /**
+     * Assert that a snapshot has the same abstract value as a graph.
+     */
+    private static void assertSameGraph(Graph<String> expected, FrozenGraph<String> actual) {
+        assertEquals(expected.vertices(), actual.vertices());
+        int edges = 0;
+        for (String vertex : expected.vertices()) {
+            assertEquals(expected.targets(vertex), actual.targets(vertex));
+            assertEquals(expected.sources(vertex), actual.sources(vertex));
+            edges += expected.targets(vertex).size();
+        }
+        assertEquals(expected.vertices().size(), actual.vertexCount());
+        assertEquals(edges, actual.edgeCount());
+    }
+    
+    // Covers every mutable implementation, graph with edges and self loops
+    @Test
+    public void testFreeze() {
+        for (Graph<String> graph : List.<Graph<String>>of(new ConcreteEdgesGraph(),
+                new ConcreteVerticesGraph(), new IndexedGraph<>())) {
+            populate(graph);
+            assertSameGraph(graph, FrozenGraph.freeze(graph));
+        }
+    }
+    
+    // Covers IndexedGraph with removed vertices
+    @Test
+    public void testFreezeIndexedGraphWithRemovedVertices() {
+        Graph<String> graph = populate(new IndexedGraph<>());
+        graph.remove("b");
+        graph.remove("lonely");
+        graph.set("d", "a", 6);
+        assertSameGraph(graph, FrozenGraph.freeze(graph));
+    }
+    
+    // Covers MappedGraph with non-ASCII labels
+    @Test
+    public void testFreezeMappedGraph() throws IOException {
+        Graph<String> graph = populate(new IndexedGraph<>());
+        graph.set("\u00e9t\u00e9", "a", 7);
+        graph.set("b", "\u00e9t\u00e9", 8);
+        Path file = Files.createTempFile("graph", ".bin");
+        try {
+            MappedGraph.write(FrozenGraph.freeze(graph), file);
+            try (MappedGraph mapped = MappedGraph.open(file)) {
+                FrozenGraph<String> frozen = FrozenGraph.freeze(mapped);
+                assertSameGraph(graph, frozen);
+                for (int v = 0; v < mapped.vertexCount(); v++) {
+                    assertEquals(mapped.label(v), frozen.label(v));
+                }
+            }
+        } finally {
+            Files.deleteIfExists(file);
+        }
+    }
+    
+    // Covers empty graph, FrozenGraph
+    @Test
+    public void testFreezeEmptyAndFrozen() {
+        FrozenGraph<String> frozen = FrozenGraph.freeze(new ConcreteEdgesGraph());
+        assertEquals(Collections.emptySet(), frozen.vertices());
+        assertEquals(Collections.emptyMap(), frozen.targets("a"));
+        assertEquals(0, frozen.vertexCount());
+        assertEquals(-1, frozen.idOf("a"));
+        assertSame(frozen, FrozenGraph.freeze(frozen));
+    }
+    
+    // Covers original graph mutated after freeze()
+    @Test
+    public void testFreezeIsSnapshot() {
+        Graph<String> graph = populate(new ConcreteVerticesGraph());
+        FrozenGraph<String> frozen = FrozenGraph.freeze(graph);
+        graph.remove("a");
+        graph.set("b", "c", 7);
+        assertEquals(Set.of("a", "b", "c", "lonely"), frozen.vertices());
+        assertEquals(Map.of("a", 1), frozen.sources("b"));
+        assertEquals(3, frozen.weight("b", "c"));
+    }
+    
+    // Covers id-level rows and weight()
+    @Test
+    public void testRowsSortedById() {
+        FrozenGraph<String> frozen = FrozenGraph.freeze(populate(new ConcreteEdgesGraph()));
+        int c = frozen.idOf("c");
+        assertEquals("c", frozen.label(c));
+        assertEquals(2, frozen.outEnd(c) - frozen.outStart(c));
+        for (int v = 0; v < frozen.vertexCount(); v++) {
+            for (int i = frozen.outStart(v) + 1; i < frozen.outEnd(v); i++) {
+                assertTrue(frozen.outTarget(i - 1) < frozen.outTarget(i));
+            }
+            for (int i = frozen.inStart(v) + 1; i < frozen.inEnd(v); i++) {
+                assertTrue(frozen.inSource(i - 1) < frozen.inSource(i));
+            }
+        }
+        assertEquals(5, frozen.weight(c, c));
+        assertEquals(4, frozen.weight("c", "a"));
+        assertEquals(0, frozen.weight("a", "lonely"));
+        assertEquals(0, frozen.weight("a", "missing"));
+    }
+    
+    // Covers mutators
+    @Test
+    public void testMutatorsThrow() {
+        FrozenGraph<String> frozen = FrozenGraph.freeze(populate(new ConcreteEdgesGraph()));
+        try {
+            frozen.add("d");
+            fail("expected add to throw");
+        } catch (UnsupportedOperationException e) {
+            // expected
+        }
+        try {
+            frozen.set("a", "b", 2);
+            fail("expected set to throw");
+        } catch (UnsupportedOperationException e) {
+            // expected
+        }
+        try {
+            frozen.remove("a");
+            fail("expected remove to throw");
+        } catch (UnsupportedOperationException e) {
+            // expected
+        }
+        assertEquals(1, frozen.weight("a", "b"));
+    }
+    
+    // Covers fromRows() with valid rows
+    @Test
+    public void testFromRows() {
+        FrozenGraph<String> frozen = FrozenGraph.fromRows(List.of("a", "b", "c"),
+                new int[] { 0, 2, 2, 3 }, new int[] { 1, 2, 0 }, new int[] { 1, 2, 4 });
+        assertEquals(Set.of("a", "b", "c"), frozen.vertices());
+        assertEquals(Map.of("b", 1, "c", 2), frozen.targets("a"));
+        assertEquals(Map.of("c", 4), frozen.sources("a"));
+        assertEquals(1, frozen.idOf("b"));
+    }
+    
+    // Covers fromRows() with duplicate labels, unsorted row, zero weight
+    @Test
+    public void testFromRowsInvalid() {
+        List<Runnable> invalid = List.of(
+                () -> FrozenGraph.fromRows(List.of("a", "a"), new int[] { 0, 0, 0 }, new int[0], new int[0]),
+                () -> FrozenGraph.fromRows(List.of("a", "b"), new int[] { 0, 2, 2 }, new int[] { 1, 0 }, new int[] { 1, 1 }),
+                () -> FrozenGraph.fromRows(List.of("a", "b"), new int[] { 0, 1, 1 }, new int[] { 1 }, new int[] { 0 }));
+        for (Runnable call : invalid) {
+            try {
+                call.run();
+                fail("expected IllegalArgumentException");
+            } catch (IllegalArgumentException e) {
+                // expected
+            }
+        }
+    }
+
+    // Covers edges() on an empty graph, order
+    @Test
+    public void testEdges() {
+        assertEquals(List.of(), FrozenGraph.freeze(new IndexedGraph<String>()).edges().collect(Collectors.toList()));
+
+        FrozenGraph<String> graph = FrozenGraph.fromRows(List.of("a", "b", "c", "lonely"),
+                new int[] { 0, 2, 2, 3, 3 }, new int[] { 1, 2, 2 }, new int[] { 1, 2, 3 });
+        assertEquals(List.of(new WeightedEdge<>("a", "b", 1), new WeightedEdge<>("a", "c", 2),
+                new WeightedEdge<>("c", "c", 3)), graph.edges().collect(Collectors.toList()));
+    }
+
+    // Covers edges() spliterator split sizes, parallel stream over skewed degrees
+    @Test
+    public void testEdgesSplit() {
+        GraphBuilder<Integer> builder = new GraphBuilder<>();
+        int n = 10_000;
+        for (int i = 1; i < n; i++) {
+            builder.addEdge(0, i, i);
+            builder.addEdge(i, 0, 1);
+        }
+        FrozenGraph<Integer> graph = builder.freeze();
+
+        Spliterator<WeightedEdge<Integer>> rest = graph.edges().spliterator();
+        assertEquals(2 * (n - 1), rest.getExactSizeIfKnown());
+        Spliterator<WeightedEdge<Integer>> first = rest.trySplit();
+        assertEquals(n - 1, first.getExactSizeIfKnown());
+        assertEquals(n - 1, rest.getExactSizeIfKnown());
+        List<WeightedEdge<Integer>> firstEdges = new ArrayList<>();
+        first.forEachRemaining(firstEdges::add);
+        assertTrue(firstEdges.stream().allMatch(edge -> edge.source() == 0));
+        assertTrue(rest.tryAdvance(edge -> assertEquals(new WeightedEdge<>(1, 0, 1), edge)));
+
+        long expected = (long) (n - 1) * n / 2 + (n - 1);
+        assertEquals(expected, graph.edges().parallel().mapToLong(WeightedEdge::weight).sum());
+        assertEquals(graph.edges().collect(Collectors.toList()),
+                graph.edges().parallel().collect(Collectors.toList()));
+    }
+
+    // Covers bestTwoHop() with no path, one path, ties, self loops, combined weight beyond
+    // Integer.MAX_VALUE
+    @Test
+    public void testBestTwoHop() {
+        GraphBuilder<String> builder = new GraphBuilder<>();
+        builder.addEdge("a", "b", 1);
+        builder.addEdge("b", "c", 2);
+        builder.addEdge("a", "x", 2);
+        builder.addEdge("x", "c", 1);
+        builder.addEdge("c", "c", 4);
+        builder.addEdge("b", "b", Integer.MAX_VALUE);
+        builder.addEdge("b", "d", Integer.MAX_VALUE);
+        FrozenGraph<String> graph = builder.freeze();
+        int a = graph.idOf("a");
+        int b = graph.idOf("b");
+        int c = graph.idOf("c");
+        int d = graph.idOf("d");
+
+        assertEquals(FrozenGraph.NO_TWO_HOP, graph.bestTwoHop(c, a));
+        assertEquals(FrozenGraph.NO_TWO_HOP, graph.bestTwoHop(a, a));
+
+        long tie = graph.bestTwoHop(a, c);
+        assertEquals(Math.min(b, graph.idOf("x")), FrozenGraph.twoHopBridge(tie));
+        assertEquals(3, FrozenGraph.twoHopWeight(tie));
+
+        long targetLoop = graph.bestTwoHop(graph.idOf("x"), c);
+        assertEquals(c, FrozenGraph.twoHopBridge(targetLoop));
+        assertEquals(5, FrozenGraph.twoHopWeight(targetLoop));
+
+        long sourceLoop = graph.bestTwoHop(b, c);
+        assertEquals(b, FrozenGraph.twoHopBridge(sourceLoop));
+        assertEquals(Integer.MAX_VALUE + 2L, FrozenGraph.twoHopWeight(sourceLoop));
+
+        long heavy = graph.bestTwoHop(b, d);
+        assertEquals(b, FrozenGraph.twoHopBridge(heavy));
+        assertEquals(2L * Integer.MAX_VALUE, FrozenGraph.twoHopWeight(heavy));
+    }
+
+    // Covers bestTwoHop() with out row shorter or longer than in row, random graph
+    @Test
+    public void testBestTwoHopRandom() {
+        Random random = new Random(6005);
+        GraphBuilder<Integer> builder = new GraphBuilder<>();
+        int n = 60;
+        for (int i = 0; i < 8 * n; i++) {
+            // skewed degrees, so both rows are sometimes the shorter one
+            int source = random.nextInt(1 + random.nextInt(n));
+            builder.addEdge(source, random.nextInt(n), 1 + random.nextInt(5));
+        }
+        FrozenGraph<Integer> graph = builder.freeze();
+        for (int s = 0; s < graph.vertexCount(); s++) {
+            for (int t = 0; t < graph.vertexCount(); t++) {
+                long expected = FrozenGraph.NO_TWO_HOP;
+                long expectedWeight = 0;
+                for (int bridge = 0; bridge < graph.vertexCount(); bridge++) {
+                    int first = graph.weight(s, bridge);
+                    int second = graph.weight(bridge, t);
+                    if (first > 0 && second > 0 && first + second > expectedWeight) {
+                        expected = FrozenGraph.twoHop(bridge, first + second);
+                        expectedWeight = first + second;
+                    }
+                }
+                assertEquals(expected, graph.bestTwoHop(s, t));
+            }
+        }
+    }
+}
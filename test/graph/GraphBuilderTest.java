@@ -0,0 +1,198 @@
+/* Copyright (c) 2015-2016 MIT 6.005 course staff, all rights reserved.
+ * Redistribution of original or derived work requires permission of course staff.
+ */
+package graph;
+
+import static org.junit.Assert.*;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+import org.junit.Test;
+
+/**
+ * Tests for GraphBuilder and WeightedEdge.
+ */
+public class GraphBuilderTest {
+
+    // Testing strategy
+    //   WeightedEdge: valid edge, weight <= 0, null label; equals, hashCode, toString
+    //   GraphBuilder:
+    //     input: single vertices and edges, Iterable and Stream of edges, sequences
+    //            of length 0, 1 and more
+    //     duplicates: vertex added twice, edge added twice, edge in both directions,
+    //                 self loop, summed weight overflowing
+    //     size: empty, beyond the initial capacity; expected sizes negative or too large
+    //     output: freeze() (then reused), applyTo() an empty graph and a graph with edges
+
+    @Test(expected=AssertionError.class)
+    public void testAssertionsEnabled() {
+        assert false; // make sure assertions are enabled with VM argument: -ea
+    }
+
+    /*
+     * Testing WeightedEdge...
+     */
+
+    // Covers valid edge, equals, hashCode, toString
+    @Test
+    public void testWeightedEdge() {
+        WeightedEdge<String> edge = new WeightedEdge<>("a", "b", 3);
+        assertEquals("a", edge.source());
+        assertEquals("b", edge.target());
+        assertEquals(3, edge.weight());
+        assertEquals("a -> b : 3", edge.toString());
+        assertEquals(new WeightedEdge<>("a", "b", 3), edge);
+        assertEquals(new WeightedEdge<>("a", "b", 3).hashCode(), edge.hashCode());
+        assertFalse(edge.equals(new WeightedEdge<>("a", "b", 4)));
+        assertFalse(edge.equals(new WeightedEdge<>("b", "a", 3)));
+    }
+
+    // Covers weight <= 0, null label
+    @Test
+    public void testWeightedEdgeInvalid() {
+        try {
+            new WeightedEdge<>("a", "b", 0);
+            fail("expected IllegalArgumentException");
+        } catch (IllegalArgumentException e) {
+            // expected
+        }
+        try {
+            new WeightedEdge<>(null, "b", 1);
+            fail("expected NullPointerException");
+        } catch (NullPointerException e) {
+            // expected
+        }
+    }
+
+    /*
+     * Testing GraphBuilder...
+     */
+
+    // Covers empty builder, freeze()
+    @Test
+    public void testFreezeEmpty() {
+        FrozenGraph<String> graph = new GraphBuilder<String>().freeze();
+        assertEquals(Set.of(), graph.vertices());
+        assertEquals(0, graph.edgeCount());
+    }
+
+    // Covers single vertices and edges, vertex added twice, edge added twice,
+    // edge in both directions, self loop
+    @Test
+    public void testAddVertexAndEdge() {
+        GraphBuilder<String> builder = new GraphBuilder<String>()
+                .addVertex("lonely")
+                .addVertex("lonely")
+                .addEdge("a", "b", 1)
+                .addEdge("a", "b", 2)
+                .addEdge("b", "a", 4)
+                .addEdge("c", "c", 5);
+        assertEquals(4, builder.vertexCount());
+        assertEquals(3, builder.edgeCount());
+        FrozenGraph<String> graph = builder.freeze();
+        assertEquals(Set.of("lonely", "a", "b", "c"), graph.vertices());
+        assertEquals(Map.of("b", 3), graph.targets("a"));
+        assertEquals(Map.of("b", 4), graph.sources("a"));
+        assertEquals(Map.of("c", 5), graph.targets("c"));
+        assertEquals(Map.of(), graph.targets("lonely"));
+    }
+
+    // Covers Iterable and Stream of edges, bulk vertices
+    @Test
+    public void testAddEdgesInBulk() {
+        FrozenGraph<String> graph = new GraphBuilder<String>()
+                .addVertices(List.of("x", "y"))
+                .addEdges(List.of(new WeightedEdge<>("a", "b", 1), new WeightedEdge<>("a", "c", 2)))
+                .addEdges(Stream.of(new WeightedEdge<>("a", "b", 3), new WeightedEdge<>("c", "a", 4)))
+                .freeze();
+        assertEquals(Set.of("a", "b", "c", "x", "y"), graph.vertices());
+        assertEquals(Map.of("b", 4, "c", 2), graph.targets("a"));
+        assertEquals(Map.of("c", 4), graph.sources("a"));
+    }
+
+    // Covers sequences of length 0, 1 and more
+    @Test
+    public void testAddSequence() {
+        assertEquals(Set.of(), new GraphBuilder<String>().addSequence(List.of()).freeze().vertices());
+
+        FrozenGraph<String> single = new GraphBuilder<String>().addSequence(List.of("a")).freeze();
+        assertEquals(Set.of("a"), single.vertices());
+        assertEquals(0, single.edgeCount());
+
+        FrozenGraph<String> graph = new GraphBuilder<String>()
+                .addSequence(List.of("to", "be", "or", "not", "to", "be"))
+                .freeze();
+        assertEquals(Set.of("to", "be", "or", "not"), graph.vertices());
+        assertEquals(Map.of("be", 2), graph.targets("to"));
+        assertEquals(Map.of("or", 1), graph.targets("be"));
+        assertEquals(Map.of("not", 1), graph.sources("to"));
+    }
+
+    // Covers summed weight overflowing
+    @Test(expected=ArithmeticException.class)
+    public void testAddEdgeOverflow() {
+        new GraphBuilder<String>().addEdge("a", "b", Integer.MAX_VALUE).addEdge("a", "b", 1);
+    }
+
+    // Covers expected sizes negative or too large
+    @Test
+    public void testExpectedSizeOutOfRange() {
+        int[][] sizes = { { 0, 1 << 30 }, { 1 << 30, 0 }, { 0, Integer.MAX_VALUE }, { 0, -1 }, { -1, 0 } };
+        for (int[] size : sizes) {
+            try {
+                new GraphBuilder<String>(size[0], size[1]);
+                fail("expected IllegalArgumentException for " + size[0] + " vertices, " + size[1] + " edges");
+            } catch (IllegalArgumentException e) {
+                // expected
+            }
+        }
+    }
+
+    // Covers beyond the initial capacity, freeze() then reused
+    @Test
+    public void testGrowthAndReuse() {
+        GraphBuilder<Integer> builder = new GraphBuilder<>(0, 0);
+        int n = 1000;
+        IntStream.range(0, n).forEach(i -> builder.addEdge(i, (i + 1) % n, 1).addEdge(i, (i + 1) % n, i + 1));
+        FrozenGraph<Integer> graph = builder.freeze();
+        assertEquals(n, graph.vertexCount());
+        assertEquals(n, graph.edgeCount());
+        for (int i = 0; i < n; i++) {
+            assertEquals(i + 2, graph.weight(i, (i + 1) % n));
+        }
+
+        assertEquals(0, builder.vertexCount());
+        assertEquals(0, builder.edgeCount());
+        FrozenGraph<Integer> next = builder.addEdge(1, 2, 3).freeze();
+        assertEquals(Set.of(1, 2), next.vertices());
+        assertEquals(n, graph.vertexCount());
+    }
+
+    // Covers applyTo() an empty graph and a graph with edges
+    @Test
+    public void testApplyTo() {
+        GraphBuilder<String> builder = new GraphBuilder<String>()
+                .addVertex("lonely")
+                .addEdge("a", "b", 2)
+                .addEdge("b", "c", 3);
+
+        Graph<String> empty = builder.applyTo(new ConcreteEdgesGraph());
+        assertEquals(Set.of("lonely", "a", "b", "c"), empty.vertices());
+        assertEquals(Map.of("b", 2), empty.targets("a"));
+
+        Graph<String> existing = new IndexedGraph<>();
+        existing.set("a", "b", 5);
+        existing.set("c", "a", 1);
+        builder.applyTo(existing);
+        assertEquals(Map.of("b", 7), existing.targets("a"));
+        assertEquals(Map.of("c", 3), existing.targets("b"));
+        assertEquals(Map.of("a", 1), existing.targets("c"));
+
+        assertEquals(4, builder.vertexCount());
+        assertEquals(2, builder.edgeCount());
+    }
+}
@@ -29,6 +29,7 @@ public abstract class GraphInstanceTest {
     //   Number of sources == 0, number of sources > 0
     //   Number of targets == 0, number of targets > 0
     //   Weight == 0, weight > 0
+    //   Graphs.increment(): edge does not exist, edge exists; new weight 0, > 0, < 0
     
     /**
      * Overridden by implementation-specific test classes.
@@ -91,6 +92,21 @@ public abstract class GraphInstanceTest {
         assertFalse(graph.sources("b").containsKey("a"));
     }
 
+    // Tests the set method with weight zero
+    // Covers weight == 0; edge does not exist; vertex does not exist, vertex exists
+    @Test
+    public void testSetZeroAddsNoVertices() {
+        Graph<String> graph = emptyInstance();
+        // Neither vertex exists, so nothing is added
+        assertEquals(0, graph.set("x", "y", 0));
+        assertEquals(Collections.emptySet(), graph.vertices());
+        // Only the source exists, so the target is not added
+        graph.add("x");
+        assertEquals(0, graph.set("x", "y", 0));
+        assertEquals(Set.of("x"), graph.vertices());
+        assertEquals(Collections.emptyMap(), graph.targets("x"));
+    }
+
     // Tests the remove method
     // Covers vertex does not exist, vertex exists
     // Number of vertices == 1, number of vertices > 1
@@ -121,6 +137,21 @@ public abstract class GraphInstanceTest {
         assertFalse(graph.vertices().contains("d"));
     }
 
+    // Tests the remove method on a vertex with a self loop
+    // Covers vertex is both source and target of an edge
+    @Test
+    public void testRemoveSelfLoop() {
+        Graph<String> graph = emptyInstance();
+        graph.set("a", "a", 1);
+        graph.set("a", "b", 2);
+        graph.set("b", "a", 3);
+        assertEquals(Map.of("a", 1, "b", 3), graph.sources("a"));
+        assertTrue(graph.remove("a"));
+        assertEquals(Collections.singleton("b"), graph.vertices());
+        assertEquals(Collections.emptyMap(), graph.sources("b"));
+        assertEquals(Collections.emptyMap(), graph.targets("b"));
+    }
+
     // Tests the vertices method
     // Covers vertices.size() == 0, vertices.size() == 1, vertices.size() > 1
     @Test
@@ -179,4 +210,37 @@ public abstract class GraphInstanceTest {
         // Vertex exists, with multiple targets
         assertEquals(Map.of("b", 1, "c", 2), graph.targets("a"));
     }
+
+    // Tests Graphs.increment
+    // Covers edge does not exist, edge exists; new weight > 0, new weight == 0
+    @Test
+    public void testIncrement() {
+        Graph<String> graph = emptyInstance();
+        assertEquals(2, Graphs.increment(graph, "a", "b", 2));
+        assertEquals(Set.of("a", "b"), graph.vertices());
+        assertEquals(Map.of("b", 2), graph.targets("a"));
+        assertEquals(5, Graphs.increment(graph, "a", "b", 3));
+        assertEquals(Map.of("a", 5), graph.sources("b"));
+        assertEquals(4, Graphs.increment(graph, "a", "b", -1));
+        assertEquals(0, Graphs.increment(graph, "a", "b", -4));
+        assertEquals(Collections.emptyMap(), graph.targets("a"));
+        assertEquals(Set.of("a", "b"), graph.vertices());
+        assertEquals(0, Graphs.increment(graph, "c", "d", 0));
+        assertEquals(Set.of("a", "b"), graph.vertices());
+    }
+
+    // Tests Graphs.increment
+    // Covers new weight < 0
+    @Test
+    public void testIncrementNegative() {
+        Graph<String> graph = emptyInstance();
+        graph.set("a", "b", 1);
+        try {
+            Graphs.increment(graph, "a", "b", -2);
+            fail("expected IllegalArgumentException");
+        } catch (IllegalArgumentException e) {
+            // expected
+        }
+        assertEquals(Map.of("b", 1), graph.targets("a"));
+    }
 }
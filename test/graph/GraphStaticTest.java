@@ -6,6 +6,8 @@ package graph;
 import static org.junit.Assert.*;
 
 import java.util.Collections;
+import java.util.Map;
+import java.util.Set;
 
 import org.junit.Test;
 
@@ -21,6 +23,8 @@ public class GraphStaticTest {
     //   empty()
     //     no inputs, only output is empty graph
     //     observe with vertices()
+    //     label types: String, Integer
+    //     each call returns a new graph
     
     @Test(expected=AssertionError.class)
     public void testAssertionsEnabled() {
@@ -33,6 +37,20 @@ public class GraphStaticTest {
                 Collections.emptySet(), Graph.empty().vertices());
     }
     
-    // TODO test other vertex label types in Problem 3.2
+    @Test
+    public void testEmptyIntegerLabels() {
+        Graph<Integer> graph = Graph.empty();
+        graph.set(1, 2, 3);
+        assertEquals(Set.of(1, 2), graph.vertices());
+        assertEquals(Map.of(2, 3), graph.targets(1));
+    }
+    
+    @Test
+    public void testEmptyReturnsNewGraph() {
+        Graph<String> first = Graph.empty();
+        Graph<String> second = Graph.empty();
+        first.add("a");
+        assertEquals(Collections.emptySet(), second.vertices());
+    }
     
 }
@@ -0,0 +1,256 @@
+/* Copyright (c) 2015-2016 MIT 6.005 course staff, all rights reserved.
+ * Redistribution of original or derived work requires permission of course staff.
+ */
+package graph;
+
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.junit.Test;
+
+import graph.Graphs.Hints;
+import graph.Graphs.Workload;
+
+/**
+ * Tests for Graphs.
+ * 
+ * This class runs the GraphInstanceTest tests against a graph from
+ * Graphs.empty with concurrent read-heavy hints, as well as tests for the factory and
+ * its hints.
+ */
+public class GraphsTest extends GraphInstanceTest {
+    
+    /*
+     * Provide a concurrent read-heavy graph, a read-mostly wrapper, for tests
+     * in GraphInstanceTest.
+     */
+    @Override public Graph<String> emptyInstance() {
+        return Graphs.empty(Hints.defaults().concurrent(true).workload(Workload.READ_HEAVY));
+    }
+    
+    // Testing strategy for Graphs
+    //   Hints: defaults, each field replaced, negative sizes, vertices at and beyond the
+    //          largest expected size, equality
+    //   empty(): every workload, concurrent or not, size hints 0 and large,
+    //            edge hint far above the vertex hint
+    //   synchronizedGraph(): several threads mutating at once, incrementing one edge at once
+    //   readMostlyGraph(): readers during writers, of a graph read under the lock and
+    //                      of a graph read optimistically; incrementing one edge at once;
+    //                      wrapping an OffHeapGraph
+    //   increment(): graph without an in-place increment
+    
+    // Covers Hints defaults, each field replaced, equality
+    @Test
+    public void testHints() {
+        Hints defaults = Hints.defaults();
+        assertEquals(0, defaults.expectedVertices());
+        assertEquals(0, defaults.expectedEdges());
+        assertEquals(Workload.BALANCED, defaults.workload());
+        assertFalse(defaults.concurrent());
+        
+        Hints hints = defaults.expectedVertices(10).expectedEdges(20)
+                .workload(Workload.READ_HEAVY).concurrent(true);
+        assertEquals(10, hints.expectedVertices());
+        assertEquals(20, hints.expectedEdges());
+        assertEquals(Workload.READ_HEAVY, hints.workload());
+        assertTrue(hints.concurrent());
+        assertEquals(Hints.defaults(), defaults);
+        assertEquals(hints, defaults.concurrent(true).workload(Workload.READ_HEAVY)
+                .expectedEdges(20).expectedVertices(10));
+        assertEquals(hints.hashCode(), defaults.concurrent(true).workload(Workload.READ_HEAVY)
+                .expectedEdges(20).expectedVertices(10).hashCode());
+        assertFalse(hints.equals(defaults));
+    }
+    
+    // Covers Hints negative sizes, vertices at and beyond the largest expected size
+    @Test
+    public void testHintsOutOfRange() {
+        assertEquals(Hints.MAX_EXPECTED_VERTICES,
+                Hints.defaults().expectedVertices(Hints.MAX_EXPECTED_VERTICES).expectedVertices());
+        for (int vertices : new int[] { Hints.MAX_EXPECTED_VERTICES + 1, 1 << 30, Integer.MAX_VALUE }) {
+            try {
+                Hints.defaults().expectedVertices(vertices);
+                fail("expected IllegalArgumentException for " + vertices);
+            } catch (IllegalArgumentException e) {
+                // expected
+            }
+        }
+        try {
+            Hints.defaults().expectedVertices(-1);
+            fail("expected IllegalArgumentException");
+        } catch (IllegalArgumentException e) {
+            // expected
+        }
+        try {
+            Hints.defaults().expectedEdges(-1);
+            fail("expected IllegalArgumentException");
+        } catch (IllegalArgumentException e) {
+            // expected
+        }
+    }
+    
+    // Covers empty() with every workload, concurrent or not, size hints 0 and large,
+    //   edge hint far above the vertex hint
+    @Test
+    public void testEmptyWithHints() {
+        for (Workload workload : Workload.values()) {
+            for (boolean concurrent : new boolean[] { false, true }) {
+                for (int[] size : new int[][] { { 0, 0 }, { 100_000, 100_000 }, { 0, Integer.MAX_VALUE } }) {
+                    Hints hints = Hints.defaults().expectedVertices(size[0]).expectedEdges(size[1])
+                            .workload(workload).concurrent(concurrent);
+                    Graph<String> graph = Graphs.empty(hints);
+                    assertEquals(hints.toString(), Set.of(), graph.vertices());
+                    graph.set("a", "b", 1);
+                    assertEquals(hints.toString(), Map.of("b", 1), graph.targets("a"));
+                }
+            }
+        }
+    }
+    
+    // Covers synchronizedGraph() with several threads mutating at once
+    @Test
+    public void testSynchronizedGraphConcurrentWriters() throws InterruptedException {
+        Graph<Integer> graph = Graphs.synchronizedGraph(new IndexedGraph<>());
+        int threads = 4;
+        int perThread = 500;
+        List<Thread> workers = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            int offset = t * perThread;
+            workers.add(new Thread(() -> {
+                for (int i = offset; i < offset + perThread; i++) {
+                    graph.set(i, -1, i + 1);
+                }
+            }));
+        }
+        for (Thread worker : workers) {
+            worker.start();
+        }
+        for (Thread worker : workers) {
+            worker.join();
+        }
+        assertEquals(threads * perThread + 1, graph.vertices().size());
+        assertEquals(threads * perThread, graph.sources(-1).size());
+    }
+    
+    // Covers synchronizedGraph() with several threads incrementing one edge at once
+    @Test
+    public void testSynchronizedGraphConcurrentIncrements() throws InterruptedException {
+        Graph<String> graph = Graphs.synchronizedGraph(new IndexedGraph<>());
+        int threads = 4;
+        int perThread = 1000;
+        List<Thread> workers = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            workers.add(new Thread(() -> {
+                for (int i = 0; i < perThread; i++) {
+                    Graphs.increment(graph, "a", "b", 1);
+                }
+            }));
+        }
+        for (Thread worker : workers) {
+            worker.start();
+        }
+        for (Thread worker : workers) {
+            worker.join();
+        }
+        assertEquals(Map.of("b", threads * perThread), graph.targets("a"));
+    }
+    
+    // Covers increment() on a graph without an in-place increment
+    @Test
+    public void testIncrementOtherGraph() {
+        Graph<String> graph = FrozenGraph.freeze(new IndexedGraph<>());
+        assertEquals(0, Graphs.increment(graph, "a", "b", 0));
+        try {
+            Graphs.increment(graph, "a", "b", 1);
+            fail("expected UnsupportedOperationException");
+        } catch (UnsupportedOperationException e) {
+            // expected
+        }
+    }
+    
+    // Covers readMostlyGraph() with readers during writers, of a graph read under the
+    //   lock and of a graph read optimistically
+    @Test
+    public void testReadMostlyGraphReadersDuringWriters() throws InterruptedException {
+        readersDuringWriters(Graphs.readMostlyGraph(new ConcreteVerticesGraph()));
+        readersDuringWriters(Graphs.readMostlyGraph(new PersistentGraph<>()));
+    }
+
+    private static void readersDuringWriters(Graph<String> graph) throws InterruptedException {
+        int rounds = 2000;
+        AtomicReference<String> failure = new AtomicReference<>();
+        List<Thread> workers = new ArrayList<>();
+        workers.add(new Thread(() -> {
+            for (int i = 1; i <= rounds; i++) {
+                graph.set("hub", Integer.toString(i), i);
+                if (i % 2 == 0) {
+                    graph.remove(Integer.toString(i - 1));
+                }
+            }
+        }));
+        for (int t = 0; t < 3; t++) {
+            workers.add(new Thread(() -> {
+                for (int i = 0; i < rounds; i++) {
+                    Map<String, Integer> targets = graph.targets("hub");
+                    for (Map.Entry<String, Integer> edge : targets.entrySet()) {
+                        if (!edge.getKey().equals(edge.getValue().toString())) {
+                            failure.set("torn edge " + edge);
+                        }
+                    }
+                    if (graph.vertices().size() < targets.size()) {
+                        failure.set("fewer vertices than targets");
+                    }
+                }
+            }));
+        }
+        for (Thread worker : workers) {
+            worker.start();
+        }
+        for (Thread worker : workers) {
+            worker.join();
+        }
+        assertNull(failure.get());
+        assertEquals(rounds / 2, graph.targets("hub").size());
+        assertEquals(rounds / 2 + 1, graph.vertices().size());
+    }
+    
+    // Covers readMostlyGraph() with several threads incrementing one edge at once
+    @Test
+    public void testReadMostlyGraphConcurrentIncrements() throws InterruptedException {
+        Graph<String> graph = Graphs.readMostlyGraph(new ConcreteEdgesGraph());
+        int threads = 4;
+        int perThread = 1000;
+        List<Thread> workers = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            workers.add(new Thread(() -> {
+                for (int i = 0; i < perThread; i++) {
+                    Graphs.increment(graph, "a", "b", 1);
+                }
+            }));
+        }
+        for (Thread worker : workers) {
+            worker.start();
+        }
+        for (Thread worker : workers) {
+            worker.join();
+        }
+        assertEquals(Map.of("b", threads * perThread), graph.targets("a"));
+    }
+    
+    // Covers readMostlyGraph() wrapping an OffHeapGraph
+    @Test
+    public void testReadMostlyGraphOffHeap() {
+        try (OffHeapGraph offHeap = new OffHeapGraph()) {
+            Graph<String> graph = Graphs.readMostlyGraph(offHeap);
+            graph.set("a", "b", 2);
+            assertEquals(Set.of("a", "b"), graph.vertices());
+            assertEquals(Map.of("a", 2), graph.sources("b"));
+            assertEquals("a -> b : 2\nb -> \n", graph.toString());
+        }
+    }
+}
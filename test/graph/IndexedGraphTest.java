@@ -0,0 +1,252 @@
+/* Copyright (c) 2015-2016 MIT 6.005 course staff, all rights reserved.
+ * Redistribution of original or derived work requires permission of course staff.
+ */
+package graph;
+
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.Spliterator;
+import java.util.stream.Collectors;
+
+import org.junit.Test;
+
+/**
+ * Tests for IndexedGraph.
+ * 
+ * This class runs the GraphInstanceTest tests against IndexedGraph, as
+ * well as tests for that particular implementation.
+ * 
+ * Tests against the Graph spec should be in GraphInstanceTest.
+ */
+public class IndexedGraphTest extends GraphInstanceTest {
+    
+    /*
+     * Provide an IndexedGraph for tests in GraphInstanceTest.
+     */
+    @Override public Graph<String> emptyInstance() {
+        return new IndexedGraph<>();
+    }
+    
+    /*
+     * Testing IndexedGraph...
+     */
+    
+    // Testing strategy for IndexedGraph
+    //   toString(): empty graph, vertices without edges, vertices with edges
+    //   weight(): vertex missing, edge missing, edge present, edge set to zero
+    //   set() to zero: missing edge from a missing vertex adds nothing
+    //   label types other than String
+    //   degree: below and above INDEX_THRESHOLD; edges and neighbours of a hub removed
+    //   number of vertices and edges beyond the initial capacity, with edge hints
+    //     none, moderate and huge
+    //   vertex removed and a new vertex added, reusing its id
+    //   edges(): empty graph, vertex without edges, removed vertex, parallel stream,
+    //     in order; split before and part way through a vertex's edges
+    //   expected vertices: negative, 0, largest that fits, just beyond, Integer.MAX_VALUE
+    //   expected edges: negative
+    
+    @Test
+    public void testIndexedGraphToString() {
+        Graph<String> graph = emptyInstance();
+        assertEquals("", graph.toString());
+
+        graph.add("a");
+        assertEquals("a -> \n", graph.toString());
+
+        graph.set("a", "b", 1);
+        assertEquals("a -> b : 1\nb -> \n", graph.toString());
+    }
+    
+    // Covers expected vertices negative, 0, largest that fits, just beyond,
+    //   Integer.MAX_VALUE; only table sizes are computed for the large ones
+    @Test
+    public void testIndexedGraphExpectedVerticesBoundary() {
+        assertEquals(16, LabelIndex.tableCapacity(0));
+        assertEquals(32, LabelIndex.tableCapacity(8));
+        assertEquals(LabelIndex.MAX_TABLE_CAPACITY, LabelIndex.tableCapacity(LabelIndex.MAX_TABLE_CAPACITY / 2 - 1));
+        for (long entries : new long[] { -1, LabelIndex.MAX_TABLE_CAPACITY / 2, 1 << 30, Integer.MAX_VALUE }) {
+            try {
+                LabelIndex.tableCapacity(entries);
+                fail("expected IllegalArgumentException for " + entries);
+            } catch (IllegalArgumentException e) {
+                // expected
+            }
+        }
+        try {
+            LabelIndex.grownCapacity(LabelIndex.MAX_TABLE_CAPACITY);
+            fail("expected IllegalStateException");
+        } catch (IllegalStateException e) {
+            // expected
+        }
+        for (int expected : new int[] { -1, 1 << 30, Integer.MAX_VALUE }) {
+            try {
+                new IndexedGraph<String>(expected);
+                fail("expected IllegalArgumentException for " + expected);
+            } catch (IllegalArgumentException e) {
+                // expected
+            }
+        }
+        try {
+            new IndexedGraph<String>(0, -1);
+            fail("expected IllegalArgumentException");
+        } catch (IllegalArgumentException e) {
+            // expected
+        }
+        Graph<String> graph = new IndexedGraph<>(0);
+        graph.set("a", "b", 1);
+        assertEquals(Map.of("b", 1), graph.targets("a"));
+    }
+    
+    @Test
+    public void testIndexedGraphWeight() {
+        IndexedGraph<String> graph = new IndexedGraph<>();
+        assertEquals(0, graph.weight("a", "b"));
+        graph.set("a", "b", 5);
+        assertEquals(5, graph.weight("a", "b"));
+        assertEquals(0, graph.weight("b", "a"));
+        graph.set("a", "b", 0);
+        assertEquals(0, graph.weight("a", "b"));
+        assertEquals(0, graph.set("a", "c", 0));
+        assertEquals(Set.of("a", "b"), graph.vertices());
+    }
+    
+    // Covers hub vertices whose lists are indexed: edges added, reweighted, removed and
+    //   added back, neighbours removed, and the hub itself removed and added again
+    @Test
+    public void testIndexedGraphHubs() {
+        IndexedGraph<Integer> graph = new IndexedGraph<>();
+        Graph<Integer> expected = new ConcurrentGraph<>();
+        Random random = new Random(6);
+        int n = 20 * IndexedGraph.INDEX_THRESHOLD;
+        for (int step = 0; step < 20_000; step++) {
+            int hub = random.nextInt(2);
+            int other = random.nextInt(n);
+            int weight = random.nextInt(4);
+            int choice = random.nextInt(100);
+            if (choice < 2) {
+                assertEquals(expected.remove(other), graph.remove(other));
+            } else if (choice < 3) {
+                assertEquals(expected.remove(hub), graph.remove(hub));
+            } else if (choice < 60) {
+                assertEquals(expected.set(hub, other, weight), graph.set(hub, other, weight));
+            } else {
+                assertEquals(expected.set(other, hub, weight), graph.set(other, hub, weight));
+            }
+        }
+        assertEquals(expected.vertices(), graph.vertices());
+        for (int v : expected.vertices()) {
+            assertEquals(expected.targets(v), graph.targets(v));
+            assertEquals(expected.sources(v), graph.sources(v));
+            for (int t : expected.targets(v).keySet()) {
+                assertEquals((int) expected.targets(v).get(t), graph.weight(v, t));
+            }
+        }
+    }
+    
+    @Test
+    public void testIndexedGraphIntegerLabels() {
+        Graph<Integer> graph = new IndexedGraph<>();
+        graph.set(1, 2, 3);
+        graph.set(2, 1, 4);
+        assertEquals(Set.of(1, 2), graph.vertices());
+        assertEquals(Map.of(2, 3), graph.targets(1));
+        assertEquals(Map.of(2, 4), graph.sources(1));
+    }
+    
+    @Test
+    public void testIndexedGraphGrowth() {
+        for (int expectedEdges : new int[] { 0, 100, Integer.MAX_VALUE }) {
+            IndexedGraph<Integer> graph = new IndexedGraph<>(2, expectedEdges);
+            int n = 1000;
+            for (int i = 0; i < n; i++) {
+                graph.set(i, (i + 1) % n, i + 1);
+                graph.set(0, i, 1);
+            }
+            assertEquals(n, graph.vertices().size());
+            assertEquals(n, graph.targets(0).size());
+            assertEquals(Map.of(0, 1), graph.sources(1));
+            assertEquals(Map.of(0, 1, n - 1, n), graph.sources(0));
+            for (int i = 1; i < n; i++) {
+                assertEquals(i + 1, graph.weight(i, (i + 1) % n));
+            }
+        }
+    }
+    
+    @Test
+    public void testIndexedGraphReusesIds() {
+        Graph<String> graph = emptyInstance();
+        Set<String> expected = new HashSet<>();
+        for (int i = 0; i < 50; i++) {
+            graph.set("v" + i, "v" + (i + 1), 1);
+            expected.add("v" + i);
+        }
+        expected.add("v50");
+        for (int i = 0; i < 50; i += 2) {
+            assertTrue(graph.remove("v" + i));
+            expected.remove("v" + i);
+        }
+        for (int i = 0; i < 10; i++) {
+            graph.set("w" + i, "v1", 2);
+            expected.add("w" + i);
+        }
+        assertEquals(expected, graph.vertices());
+        assertEquals(10, graph.sources("v1").size());
+        assertEquals(Map.of(), graph.targets("v1"));
+        assertEquals(Map.of(), graph.sources("v3"));
+        assertEquals(Map.of("v50", 1), graph.targets("v49"));
+        assertEquals(Map.of("v1", 2), graph.targets("w0"));
+    }
+
+    // Covers edges() on an empty graph, vertex without edges, removed vertex, parallel stream
+    @Test
+    public void testIndexedGraphEdges() {
+        IndexedGraph<Integer> graph = new IndexedGraph<>();
+        assertEquals(Set.of(), graph.edges().collect(Collectors.toSet()));
+
+        graph.add(-1);
+        graph.set(0, 1, 1);
+        graph.set(1, 2, 2);
+        graph.set(2, 0, 3);
+        graph.remove(1);
+        graph.set(3, 3, 4);
+        assertEquals(Set.of(new WeightedEdge<>(2, 0, 3), new WeightedEdge<>(3, 3, 4)),
+                graph.edges().collect(Collectors.toSet()));
+
+        int n = 10_000;
+        for (int i = 0; i < n; i++) {
+            graph.set(i, (i + 1) % n, 1);
+        }
+        assertEquals(n + 2, graph.edges().parallel().count());
+        assertEquals(n + 7, graph.edges().parallel().mapToInt(WeightedEdge::weight).sum());
+    }
+
+    // Covers edges() parallel stream in order; split before and part way through a vertex's edges
+    @Test
+    public void testIndexedGraphEdgesParallelInOrder() {
+        IndexedGraph<Integer> graph = new IndexedGraph<>();
+        int n = 2_000;
+        for (int i = 0; i < n; i++) {
+            for (int j = 0; j < i % 5; j++) {
+                graph.set(i, j, i + 1);
+            }
+        }
+        List<WeightedEdge<Integer>> sequential = graph.edges().collect(Collectors.toList());
+        assertEquals(sequential, graph.edges().parallel().collect(Collectors.toList()));
+        assertEquals(sequential.size(), graph.edges().spliterator().estimateSize());
+
+        Spliterator<WeightedEdge<Integer>> edges = graph.edges().spliterator();
+        List<WeightedEdge<Integer>> split = new ArrayList<>();
+        edges.tryAdvance(split::add);
+        Spliterator<WeightedEdge<Integer>> prefix = edges.trySplit();
+        assertNotNull(prefix);
+        prefix.forEachRemaining(split::add);
+        edges.forEachRemaining(split::add);
+        assertEquals(sequential, split);
+    }
+}
@@ -0,0 +1,281 @@
+/* Copyright (c) 2015-2016 MIT 6.005 course staff, all rights reserved.
+ * Redistribution of original or derived work requires permission of course staff.
+ */
+package graph;
+
+import static org.junit.Assert.*;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import org.junit.Test;
+
+/**
+ * Tests for MappedGraph.
+ *
+ * MappedGraph is read-only, so it cannot run the GraphInstanceTest tests;
+ * these tests write snapshots of graphs to temporary files, map them back and
+ * compare the result with the original.
+ */
+public class MappedGraphTest {
+
+    // Testing strategy
+    //   graph: empty, vertices without edges, edges, self loops, non-ASCII labels,
+    //          labels whose UTF-8 order differs from insertion order
+    //   observers: vertices, sources, targets, weight, idOf, id-level rows, edges, bestTwoHop
+    //   mutators: add, set, remove all throw
+    //   open(): valid file, file that is not a graph file, offsets that decrease or do not
+    //           end at the edge count
+    //   close(): once, twice, then other operations
+
+    @Test(expected=AssertionError.class)
+    public void testAssertionsEnabled() {
+        assert false; // make sure assertions are enabled with VM argument: -ea
+    }
+
+    /**
+     * Write a graph to a temporary file and map it back.
+     */
+    private static MappedGraph roundTrip(Graph<String> graph) throws IOException {
+        Path file = Files.createTempFile("graph", ".bin");
+        try {
+            MappedGraph.write(FrozenGraph.freeze(graph), file);
+            return MappedGraph.open(file);
+        } finally {
+            Files.deleteIfExists(file);
+        }
+    }
+
+    /**
+     * Assert that a mapped graph has the same abstract value as a graph.
+     */
+    private static void assertSameGraph(Graph<String> expected, MappedGraph actual) {
+        assertEquals(expected.vertices(), actual.vertices());
+        int edges = 0;
+        for (String vertex : expected.vertices()) {
+            assertEquals(expected.targets(vertex), actual.targets(vertex));
+            assertEquals(expected.sources(vertex), actual.sources(vertex));
+            edges += expected.targets(vertex).size();
+        }
+        assertEquals(expected.vertices().size(), actual.vertexCount());
+        assertEquals(edges, actual.edgeCount());
+    }
+
+    // Covers empty graph
+    @Test
+    public void testRoundTripEmpty() throws IOException {
+        try (MappedGraph graph = roundTrip(new IndexedGraph<>())) {
+            assertEquals(Set.of(), graph.vertices());
+            assertEquals(Map.of(), graph.targets("a"));
+            assertEquals(-1, graph.idOf("a"));
+            assertEquals("", graph.toString());
+        }
+    }
+
+    // Covers vertices without edges, edges, self loops, non-ASCII labels, label order
+    @Test
+    public void testRoundTrip() throws IOException {
+        Graph<String> expected = new IndexedGraph<>();
+        expected.add("lonely");
+        expected.set("zebra", "apple", 1);
+        expected.set("apple", "\u00e9t\u00e9", 2);
+        expected.set("\u00e9t\u00e9", "zebra", 3);
+        expected.set("zebra", "zebra", 4);
+        expected.set("Zebra", "apple", 5);
+        try (MappedGraph graph = roundTrip(expected)) {
+            assertSameGraph(expected, graph);
+            assertEquals(1, graph.weight("zebra", "apple"));
+            assertEquals(4, graph.weight("zebra", "zebra"));
+            assertEquals(0, graph.weight("apple", "zebra"));
+            assertEquals(0, graph.weight("missing", "apple"));
+        }
+    }
+
+    // Covers idOf, label and id-level rows: ids follow label order, rows are sorted
+    @Test
+    public void testIdLevelAccess() throws IOException {
+        Graph<String> expected = new IndexedGraph<>();
+        expected.set("c", "a", 1);
+        expected.set("c", "b", 2);
+        expected.set("a", "c", 3);
+        try (MappedGraph graph = roundTrip(expected)) {
+            assertEquals(0, graph.idOf("a"));
+            assertEquals(1, graph.idOf("b"));
+            assertEquals(2, graph.idOf("c"));
+            assertEquals("b", graph.label(1));
+            int c = graph.idOf("c");
+            assertEquals(2, graph.outEnd(c) - graph.outStart(c));
+            assertEquals(0, graph.outTarget(graph.outStart(c)));
+            assertEquals(1, graph.outWeight(graph.outStart(c)));
+            assertEquals(1, graph.outTarget(graph.outStart(c) + 1));
+            int a = graph.idOf("a");
+            assertEquals(1, graph.inEnd(a) - graph.inStart(a));
+            assertEquals(c, graph.inSource(graph.inStart(a)));
+            assertEquals(1, graph.inWeight(graph.inStart(a)));
+            assertEquals(2, graph.weight(c, graph.idOf("b")));
+        }
+    }
+
+    // Covers graph larger than a few pages
+    @Test
+    public void testRoundTripLarge() throws IOException {
+        Graph<String> expected = new IndexedGraph<>();
+        int n = 2000;
+        for (int i = 0; i < n; i++) {
+            expected.set("v" + i, "v" + (i * 7 + 1) % n, i + 1);
+            expected.set("v" + i, "v" + (i * 13 + 5) % n, i + 2);
+        }
+        try (MappedGraph graph = roundTrip(expected)) {
+            assertSameGraph(expected, graph);
+        }
+    }
+
+    // Covers mutators
+    @Test
+    public void testMutatorsThrow() throws IOException {
+        Graph<String> expected = new IndexedGraph<>();
+        expected.set("a", "b", 1);
+        try (MappedGraph graph = roundTrip(expected)) {
+            try {
+                graph.add("c");
+                fail("expected UnsupportedOperationException");
+            } catch (UnsupportedOperationException e) {
+                // expected
+            }
+            try {
+                graph.set("a", "b", 2);
+                fail("expected UnsupportedOperationException");
+            } catch (UnsupportedOperationException e) {
+                // expected
+            }
+            try {
+                graph.remove("a");
+                fail("expected UnsupportedOperationException");
+            } catch (UnsupportedOperationException e) {
+                // expected
+            }
+        }
+    }
+
+    // Covers open() of a file that is not a graph file
+    @Test
+    public void testOpenNotGraphFile() throws IOException {
+        Path file = Files.createTempFile("graph", ".txt");
+        try {
+            Files.writeString(file, "this is not a graph file, but it is long enough for a header");
+            MappedGraph.open(file);
+            fail("expected IOException");
+        } catch (IOException e) {
+            // expected
+        } finally {
+            Files.deleteIfExists(file);
+        }
+    }
+
+    // Covers open() of a file whose out offsets decrease, or do not end at the edge count
+    @Test
+    public void testOpenCorruptOffsets() throws IOException {
+        Graph<String> graph = new IndexedGraph<>();
+        graph.set("a", "b", 1);
+        graph.set("b", "c", 2);
+        Path file = Files.createTempFile("graph", ".bin");
+        try {
+            for (int[] corruption : new int[][] { { 2, 0 }, { 3, 1 } }) {
+                MappedGraph.write(FrozenGraph.freeze(graph), file);
+                ByteBuffer bytes = ByteBuffer.wrap(Files.readAllBytes(file));
+                // the header holds four ints, then the section positions; out offsets are third
+                int outOffsets = (int) bytes.getLong(4 * Integer.BYTES + 2 * Long.BYTES);
+                bytes.putInt(outOffsets + corruption[0] * Integer.BYTES, corruption[1]);
+                Files.write(file, bytes.array());
+                try {
+                    MappedGraph.open(file).close();
+                    fail("expected IOException");
+                } catch (IOException e) {
+                    // expected
+                }
+            }
+        } finally {
+            Files.deleteIfExists(file);
+        }
+    }
+
+    // Covers close() twice, then other operations
+    @Test
+    public void testClose() throws IOException {
+        Graph<String> expected = new IndexedGraph<>();
+        expected.set("a", "b", 1);
+        MappedGraph graph = roundTrip(expected);
+        graph.close();
+        graph.close();
+        try {
+            graph.targets("a");
+            fail("expected IllegalStateException");
+        } catch (IllegalStateException e) {
+            // expected
+        }
+        try {
+            graph.edges();
+            fail("expected IllegalStateException");
+        } catch (IllegalStateException e) {
+            // expected
+        }
+        try {
+            graph.bestTwoHop(0, 1);
+            fail("expected IllegalStateException");
+        } catch (IllegalStateException e) {
+            // expected
+        }
+    }
+
+    // Covers edges observer, on an empty graph and in parallel
+    @Test
+    public void testEdges() throws IOException {
+        try (MappedGraph graph = roundTrip(new IndexedGraph<>())) {
+            assertEquals(0, graph.edges().count());
+        }
+        Graph<String> original = new IndexedGraph<>();
+        for (int i = 0; i < 1000; i++) {
+            original.set("v" + i, "v" + (i * 7 % 1000), i + 1);
+        }
+        try (MappedGraph graph = roundTrip(original)) {
+            Set<WeightedEdge<String>> edges = graph.edges().parallel().collect(Collectors.toSet());
+            assertEquals(1000, edges.size());
+            for (int i = 0; i < 1000; i++) {
+                assertTrue(edges.contains(new WeightedEdge<>("v" + i, "v" + (i * 7 % 1000), i + 1)));
+            }
+        }
+    }
+
+    // Covers bestTwoHop observer, compared with FrozenGraph
+    @Test
+    public void testBestTwoHop() throws IOException {
+        Graph<String> original = new IndexedGraph<>();
+        for (int i = 0; i < 200; i++) {
+            original.set("v" + (i % 13), "v" + (i * 7 % 29), i + 1);
+            original.set("v" + (i * 3 % 29), "v" + (i % 5), i + 2);
+        }
+        FrozenGraph<String> frozen = FrozenGraph.freeze(original);
+        try (MappedGraph graph = roundTrip(original)) {
+            for (int s = 0; s < graph.vertexCount(); s++) {
+                for (int t = 0; t < graph.vertexCount(); t++) {
+                    long expected = frozen.bestTwoHop(frozen.idOf(graph.label(s)), frozen.idOf(graph.label(t)));
+                    long actual = graph.bestTwoHop(s, t);
+                    if (expected == FrozenGraph.NO_TWO_HOP) {
+                        assertEquals(expected, actual);
+                    } else {
+                        // ids differ between the two graphs, so ties may pick different bridges
+                        int bridge = FrozenGraph.twoHopBridge(actual);
+                        assertEquals(FrozenGraph.twoHopWeight(expected), FrozenGraph.twoHopWeight(actual));
+                        assertEquals(FrozenGraph.twoHopWeight(actual),
+                                (long) graph.weight(s, bridge) + graph.weight(bridge, t));
+                    }
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,249 @@
+/* Copyright (c) 2015-2016 MIT 6.005 course staff, all rights reserved.
+ * Redistribution of original or derived work requires permission of course staff.
+ */
+package graph;
+
+import static org.junit.Assert.*;
+
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.junit.Test;
+
+/**
+ * Tests for MvccGraph.
+ *
+ * This class runs the GraphInstanceTest tests against MvccGraph, as well as
+ * tests for that particular implementation.
+ *
+ * Tests against the Graph spec should be in GraphInstanceTest.
+ */
+public class MvccGraphTest extends GraphInstanceTest {
+
+    /*
+     * Provide an MvccGraph for tests in GraphInstanceTest.
+     */
+    @Override public Graph<String> emptyInstance() {
+        return new MvccGraph<>();
+    }
+
+    /*
+     * Testing MvccGraph...
+     */
+
+    // Testing strategy for MvccGraph
+    //   toString(): empty graph, vertex without edges, vertex with edges
+    //   snapshot():
+    //     graph then: unchanged, edges added, changed and removed, vertices removed and
+    //                 added again, many versions committed, many commits to distinct
+    //                 and to the same edges while a snapshot is open and after it closes
+    //     snapshots: one, several of different versions open at once
+    //     version(): before and after a commit, after a no-op mutation
+    //     mutators, observers after close(), close() twice
+    //   threads: reader using a snapshot while a writer commits
+
+    @Test
+    public void testMvccGraphToString() {
+        MvccGraph<String> graph = new MvccGraph<>();
+        assertEquals("", graph.toString());
+
+        graph.add("a");
+        assertEquals("a -> \n", graph.toString());
+
+        graph.remove("a");
+        graph.set("a", "a", 2);
+        assertEquals("a -> a : 2\n", graph.toString());
+    }
+
+    // Covers graph unchanged, edges added, changed and removed; one snapshot
+    @Test
+    public void testSnapshotEdges() {
+        MvccGraph<String> graph = new MvccGraph<>();
+        graph.set("a", "b", 1);
+        graph.set("b", "c", 2);
+        try (MvccGraph.Snapshot<String> snapshot = graph.snapshot()) {
+            assertEquals(Set.of("a", "b", "c"), snapshot.vertices());
+            graph.set("a", "b", 5);
+            graph.set("b", "c", 0);
+            graph.set("c", "d", 3);
+            assertEquals(Set.of("a", "b", "c"), snapshot.vertices());
+            assertEquals(Map.of("b", 1), snapshot.targets("a"));
+            assertEquals(Map.of("b", 2), snapshot.sources("c"));
+            assertEquals(Map.of(), snapshot.targets("c"));
+            assertEquals("c -> \n", snapshot.toString().replaceAll("[ab] -> .*\n", ""));
+        }
+        assertEquals(Map.of("b", 5), graph.targets("a"));
+        assertEquals(Map.of("d", 3), graph.targets("c"));
+        assertEquals(Map.of(), graph.sources("c"));
+    }
+
+    // Covers vertices removed and added again; several snapshots of different versions
+    @Test
+    public void testSnapshotsOfSeveralVersions() {
+        MvccGraph<String> graph = new MvccGraph<>();
+        graph.set("a", "b", 1);
+        graph.set("b", "a", 2);
+        MvccGraph.Snapshot<String> first = graph.snapshot();
+        graph.remove("b");
+        MvccGraph.Snapshot<String> second = graph.snapshot();
+        graph.set("a", "b", 3);
+        MvccGraph.Snapshot<String> third = graph.snapshot();
+
+        assertEquals(Set.of("a", "b"), first.vertices());
+        assertEquals(Map.of("b", 2), first.sources("a"));
+        assertEquals(Set.of("a"), second.vertices());
+        assertEquals(Map.of(), second.targets("a"));
+        assertEquals(Map.of(), second.sources("b"));
+        assertEquals(Map.of("b", 3), third.targets("a"));
+        assertEquals(Map.of(), third.sources("a"));
+
+        second.close();
+        first.close();
+        graph.set("b", "a", 4);
+        assertEquals(Map.of("b", 3), third.targets("a"));
+        assertEquals(Map.of(), third.sources("a"));
+        third.close();
+        assertEquals(Map.of("b", 4), graph.sources("a"));
+    }
+
+    // Covers many versions committed
+    @Test
+    public void testSnapshotManyVersions() {
+        MvccGraph<Integer> graph = new MvccGraph<>();
+        graph.set(0, 1, 1);
+        try (MvccGraph.Snapshot<Integer> snapshot = graph.snapshot()) {
+            for (int i = 2; i <= 1000; i++) {
+                Graphs.increment(graph, 0, 1, 1);
+                graph.set(i, 0, i);
+                if (i > 2) {
+                    graph.remove(i - 1);
+                }
+            }
+            assertEquals(Set.of(0, 1), snapshot.vertices());
+            assertEquals(Map.of(1, 1), snapshot.targets(0));
+            assertEquals(Map.of(), snapshot.sources(0));
+        }
+        assertEquals(Set.of(0, 1, 1000), graph.vertices());
+        assertEquals(Map.of(1000, 1000), graph.sources(0));
+        assertEquals(Map.of(1, 1000), graph.targets(0));
+    }
+
+    // Covers many commits to distinct and to the same edges while a snapshot is open;
+    //   only the chains changed more than once are kept pending, so a commit never
+    //   rescans the history of earlier ones, and none are pending once it is closed
+    @Test
+    public void testSnapshotManyCommitsPending() {
+        MvccGraph<Integer> graph = new MvccGraph<>();
+        graph.set(0, 1, 1);
+        int commits = 3_000;
+        try (MvccGraph.Snapshot<Integer> snapshot = graph.snapshot()) {
+            for (int i = 2; i < commits; i++) {
+                graph.set(i % 1000 + 2, i, 1);
+                Graphs.increment(graph, 0, 1, 1);
+                // the out and in chains of the edge from 0 to 1
+                assertEquals(2, graph.pendingChains());
+            }
+            assertEquals(Map.of(1, 1), snapshot.targets(0));
+            assertEquals(Set.of(0, 1), snapshot.vertices());
+        }
+        assertEquals(0, graph.pendingChains());
+        graph.set(0, 2, 1);
+        assertEquals(0, graph.pendingChains());
+        assertEquals(Map.of(1, commits - 1, 2, 1), graph.targets(0));
+        assertEquals(commits, graph.vertices().size());
+    }
+
+    // Covers version() before and after a commit, after a no-op mutation
+    @Test
+    public void testSnapshotVersion() {
+        MvccGraph<String> graph = new MvccGraph<>();
+        long empty;
+        try (MvccGraph.Snapshot<String> snapshot = graph.snapshot()) {
+            empty = snapshot.version();
+        }
+        graph.add("a");
+        long added;
+        try (MvccGraph.Snapshot<String> snapshot = graph.snapshot()) {
+            added = snapshot.version();
+        }
+        assertTrue(added > empty);
+        graph.add("a");
+        graph.set("a", "b", 0);
+        try (MvccGraph.Snapshot<String> snapshot = graph.snapshot()) {
+            assertEquals(added, snapshot.version());
+        }
+    }
+
+    // Covers mutators, observers after close(), close() twice
+    @Test
+    public void testSnapshotReadOnlyAndClosed() {
+        MvccGraph<String> graph = new MvccGraph<>();
+        MvccGraph.Snapshot<String> snapshot = graph.snapshot();
+        try {
+            snapshot.add("a");
+            fail("expected UnsupportedOperationException");
+        } catch (UnsupportedOperationException e) {
+            // expected
+        }
+        try {
+            snapshot.set("a", "b", 1);
+            fail("expected UnsupportedOperationException");
+        } catch (UnsupportedOperationException e) {
+            // expected
+        }
+        try {
+            snapshot.remove("a");
+            fail("expected UnsupportedOperationException");
+        } catch (UnsupportedOperationException e) {
+            // expected
+        }
+        snapshot.close();
+        snapshot.close();
+        try {
+            snapshot.vertices();
+            fail("expected IllegalStateException");
+        } catch (IllegalStateException e) {
+            // expected
+        }
+    }
+
+    // Covers reader using a snapshot while a writer commits
+    @Test
+    public void testSnapshotWhileWriting() throws InterruptedException {
+        MvccGraph<Integer> graph = new MvccGraph<>();
+        int rounds = 2000;
+        AtomicReference<String> failure = new AtomicReference<>();
+        Thread writer = new Thread(() -> {
+            for (int i = 1; i <= rounds; i++) {
+                graph.set(0, i, i);
+                if (i % 2 == 0) {
+                    graph.remove(i - 1);
+                }
+            }
+        });
+        Thread reader = new Thread(() -> {
+            for (int i = 0; i < rounds / 10; i++) {
+                try (MvccGraph.Snapshot<Integer> snapshot = graph.snapshot()) {
+                    Set<Integer> vertices = snapshot.vertices();
+                    Map<Integer, Integer> targets = snapshot.targets(0);
+                    for (int round = 0; round < 10; round++) {
+                        if (!snapshot.vertices().equals(vertices) || !snapshot.targets(0).equals(targets)) {
+                            failure.set("snapshot changed at version " + snapshot.version());
+                        }
+                    }
+                    if (!vertices.isEmpty() && vertices.size() != targets.size() + 1) {
+                        failure.set("inconsistent snapshot: " + vertices.size() + " vertices, "
+                                + targets.size() + " targets");
+                    }
+                }
+            }
+        });
+        writer.start();
+        reader.start();
+        writer.join();
+        reader.join();
+        assertNull(failure.get());
+        assertEquals(rounds / 2, graph.targets(0).size());
+    }
+}
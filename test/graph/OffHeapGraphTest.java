@@ -0,0 +1,156 @@
+/* Copyright (c) 2015-2016 MIT 6.005 course staff, all rights reserved.
+ * Redistribution of original or derived work requires permission of course staff.
+ */
+package graph;
+
+import static org.junit.Assert.*;
+
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+import org.junit.Test;
+
+/**
+ * Tests for OffHeapGraph.
+ *
+ * This class runs the GraphInstanceTest tests against OffHeapGraph, as
+ * well as tests for that particular implementation.
+ *
+ * Tests against the Graph spec should be in GraphInstanceTest.
+ */
+public class OffHeapGraphTest extends GraphInstanceTest {
+
+    /*
+     * Provide an OffHeapGraph for tests in GraphInstanceTest.
+     */
+    @Override public Graph<String> emptyInstance() {
+        return new OffHeapGraph();
+    }
+
+    /*
+     * Testing OffHeapGraph...
+     */
+
+    // Testing strategy for OffHeapGraph
+    //   toString(): empty graph, vertices without edges, vertices with edges
+    //   weight(): vertex missing, edge missing, edge present, edge set to zero
+    //   set() to zero: missing edge from a missing vertex adds nothing
+    //   labels: empty, non-ASCII
+    //   number of vertices, edges and label bytes beyond the initial capacity
+    //   many vertices removed and added again, reusing records and label space
+    //   close(): once, twice, then other operations
+    //   expected sizes whose buffers would exceed 2 GiB
+
+    // Covers expected sizes whose buffers would exceed 2 GiB
+    @Test
+    public void testOffHeapGraphExpectedSizeTooLarge() {
+        int[][] sizes = { { 1 << 29, 16 }, { 16, 1 << 29 }, { Integer.MAX_VALUE, Integer.MAX_VALUE } };
+        for (int[] size : sizes) {
+            try {
+                new OffHeapGraph(size[0], size[1]).close();
+                fail("expected IllegalArgumentException for " + size[0] + " vertices, " + size[1] + " edges");
+            } catch (IllegalArgumentException e) {
+                assertTrue(e.getMessage(), e.getMessage().contains("OffHeapGraph cannot hold"));
+            }
+        }
+    }
+
+    @Test
+    public void testOffHeapGraphToString() {
+        try (OffHeapGraph graph = new OffHeapGraph()) {
+            assertEquals("", graph.toString());
+
+            graph.add("a");
+            assertEquals("a -> \n", graph.toString());
+
+            graph.set("a", "b", 1);
+            assertEquals("a -> b : 1\nb -> \n", graph.toString());
+        }
+    }
+
+    @Test
+    public void testOffHeapGraphWeight() {
+        try (OffHeapGraph graph = new OffHeapGraph()) {
+            assertEquals(0, graph.weight("a", "b"));
+            graph.set("a", "b", 5);
+            assertEquals(5, graph.weight("a", "b"));
+            assertEquals(0, graph.weight("b", "a"));
+            graph.set("a", "b", 0);
+            assertEquals(0, graph.weight("a", "b"));
+            assertEquals(0, graph.set("a", "c", 0));
+            assertEquals(Set.of("a", "b"), graph.vertices());
+        }
+    }
+
+    @Test
+    public void testOffHeapGraphLabels() {
+        try (OffHeapGraph graph = new OffHeapGraph()) {
+            graph.set("", "\u00fcn\u00efc\u00f6d\u00e9", 2);
+            graph.set("\u00fcn\u00efc\u00f6d\u00e9", "\u65e5\u672c", 3);
+            assertEquals(Set.of("", "\u00fcn\u00efc\u00f6d\u00e9", "\u65e5\u672c"), graph.vertices());
+            assertEquals(Map.of("\u00fcn\u00efc\u00f6d\u00e9", 2), graph.targets(""));
+            assertEquals(Map.of("\u00fcn\u00efc\u00f6d\u00e9", 3), graph.sources("\u65e5\u672c"));
+        }
+    }
+
+    @Test
+    public void testOffHeapGraphGrowth() {
+        try (OffHeapGraph graph = new OffHeapGraph(0, 0)) {
+            int n = 1000;
+            for (int i = 0; i < n; i++) {
+                graph.set("vertex" + i, "vertex" + (i + 1) % n, i + 1);
+            }
+            assertEquals(n, graph.vertices().size());
+            for (int i = 0; i < n; i++) {
+                assertEquals(Map.of("vertex" + (i + 1) % n, i + 1), graph.targets("vertex" + i));
+                assertEquals(Map.of("vertex" + (i + n - 1) % n, (i + n - 1) % n + 1), graph.sources("vertex" + i));
+            }
+        }
+    }
+
+    @Test
+    public void testOffHeapGraphReuse() {
+        try (OffHeapGraph graph = new OffHeapGraph(0, 0)) {
+            for (int round = 0; round < 20; round++) {
+                for (int i = 0; i < 50; i++) {
+                    graph.set("r" + round + "v" + i, "hub", 1);
+                }
+                for (int i = 0; i < 50; i++) {
+                    assertTrue(graph.remove("r" + round + "v" + i));
+                }
+            }
+            assertEquals(Set.of("hub"), graph.vertices());
+            assertEquals(Map.of(), graph.sources("hub"));
+
+            Set<String> expected = new HashSet<>(Set.of("hub"));
+            for (int i = 0; i < 50; i++) {
+                graph.set("hub", "again" + i, i + 1);
+                expected.add("again" + i);
+            }
+            assertEquals(expected, graph.vertices());
+            assertEquals(50, graph.targets("hub").size());
+            assertEquals(7, graph.weight("hub", "again6"));
+        }
+    }
+
+    @Test
+    public void testOffHeapGraphClose() {
+        OffHeapGraph graph = new OffHeapGraph();
+        graph.set("a", "b", 1);
+        graph.close();
+        graph.close();
+        try {
+            graph.vertices();
+            fail("expected IllegalStateException");
+        } catch (IllegalStateException e) {
+            // expected
+        }
+        try {
+            graph.set("a", "b", 2);
+            fail("expected IllegalStateException");
+        } catch (IllegalStateException e) {
+            // expected
+        }
+    }
+}
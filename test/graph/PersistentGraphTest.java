@@ -0,0 +1,168 @@
+/* Copyright (c) 2015-2016 MIT 6.005 course staff, all rights reserved.
+ * Redistribution of original or derived work requires permission of course staff.
+ */
+package graph;
+
+import static org.junit.Assert.*;
+
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.junit.Test;
+
+/**
+ * Tests for PersistentGraph.
+ *
+ * This class runs the GraphInstanceTest tests against PersistentGraph, as
+ * well as tests for that particular implementation.
+ *
+ * Tests against the Graph spec should be in GraphInstanceTest.
+ */
+public class PersistentGraphTest extends GraphInstanceTest {
+
+    /*
+     * Provide a PersistentGraph for tests in GraphInstanceTest.
+     */
+    @Override public Graph<String> emptyInstance() {
+        return new PersistentGraph<>();
+    }
+
+    /*
+     * Testing PersistentGraph...
+     */
+
+    // Testing strategy for PersistentGraph
+    //   toString(): empty graph, vertex without edges, vertex with edges
+    //   weight(): vertex missing, edge missing, edge present
+    //   snapshot(): then original changed, then snapshot changed, of an empty graph
+    //   labels: distinct hashes, equal hashes (trie collisions)
+    //   number of vertices: beyond one trie level, then all removed
+    //   threads: reader holding a snapshot while a writer changes the graph
+
+    @Test
+    public void testPersistentGraphToString() {
+        PersistentGraph<String> graph = new PersistentGraph<>();
+        assertEquals("", graph.toString());
+
+        graph.add("a");
+        assertEquals("a -> \n", graph.toString());
+
+        graph.remove("a");
+        graph.set("a", "a", 2);
+        assertEquals("a -> a : 2\n", graph.toString());
+    }
+
+    @Test
+    public void testPersistentGraphWeight() {
+        PersistentGraph<String> graph = new PersistentGraph<>();
+        assertEquals(0, graph.weight("a", "b"));
+        graph.set("a", "b", 5);
+        assertEquals(0, graph.weight("b", "a"));
+        assertEquals(5, graph.weight("a", "b"));
+    }
+
+    // Covers snapshot() then original changed, then snapshot changed
+    @Test
+    public void testSnapshotIndependent() {
+        PersistentGraph<String> graph = new PersistentGraph<>();
+        graph.set("a", "b", 1);
+        graph.set("b", "c", 2);
+        PersistentGraph<String> snapshot = graph.snapshot();
+
+        graph.set("a", "b", 3);
+        graph.remove("c");
+        graph.add("d");
+        assertEquals(Set.of("a", "b", "c"), snapshot.vertices());
+        assertEquals(Map.of("b", 1), snapshot.targets("a"));
+        assertEquals(Map.of("b", 2), snapshot.sources("c"));
+
+        snapshot.set("c", "a", 4);
+        assertEquals(Set.of("a", "b", "d"), graph.vertices());
+        assertEquals(Map.of(), graph.sources("a"));
+        assertEquals(Map.of("c", 4), snapshot.sources("a"));
+    }
+
+    // Covers snapshot() of an empty graph
+    @Test
+    public void testSnapshotEmpty() {
+        PersistentGraph<String> graph = new PersistentGraph<>();
+        PersistentGraph<String> snapshot = graph.snapshot();
+        graph.add("a");
+        assertEquals(Set.of(), snapshot.vertices());
+    }
+
+    // Covers equal hashes
+    @Test
+    public void testPersistentGraphCollidingLabels() {
+        // "Aa" and "BB" have the same hash code, so these four labels all collide
+        String[] labels = { "AaAa", "AaBB", "BBAa", "BBBB" };
+        assertEquals(labels[0].hashCode(), labels[3].hashCode());
+        PersistentGraph<String> graph = new PersistentGraph<>();
+        for (int i = 0; i < labels.length; i++) {
+            graph.set(labels[i], labels[(i + 1) % labels.length], i + 1);
+        }
+        assertEquals(Set.of(labels), graph.vertices());
+        for (int i = 0; i < labels.length; i++) {
+            assertEquals(Map.of(labels[(i + 1) % labels.length], i + 1), graph.targets(labels[i]));
+        }
+
+        PersistentGraph<String> snapshot = graph.snapshot();
+        assertTrue(graph.remove("AaBB"));
+        assertFalse(graph.remove("AaBB"));
+        assertEquals(Set.of("AaAa", "BBAa", "BBBB"), graph.vertices());
+        assertEquals(Map.of(), graph.targets("AaAa"));
+        assertEquals(Map.of("AaBB", 1), snapshot.targets("AaAa"));
+    }
+
+    // Covers beyond one trie level, then all removed
+    @Test
+    public void testPersistentGraphManyVertices() {
+        PersistentGraph<Integer> graph = new PersistentGraph<>();
+        int n = 5000;
+        for (int i = 0; i < n; i++) {
+            graph.set(i, (i * 7) % n, i + 1);
+        }
+        assertEquals(n, graph.vertices().size());
+        for (int i = 0; i < n; i++) {
+            assertEquals(i + 1, graph.weight(i, (i * 7) % n));
+        }
+        PersistentGraph<Integer> snapshot = graph.snapshot();
+        for (int i = 0; i < n; i++) {
+            assertTrue(graph.remove(i));
+        }
+        assertEquals(Set.of(), graph.vertices());
+        assertEquals(n, snapshot.vertices().size());
+        assertEquals(Map.of(7, 2), snapshot.targets(1));
+    }
+
+    // Covers reader holding a snapshot while a writer changes the graph
+    @Test
+    public void testSnapshotWhileWriting() throws InterruptedException {
+        PersistentGraph<Integer> graph = new PersistentGraph<>();
+        int rounds = 2000;
+        AtomicReference<String> failure = new AtomicReference<>();
+        Thread writer = new Thread(() -> {
+            for (int i = 1; i <= rounds; i++) {
+                graph.set(0, i, i);
+                graph.set(i, 0, i);
+            }
+        });
+        Thread reader = new Thread(() -> {
+            for (int i = 0; i < rounds; i++) {
+                PersistentGraph<Integer> snapshot = graph.snapshot();
+                int out = snapshot.targets(0).size();
+                int in = snapshot.sources(0).size();
+                if (out != in && out != in + 1) {
+                    failure.set("inconsistent snapshot: " + out + " out, " + in + " in");
+                }
+            }
+        });
+        writer.start();
+        reader.start();
+        writer.join();
+        reader.join();
+        assertNull(failure.get());
+        assertEquals(rounds, graph.targets(0).size());
+    }
+}
@@ -0,0 +1,94 @@
+/* Copyright (c) 2015-2016 MIT 6.005 course staff, all rights reserved.
+ * Redistribution of original or derived work requires permission of course staff.
+ */
+package graph;
+
+import static org.junit.Assert.*;
+
+import java.util.List;
+import java.util.Set;
+
+import org.junit.Test;
+
+/**
+ * Tests for RepCheck.
+ */
+public class RepCheckTest {
+
+    // Testing strategy
+    //   level: OFF, SAMPLED, INCREMENTAL, FULL
+    //   sample rate: 1, > 1, invalid (< 1)
+    //   graphs mutated under each level still satisfy the Graph spec
+
+    @Test(expected=AssertionError.class)
+    public void testAssertionsEnabled() {
+        assert false; // make sure assertions are enabled with VM argument: -ea
+    }
+
+    // Covers every level, sample rate 1
+    @Test
+    public void testLevels() {
+        RepCheck.Level saved = RepCheck.level();
+        int savedRate = RepCheck.sampleRate();
+        try {
+            RepCheck.setLevel(RepCheck.Level.OFF);
+            assertFalse(RepCheck.enabled());
+            assertFalse(RepCheck.audit());
+            assertFalse(RepCheck.incremental());
+
+            RepCheck.setLevel(RepCheck.Level.SAMPLED);
+            RepCheck.setSampleRate(1);
+            assertTrue(RepCheck.enabled());
+            assertTrue(RepCheck.audit());
+            assertFalse(RepCheck.incremental());
+
+            RepCheck.setLevel(RepCheck.Level.INCREMENTAL);
+            assertTrue(RepCheck.enabled());
+            assertFalse(RepCheck.audit());
+            assertTrue(RepCheck.incremental());
+
+            RepCheck.setLevel(RepCheck.Level.FULL);
+            assertTrue(RepCheck.enabled());
+            assertTrue(RepCheck.audit());
+            assertFalse(RepCheck.incremental());
+        } finally {
+            RepCheck.setLevel(saved);
+            RepCheck.setSampleRate(savedRate);
+        }
+    }
+
+    // Covers invalid sample rate
+    @Test(expected=IllegalArgumentException.class)
+    public void testInvalidSampleRate() {
+        RepCheck.setSampleRate(0);
+    }
+
+    // Covers graphs mutated under every level, sample rate > 1,
+    //        removing a vertex with in-edges, out-edges and a self loop
+    @Test
+    public void testGraphsUnderEveryLevel() {
+        RepCheck.Level saved = RepCheck.level();
+        int savedRate = RepCheck.sampleRate();
+        try {
+            RepCheck.setSampleRate(2);
+            for (RepCheck.Level level : RepCheck.Level.values()) {
+                RepCheck.setLevel(level);
+                for (Graph<String> graph : List.<Graph<String>>of(
+                        new ConcreteEdgesGraph(), new ConcreteVerticesGraph())) {
+                    graph.add("a");
+                    graph.set("a", "b", 1);
+                    graph.set("b", "c", 2);
+                    graph.set("c", "a", 3);
+                    graph.set("c", "c", 4);
+                    assertEquals(1, graph.set("a", "b", 0));
+                    assertTrue(graph.remove("c"));
+                    assertEquals(Set.of("a", "b"), graph.vertices());
+                    assertTrue(graph.targets("b").isEmpty());
+                }
+            }
+        } finally {
+            RepCheck.setLevel(saved);
+            RepCheck.setSampleRate(savedRate);
+        }
+    }
+}
@@ -0,0 +1,113 @@
+/* Copyright (c) 2015-2016 MIT 6.005 course staff, all rights reserved.
+ * Redistribution of original or derived work requires permission of course staff.
+ */
+package graph.algo;
+
+import static org.junit.Assert.*;
+
+import java.util.ArrayDeque;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Queue;
+
+import org.junit.Test;
+
+import graph.ConcreteEdgesGraph;
+import graph.FrozenGraph;
+import graph.Graph;
+import graph.IndexedGraph;
+
+/**
+ * Tests for BreadthFirstSearch.
+ */
+public class BreadthFirstSearchTest {
+
+    // Testing strategy
+    //   graph: ConcreteEdgesGraph, IndexedGraph, FrozenGraph
+    //   source: not a vertex, vertex without edges, vertex with edges
+    //   reachable: only source, some vertices, paths of different lengths to one vertex,
+    //              cycles, self loops
+    //   frontier: small, larger than PARALLEL_THRESHOLD
+    //   hopsById(): source id in range, out of range
+
+    @Test(expected=AssertionError.class)
+    public void testAssertionsEnabled() {
+        assert false; // make sure assertions are enabled with VM argument: -ea
+    }
+
+    // Covers ConcreteEdgesGraph; source not a vertex, vertex without edges
+    @Test
+    public void testHopsTrivial() {
+        Graph<String> graph = new ConcreteEdgesGraph();
+        assertEquals(Map.of(), BreadthFirstSearch.hops(graph, "a"));
+        graph.add("a");
+        graph.set("b", "a", 1);
+        assertEquals(Map.of("a", 0), BreadthFirstSearch.hops(graph, "a"));
+    }
+
+    // Covers IndexedGraph; paths of different lengths, cycles, self loops, weights ignored
+    @Test
+    public void testHopsShortestByEdges() {
+        Graph<String> graph = new IndexedGraph<>();
+        graph.set("a", "b", 100);
+        graph.set("b", "c", 100);
+        graph.set("a", "x", 1);
+        graph.set("x", "y", 1);
+        graph.set("y", "c", 1);
+        graph.set("c", "a", 1);
+        graph.set("c", "c", 1);
+        graph.add("unreachable");
+        assertEquals(Map.of("a", 0, "b", 1, "x", 1, "c", 2, "y", 2),
+                BreadthFirstSearch.hops(graph, "a"));
+    }
+
+    // Covers FrozenGraph; frontier larger than PARALLEL_THRESHOLD; hopsById()
+    @Test
+    public void testHopsLargeFrontier() {
+        IndexedGraph<Integer> graph = new IndexedGraph<>();
+        int fanOut = 4 * BreadthFirstSearch.PARALLEL_THRESHOLD;
+        for (int i = 1; i <= fanOut; i++) {
+            graph.set(0, i, 1);
+            graph.set(i, fanOut + 1 + i % 7, 1);
+            graph.set(i, (i * 31) % fanOut + 1, 1);
+        }
+        graph.set(fanOut + 1, -1, 1);
+        FrozenGraph<Integer> frozen = FrozenGraph.freeze(graph);
+        Map<Integer, Integer> hops = BreadthFirstSearch.hops(frozen, 0);
+        assertEquals(sequentialHops(graph, 0), hops);
+        assertEquals(Integer.valueOf(3), hops.get(-1));
+
+        int[] ids = BreadthFirstSearch.hopsById(frozen, frozen.idOf(-1));
+        for (int v = 0; v < ids.length; v++) {
+            assertEquals(v == frozen.idOf(-1) ? 0 : -1, ids[v]);
+        }
+    }
+
+    // Covers source id out of range
+    @Test(expected=IndexOutOfBoundsException.class)
+    public void testHopsIdOutOfRange() {
+        Graph<String> graph = new IndexedGraph<>();
+        graph.add("a");
+        BreadthFirstSearch.hopsById(FrozenGraph.freeze(graph), 1);
+    }
+
+    /**
+     * Reference breadth-first search over targets().
+     */
+    private static <L> Map<L, Integer> sequentialHops(Graph<L> graph, L source) {
+        Map<L, Integer> hops = new HashMap<>();
+        Queue<L> queue = new ArrayDeque<>();
+        hops.put(source, 0);
+        queue.add(source);
+        while (!queue.isEmpty()) {
+            L vertex = queue.remove();
+            for (L target : graph.targets(vertex).keySet()) {
+                if (!hops.containsKey(target)) {
+                    hops.put(target, hops.get(vertex) + 1);
+                    queue.add(target);
+                }
+            }
+        }
+        return hops;
+    }
+}
@@ -0,0 +1,122 @@
+/* Copyright (c) 2015-2016 MIT 6.005 course staff, all rights reserved.
+ * Redistribution of original or derived work requires permission of course staff.
+ */
+package graph.algo;
+
+import static org.junit.Assert.*;
+
+import java.util.Map;
+
+import org.junit.Test;
+
+import graph.ConcreteEdgesGraph;
+import graph.FrozenGraph;
+import graph.Graph;
+import graph.IndexedGraph;
+
+/**
+ * Tests for PageRank.
+ */
+public class PageRankTest {
+
+    // Testing strategy
+    //   graph: ConcreteEdgesGraph, IndexedGraph, FrozenGraph
+    //   graph: empty, one vertex, symmetric cycle, weighted edges, dangling vertices,
+    //          more vertices than TASK_SIZE
+    //   damping: 0, default; maxIterations: 0, default
+    //   arguments: damping out of range, negative tolerance, negative iterations
+
+    private static final double DELTA = 1e-6;
+
+    @Test(expected=AssertionError.class)
+    public void testAssertionsEnabled() {
+        assert false; // make sure assertions are enabled with VM argument: -ea
+    }
+
+    // Covers ConcreteEdgesGraph; empty graph, one vertex
+    @Test
+    public void testRanksTrivial() {
+        Graph<String> graph = new ConcreteEdgesGraph();
+        assertEquals(Map.of(), PageRank.ranks(graph));
+        graph.add("a");
+        assertEquals(1.0, PageRank.ranks(graph).get("a"), DELTA);
+    }
+
+    // Covers IndexedGraph; symmetric cycle; damping 0; maxIterations 0
+    @Test
+    public void testRanksCycle() {
+        Graph<String> graph = new IndexedGraph<>();
+        graph.set("a", "b", 1);
+        graph.set("b", "c", 7);
+        graph.set("c", "a", 3);
+        for (double rank : PageRank.ranks(graph).values()) {
+            assertEquals(1.0 / 3, rank, DELTA);
+        }
+        for (double rank : PageRank.ranks(graph, 0, 0, 0).values()) {
+            assertEquals(1.0 / 3, rank, DELTA);
+        }
+    }
+
+    // Covers weighted edges, dangling vertices
+    @Test
+    public void testRanksWeightedAndDangling() {
+        Graph<String> graph = new IndexedGraph<>();
+        graph.set("hub", "heavy", 3);
+        graph.set("hub", "light", 1);
+        graph.set("heavy", "hub", 1);
+        graph.set("light", "hub", 1);
+        graph.add("dangling");
+        Map<String, Double> ranks = PageRank.ranks(graph);
+        assertEquals(1.0, ranks.values().stream().mapToDouble(Double::doubleValue).sum(), DELTA);
+        assertTrue(ranks.get("hub") > ranks.get("heavy"));
+        assertTrue(ranks.get("heavy") > ranks.get("light"));
+        assertTrue(ranks.get("light") > ranks.get("dangling"));
+        // the flow into heavy is three times the flow into light, plus the same jumps
+        double jump = ranks.get("dangling");
+        assertEquals(3 * (ranks.get("light") - jump), ranks.get("heavy") - jump, DELTA);
+    }
+
+    // Covers FrozenGraph; more vertices than TASK_SIZE
+    @Test
+    public void testRanksLarge() {
+        IndexedGraph<Integer> graph = new IndexedGraph<>();
+        int n = 3 * PageRank.TASK_SIZE;
+        for (int i = 0; i < n; i++) {
+            graph.set(i, (i + 1) % n, 1);
+            graph.set(i, 0, 1);
+        }
+        FrozenGraph<Integer> frozen = FrozenGraph.freeze(graph);
+        double[] ranks = PageRank.ranksById(frozen, PageRank.DEFAULT_DAMPING, PageRank.DEFAULT_TOLERANCE,
+                PageRank.DEFAULT_MAX_ITERATIONS);
+        double sum = 0;
+        for (double rank : ranks) {
+            sum += rank;
+        }
+        assertEquals(1.0, sum, DELTA);
+        int zero = frozen.idOf(0);
+        for (int v = 0; v < ranks.length; v++) {
+            if (v != zero) {
+                assertTrue(ranks[zero] > ranks[v]);
+            }
+        }
+        assertEquals(ranks[frozen.idOf(n / 2)], ranks[frozen.idOf(n / 2 + 1)], 1e-3 / n);
+    }
+
+    // Covers damping out of range
+    @Test(expected=IllegalArgumentException.class)
+    public void testRanksDampingOutOfRange() {
+        PageRank.ranks(new IndexedGraph<String>(), 1.5, 0, 1);
+    }
+
+    // Covers negative tolerance
+    @Test(expected=IllegalArgumentException.class)
+    public void testRanksNegativeTolerance() {
+        PageRank.ranks(new IndexedGraph<String>(), 0.5, -1, 1);
+    }
+
+    // Covers negative iterations
+    @Test(expected=IllegalArgumentException.class)
+    public void testRanksNegativeIterations() {
+        PageRank.ranks(new IndexedGraph<String>(), 0.5, 0, -1);
+    }
+}
@@ -0,0 +1,109 @@
+/* Copyright (c) 2015-2016 MIT 6.005 course staff, all rights reserved.
+ * Redistribution of original or derived work requires permission of course staff.
+ */
+package graph.algo;
+
+import static org.junit.Assert.*;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import org.junit.Test;
+
+import graph.ConcreteVerticesGraph;
+import graph.FrozenGraph;
+import graph.Graph;
+import graph.IndexedGraph;
+
+/**
+ * Tests for ShortestPaths.
+ */
+public class ShortestPathsTest {
+
+    // Testing strategy
+    //   graph: ConcreteVerticesGraph, IndexedGraph, FrozenGraph
+    //   source: not a vertex, vertex without edges, vertex with edges
+    //   paths: fewer edges but longer, distance decreased while queued, cycles, self loops,
+    //          unreachable vertices, distances beyond Integer.MAX_VALUE
+    //   random graph compared with Bellman-Ford relaxation
+    //   distancesById(): source id out of range
+
+    @Test(expected=AssertionError.class)
+    public void testAssertionsEnabled() {
+        assert false; // make sure assertions are enabled with VM argument: -ea
+    }
+
+    // Covers ConcreteVerticesGraph; source not a vertex, vertex without edges
+    @Test
+    public void testDistancesTrivial() {
+        Graph<String> graph = new ConcreteVerticesGraph();
+        assertEquals(Map.of(), ShortestPaths.distances(graph, "a"));
+        graph.set("b", "a", 1);
+        assertEquals(Map.of("a", 0L), ShortestPaths.distances(graph, "a"));
+    }
+
+    // Covers IndexedGraph; fewer edges but longer, decreased while queued, cycles,
+    // self loops, unreachable vertices
+    @Test
+    public void testDistancesShortestByWeight() {
+        Graph<String> graph = new IndexedGraph<>();
+        graph.set("a", "c", 10);
+        graph.set("a", "b", 1);
+        graph.set("b", "c", 2);
+        graph.set("c", "d", 1);
+        graph.set("d", "a", 1);
+        graph.set("d", "d", 5);
+        graph.set("unreachable", "a", 1);
+        assertEquals(Map.of("a", 0L, "b", 1L, "c", 3L, "d", 4L),
+                ShortestPaths.distances(graph, "a"));
+    }
+
+    // Covers distances beyond Integer.MAX_VALUE
+    @Test
+    public void testDistancesLong() {
+        Graph<Integer> graph = new IndexedGraph<>();
+        for (int i = 0; i < 4; i++) {
+            graph.set(i, i + 1, Integer.MAX_VALUE);
+        }
+        assertEquals(Long.valueOf(4L * Integer.MAX_VALUE), ShortestPaths.distances(graph, 0).get(4));
+    }
+
+    // Covers FrozenGraph; random graph compared with Bellman-Ford relaxation
+    @Test
+    public void testDistancesRandom() {
+        Random random = new Random(6005);
+        Graph<Integer> graph = new IndexedGraph<>();
+        int n = 300;
+        for (int i = 0; i < 6 * n; i++) {
+            graph.set(random.nextInt(n), random.nextInt(n), 1 + random.nextInt(50));
+        }
+        graph.add(0);
+        FrozenGraph<Integer> frozen = FrozenGraph.freeze(graph);
+        Map<Integer, Long> expected = new HashMap<>();
+        expected.put(0, 0L);
+        for (boolean changed = true; changed; ) {
+            changed = false;
+            for (Integer source : graph.vertices()) {
+                if (!expected.containsKey(source)) {
+                    continue;
+                }
+                for (Map.Entry<Integer, Integer> edge : graph.targets(source).entrySet()) {
+                    long candidate = expected.get(source) + edge.getValue();
+                    Long known = expected.get(edge.getKey());
+                    if (known == null || candidate < known) {
+                        expected.put(edge.getKey(), candidate);
+                        changed = true;
+                    }
+                }
+            }
+        }
+        assertEquals(expected, ShortestPaths.distances(frozen, 0));
+    }
+
+    // Covers source id out of range
+    @Test(expected=IndexOutOfBoundsException.class)
+    public void testDistancesIdOutOfRange() {
+        ShortestPaths.distancesById(FrozenGraph.freeze(new IndexedGraph<String>()), 0);
+    }
+}
@@ -8,6 +8,10 @@ import static org.junit.Assert.*;
 import org.junit.Test;
 import java.io.File;
 import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Random;
 
 /**
  * Tests for GraphPoet.
@@ -19,13 +23,22 @@ public class GraphPoetTest {
     //   Empty file
     //   File with one word
     //   File with multiple words
+    //   File with blank lines, leading whitespace, bigrams across line breaks
+    //   toString(): words in order of first appearance
+    //   File with words differing in ASCII and non-ASCII case, long words, many distinct
+    //   words; file that is not valid UTF-8
     //   Input with no words
     //   Input with one word
     //   Input with multiple words
+    //   Input with leading, trailing and repeated whitespace of every kind; only whitespace;
+    //   more words than the tokenizer's initial capacity
     //   Graphs with no edges
     //   Graphs with multiple edges
     //   Graphs with edge of weight > 1  
     //   Graph containing cycles
+    //   parallel(): one worker, several, more workers than words; chunk boundaries inside
+    //               runs of whitespace and next to non-ASCII words; file does not exist
+    //   save() then load(): empty graph, graph with edges; file not a model
 
     @Test(expected=AssertionError.class)
     public void testAssertionsEnabled() {
@@ -90,5 +103,155 @@ public class GraphPoetTest {
             fail("Unexpected exception: " + e);
         }
     }
-    	
+
+    // Covers save() then load(): empty graph, graph with edges
+    @Test public void testGraphPoetSaveLoad() throws IOException {
+        Path model = Files.createTempFile("poet", ".model");
+        try {
+            for (String corpus : new String[] { "src/poet/empty.txt", "src/poet/test.txt",
+                    "src/poet/mugar-omni-theater.txt" }) {
+                GraphPoet poet = new GraphPoet(new File(corpus));
+                poet.save(model);
+                GraphPoet loaded = GraphPoet.load(model);
+                assertEquals(poet.toString(), loaded.toString());
+                for (String input : new String[] { "This is a test.", "Test the system.", "" }) {
+                    assertEquals(poet.poem(input), loaded.poem(input));
+                }
+            }
+        } finally {
+            Files.deleteIfExists(model);
+        }
+    }
+
+    // Covers load() of a file that is not a model
+    @Test public void testGraphPoetLoadNotModel() throws IOException {
+        try {
+            GraphPoet.load(new File("src/poet/test.txt").toPath());
+            fail("expected IOException");
+        } catch (IOException e) {
+            // expected
+        }
+    }
+
+    // Covers File with blank lines, leading whitespace, bigrams across line breaks;
+    // toString()
+    @Test public void testGraphPoetLineBreaks() throws IOException {
+        Path corpus = Files.createTempFile("corpus", ".txt");
+        try {
+            Files.writeString(corpus, "\n  To\tbe\n\n\nor NOT\n   \nto be\n");
+            GraphPoet poet = new GraphPoet(corpus.toFile());
+            assertEquals("Be or not to be", poet.poem("Be not to be"));
+            assertEquals("not to be or not", poet.poem("not be or not"));
+            assertEquals("GraphPoet Affinity Graph:\nto -> {be=2}\nbe -> {or=1}\nor -> {not=1}\nnot -> {to=1}\n",
+                    poet.toString());
+        } finally {
+            Files.deleteIfExists(corpus);
+        }
+    }
+
+    // Covers parallel() with one worker, several, more workers than words; chunk
+    // boundaries inside runs of whitespace and next to non-ASCII words
+    @Test public void testGraphPoetParallel() throws IOException {
+        Path corpus = Files.createTempFile("corpus", ".txt");
+        Path expectedModel = Files.createTempFile("expected", ".model");
+        Path actualModel = Files.createTempFile("actual", ".model");
+        try {
+            String[] vocabulary = { "to", "Be", "or", "NOT", "\u00e9t\u00e9", "\u4e16\u754c", "a" };
+            String[] gaps = { " ", "\n", "\r\n", "  \t", "\n\n\n" };
+            Random random = new Random(6005);
+            StringBuilder text = new StringBuilder();
+            for (int i = 0; i < 2000; i++) {
+                text.append(vocabulary[random.nextInt(vocabulary.length)]);
+                text.append(gaps[random.nextInt(gaps.length)]);
+            }
+            Files.writeString(corpus, text);
+            GraphPoet expected = new GraphPoet(corpus.toFile());
+            expected.save(expectedModel);
+            for (int workers : new int[] { 1, 3, 8, 64 }) {
+                GraphPoet actual = GraphPoet.parallel(corpus.toFile(), workers);
+                actual.save(actualModel);
+                assertTrue(Arrays.equals(Files.readAllBytes(expectedModel), Files.readAllBytes(actualModel)));
+                assertEquals(expected.poem("to be or not"), actual.poem("to be or not"));
+            }
+            Files.writeString(corpus, "one");
+            assertEquals("one one", GraphPoet.parallel(corpus.toFile(), 4).poem("one one"));
+        } finally {
+            Files.deleteIfExists(corpus);
+            Files.deleteIfExists(expectedModel);
+            Files.deleteIfExists(actualModel);
+        }
+    }
+
+    // Covers parallel() when the file does not exist
+    @Test public void testGraphPoetParallelFileDoesNotExist() {
+        try {
+            GraphPoet.parallel(new File("nonexistent.txt"), 2);
+            fail("expected IOException");
+        } catch (IOException e) {
+            // expected
+        }
+    }
+
+    // Covers File with words differing in ASCII and non-ASCII case, long words, many
+    // distinct words; compared with parallel()
+    @Test public void testGraphPoetCaseFolding() throws IOException {
+        Path corpus = Files.createTempFile("corpus", ".txt");
+        try {
+            String longWord = "Supercalifragilisticexpialidocious".repeat(5);
+            StringBuilder text = new StringBuilder("\u00c9T\u00c9 ete \u00e9t\u00e9 ETE \u00c9t\u00e9 "
+                    + longWord + " ete " + longWord.toUpperCase() + "\n");
+            // long enough that words cross the blocks the reader scans, and one word
+            // longer than a block
+            for (int i = 0; i < 30000; i++) {
+                text.append("w").append(i).append(i % 7 == 0 ? "\n" : " ");
+            }
+            text.append("X".repeat(100_000)).append(" w0");
+            Files.writeString(corpus, text);
+            GraphPoet poet = new GraphPoet(corpus.toFile());
+            String lower = longWord.toLowerCase();
+            assertEquals("\u00e9t\u00e9 ete \u00e9t\u00e9", poet.poem("\u00e9t\u00e9 \u00e9t\u00e9"));
+            assertEquals("ETE " + lower + " w0", poet.poem("ETE w0"));
+            assertEquals("w10 w11 w12", poet.poem("w10 w12"));
+            assertEquals("w29999 " + "x".repeat(100_000) + " w0", poet.poem("w29999 w0"));
+            Path expectedModel = Files.createTempFile("expected", ".model");
+            Path actualModel = Files.createTempFile("actual", ".model");
+            try {
+                poet.save(expectedModel);
+                GraphPoet.parallel(corpus.toFile(), 4).save(actualModel);
+                assertTrue(Arrays.equals(Files.readAllBytes(expectedModel), Files.readAllBytes(actualModel)));
+            } finally {
+                Files.deleteIfExists(expectedModel);
+                Files.deleteIfExists(actualModel);
+            }
+        } finally {
+            Files.deleteIfExists(corpus);
+        }
+    }
+
+    // Covers file that is not valid UTF-8
+    @Test public void testGraphPoetNotUtf8() throws IOException {
+        Path corpus = Files.createTempFile("corpus", ".txt");
+        try {
+            Files.write(corpus, new byte[] { 'o', 'k', ' ', (byte) 0xC3, 'x', ' ', 'o', 'k' });
+            try {
+                new GraphPoet(corpus.toFile());
+                fail("expected IOException");
+            } catch (IOException e) {
+                // expected
+            }
+        } finally {
+            Files.deleteIfExists(corpus);
+        }
+    }
+
+    // Covers Input with leading, trailing and repeated whitespace of every kind; only
+    // whitespace; more words than the tokenizer's initial capacity
+    @Test public void testGraphPoetInputWhitespace() throws IOException {
+        GraphPoet poet = new GraphPoet(new File("src/poet/mugar-omni-theater.txt"));
+        assertEquals("Test of the system.", poet.poem("  Test\tthe \r\n\u000B\fsystem.\n"));
+        assertEquals("", poet.poem(" \t\n "));
+        assertEquals("a\u00a0b", poet.poem("a\u00a0b"));
+        String input = "Test the system. ".repeat(40).trim();
+        assertEquals("Test of the system. ".repeat(40).trim(), poet.poem(input));
+    }
 }